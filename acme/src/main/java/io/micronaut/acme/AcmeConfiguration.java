@@ -17,6 +17,7 @@ package io.micronaut.acme;
 
 import io.micronaut.context.annotation.ConfigurationProperties;
 import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.core.util.Toggleable;
 
 import jakarta.validation.constraints.NotBlank;
@@ -24,6 +25,7 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import java.io.File;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -47,6 +49,7 @@ public class AcmeConfiguration implements Toggleable {
     private List<String> domains;
     private String accountKey;
     private String domainKey;
+    private String ecDomainKey;
     private File certLocation;
     private String acmeServer;
     private Duration timeout;
@@ -54,6 +57,16 @@ public class AcmeConfiguration implements Toggleable {
     private Integer httpChallengeServerPort = 9999;
     private OrderConfiguration order = new OrderConfiguration();
     private AuthConfiguration auth = new AuthConfiguration();
+    private ExecutorConfiguration executor = new ExecutorConfiguration();
+    private OcspConfiguration ocsp = new OcspConfiguration();
+    private RenewalInfoConfiguration renewalInfo = new RenewalInfoConfiguration();
+    private RefreshConfiguration refresh = new RefreshConfiguration();
+    private LockConfiguration lock = new LockConfiguration();
+    private WatchConfiguration watch = new WatchConfiguration();
+    private StartupConfiguration startup = new StartupConfiguration();
+    private SessionConfiguration session = new SessionConfiguration();
+    private HttpChallengeServerConfiguration httpChallengeServer = new HttpChallengeServerConfiguration();
+    private DnsPropagationConfiguration dnsPropagation = new DnsPropagationConfiguration();
 
     /**
      * If acme certificate background and setup process should be enabled.
@@ -161,6 +174,166 @@ public class AcmeConfiguration implements Toggleable {
         this.auth = auth;
     }
 
+    /**
+     * Get the configuration of the executor used for the calls to the ACME server.
+     * @return executor configuration
+     */
+    public ExecutorConfiguration getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Set the configuration of the executor used for the calls to the ACME server.
+     * @param executor executor configuration
+     */
+    public void setExecutor(ExecutorConfiguration executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Get the OCSP stapling configuration.
+     * @return OCSP stapling configuration
+     */
+    public OcspConfiguration getOcsp() {
+        return ocsp;
+    }
+
+    /**
+     * Set the OCSP stapling configuration.
+     * @param ocsp OCSP stapling configuration
+     */
+    public void setOcsp(OcspConfiguration ocsp) {
+        this.ocsp = ocsp;
+    }
+
+    /**
+     * Get the ACME Renewal Information configuration.
+     * @return ACME Renewal Information configuration
+     */
+    public RenewalInfoConfiguration getRenewalInfo() {
+        return renewalInfo;
+    }
+
+    /**
+     * Set the ACME Renewal Information configuration.
+     * @param renewalInfo ACME Renewal Information configuration
+     */
+    public void setRenewalInfo(RenewalInfoConfiguration renewalInfo) {
+        this.renewalInfo = renewalInfo;
+    }
+
+    /**
+     * Get the configuration of the scheduling of the background renewals.
+     * @return background renewal configuration
+     */
+    public RefreshConfiguration getRefresh() {
+        return refresh;
+    }
+
+    /**
+     * Set the configuration of the scheduling of the background renewals.
+     * @param refresh background renewal configuration
+     */
+    public void setRefresh(RefreshConfiguration refresh) {
+        this.refresh = refresh;
+    }
+
+    /**
+     * Get the configuration of the lease coordinating the certificate orders of several nodes.
+     * @return order lease configuration
+     */
+    public LockConfiguration getLock() {
+        return lock;
+    }
+
+    /**
+     * Set the configuration of the lease coordinating the certificate orders of several nodes.
+     * @param lock order lease configuration
+     */
+    public void setLock(LockConfiguration lock) {
+        this.lock = lock;
+    }
+
+    /**
+     * Get the configuration of the watcher reloading the certificates written by other processes.
+     * @return certificate watcher configuration
+     */
+    public WatchConfiguration getWatch() {
+        return watch;
+    }
+
+    /**
+     * Set the configuration of the watcher reloading the certificates written by other processes.
+     * @param watch certificate watcher configuration
+     */
+    public void setWatch(WatchConfiguration watch) {
+        this.watch = watch;
+    }
+
+    /**
+     * Get the configuration of how the certificates are set up on startup.
+     * @return startup configuration
+     */
+    public StartupConfiguration getStartup() {
+        return startup;
+    }
+
+    /**
+     * Set the configuration of how the certificates are set up on startup.
+     * @param startup startup configuration
+     */
+    public void setStartup(StartupConfiguration startup) {
+        this.startup = startup;
+    }
+
+    /**
+     * Get the configuration of the session to the ACME server.
+     * @return session configuration
+     */
+    public SessionConfiguration getSession() {
+        return session;
+    }
+
+    /**
+     * Set the configuration of the session to the ACME server.
+     * @param session session configuration
+     */
+    public void setSession(SessionConfiguration session) {
+        this.session = session;
+    }
+
+    /**
+     * Get the configuration of the dedicated http-01 challenge listener.
+     * @return http challenge server configuration
+     */
+    public HttpChallengeServerConfiguration getHttpChallengeServer() {
+        return httpChallengeServer;
+    }
+
+    /**
+     * Set the configuration of the dedicated http-01 challenge listener.
+     * @param httpChallengeServer http challenge server configuration
+     */
+    public void setHttpChallengeServer(HttpChallengeServerConfiguration httpChallengeServer) {
+        this.httpChallengeServer = httpChallengeServer;
+    }
+
+    /**
+     * Get the configuration of the DNS propagation check run before the dns-01 challenges are triggered.
+     * @return DNS propagation configuration
+     */
+    public DnsPropagationConfiguration getDnsPropagation() {
+        return dnsPropagation;
+    }
+
+    /**
+     * Set the configuration of the DNS propagation check run before the dns-01 challenges are triggered.
+     * @param dnsPropagation DNS propagation configuration
+     */
+    public void setDnsPropagation(DnsPropagationConfiguration dnsPropagation) {
+        this.dnsPropagation = dnsPropagation;
+    }
+
     /**
      * Account key used to authenticate with the ACME server.
      * @return the account key string
@@ -199,6 +372,24 @@ public class AcmeConfiguration implements Toggleable {
         this.domainKey = domainKey;
     }
 
+    /**
+     * ECDSA key used to order a second certificate for the same domains, served alongside the one ordered with the domain key.
+     * @return ECDSA domain key string value, null if no ECDSA certificate is ordered
+     */
+    @Nullable
+    public String getEcDomainKey() {
+        return ecDomainKey;
+    }
+
+    /**
+     * Sets the ECDSA key (P-256 recommended) used to order a second certificate for the same domains. Clients supporting
+     * ECDSA are served that certificate while the others are still served the one ordered with the domain key.
+     * @param ecDomainKey ECDSA key string
+     */
+    public void setEcDomainKey(@Nullable String ecDomainKey) {
+        this.ecDomainKey = ecDomainKey;
+    }
+
     /**
      * Gets the location to save the certificate on disk to.
      *
@@ -264,7 +455,7 @@ public class AcmeConfiguration implements Toggleable {
     }
 
     /**
-     * Sets the port to start the http challenge server on.
+     * Sets the port to start the http challenge server on, when {@code acme.http-challenge-server.enabled} is set.
      * @param httpChallengeServerPort expected http challenge server port
      */
     public void setHttpChallengeServerPort(Integer httpChallengeServerPort) {
@@ -316,11 +507,16 @@ public class AcmeConfiguration implements Toggleable {
      * Base class for configuration classes.
      */
     public static class AbstractConfiguration {
+        private static final int DEFAULT_INITIAL_PAUSE_MILLIS = 250;
+        private static final Duration DEFAULT_INITIAL_PAUSE = Duration.ofMillis(DEFAULT_INITIAL_PAUSE_MILLIS);
+
         private Duration pause = DEFAULT_PAUSE_DURATION;
+        private Duration initialPause = DEFAULT_INITIAL_PAUSE;
         private int refreshAttempts = DEFAULT_REFRESH_ATTEMPTS;
+        private Duration timeout;
 
         /**
-         * Gets duration in which we will pause between ordering attempts.
+         * Gets the longest duration in which we will pause between two status checks.
          *
          * @return duration
          */
@@ -329,7 +525,9 @@ public class AcmeConfiguration implements Toggleable {
         }
 
         /**
-         * Sets duration in which we will pause between ordering attempts. Default {@value DEFAULT_PAUSE_SECONDS} seconds.
+         * Sets the longest duration in which we will pause between two status checks, the pause starting at
+         * {@code initial-pause} and doubling after each check. A Retry-After sent by the ACME server is honoured even
+         * if longer. Default {@value DEFAULT_PAUSE_SECONDS} seconds.
          *
          * @param pause duration
          */
@@ -337,6 +535,26 @@ public class AcmeConfiguration implements Toggleable {
             this.pause = pause;
         }
 
+        /**
+         * Gets the pause after the first status check.
+         *
+         * @return initial pause
+         */
+        @NonNull
+        public Duration getInitialPause() {
+            return initialPause;
+        }
+
+        /**
+         * Sets the pause after the first status check, doubled after each check up to {@code pause}. Default
+         * {@value #DEFAULT_INITIAL_PAUSE_MILLIS} milliseconds.
+         *
+         * @param initialPause initial pause
+         */
+        public void setInitialPause(@NonNull Duration initialPause) {
+            this.initialPause = initialPause;
+        }
+
         /**
          * Gets number of refresh attempts that will be tried while ordering the certificate from the ACME server.
          *
@@ -347,13 +565,35 @@ public class AcmeConfiguration implements Toggleable {
         }
 
         /**
-         * Sets number of refresh attempts that will be tried while ordering the certificate from the ACME server. Default {@value #DEFAULT_REFRESH_ATTEMPTS}.
+         * Sets number of refresh attempts that will be tried while ordering the certificate from the ACME server. The
+         * polls are now limited by {@code timeout}, this setting only derives its default. Default
+         * {@value #DEFAULT_REFRESH_ATTEMPTS}.
          *
          * @param refreshAttempts number of refresh attempts
          */
         public void setRefreshAttempts(int refreshAttempts) {
             this.refreshAttempts = refreshAttempts;
         }
+
+        /**
+         * Gets how long the status is polled for before giving up.
+         *
+         * @return poll timeout
+         */
+        @NonNull
+        public Duration getTimeout() {
+            return timeout != null ? timeout : pause.multipliedBy(refreshAttempts);
+        }
+
+        /**
+         * Sets how long the status is polled for before giving up, whatever the number of checks. Default
+         * {@code pause} times {@code refresh-attempts}.
+         *
+         * @param timeout poll timeout
+         */
+        public void setTimeout(@Nullable Duration timeout) {
+            this.timeout = timeout;
+        }
     }
 
     /**
@@ -368,5 +608,732 @@ public class AcmeConfiguration implements Toggleable {
      */
     @ConfigurationProperties("auth")
     public static class AuthConfiguration extends AbstractConfiguration {
+        private static final boolean DEFAULT_PARALLEL = false;
+        private static final int DEFAULT_MAX_CONCURRENCY = 10;
+        private static final int DEFAULT_CHALLENGE_TTL_MINUTES = 15;
+        private static final Duration DEFAULT_CHALLENGE_TTL = Duration.ofMinutes(DEFAULT_CHALLENGE_TTL_MINUTES);
+
+        private boolean parallel = DEFAULT_PARALLEL;
+        private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+        private Duration challengeTtl = DEFAULT_CHALLENGE_TTL;
+
+        /**
+         * Gets whether the pending authorizations of an order are validated in parallel.
+         *
+         * @return true if authorizations are validated in parallel
+         */
+        public boolean isParallel() {
+            return parallel;
+        }
+
+        /**
+         * Sets whether the pending authorizations of an order are validated in parallel instead of one after another. Default {@value #DEFAULT_PARALLEL}.
+         *
+         * @param parallel true to validate authorizations in parallel
+         */
+        public void setParallel(boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        /**
+         * Gets the maximum number of authorizations that will be validated at the same time when running in parallel.
+         *
+         * @return maximum number of concurrent authorizations
+         */
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        /**
+         * Sets the maximum number of authorizations that will be validated at the same time when running in parallel. Default {@value #DEFAULT_MAX_CONCURRENCY}.
+         *
+         * @param maxConcurrency maximum number of concurrent authorizations
+         */
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        /**
+         * Gets how long the token of an http-01 challenge is answered for.
+         *
+         * @return time to live of an http-01 challenge token
+         */
+        @NonNull
+        public Duration getChallengeTtl() {
+            return challengeTtl;
+        }
+
+        /**
+         * Sets how long the token of an http-01 challenge is answered for, in case its challenge is never reported as
+         * completed. Default {@value #DEFAULT_CHALLENGE_TTL_MINUTES} minutes.
+         *
+         * @param challengeTtl time to live of an http-01 challenge token
+         */
+        public void setChallengeTtl(@NonNull Duration challengeTtl) {
+            this.challengeTtl = challengeTtl;
+        }
+    }
+
+    /**
+     * Allows the configuration of the executor all calls to the ACME server and all polling are run on.
+     */
+    @ConfigurationProperties("executor")
+    public static class ExecutorConfiguration {
+        private static final boolean DEFAULT_VIRTUAL_THREADS = true;
+        private static final int DEFAULT_MAX_THREADS = 4;
+
+        private boolean virtualThreads = DEFAULT_VIRTUAL_THREADS;
+        private int maxThreads = DEFAULT_MAX_THREADS;
+
+        /**
+         * Gets whether virtual threads are used when running on a JDK that supports them.
+         *
+         * @return true if virtual threads should be used
+         */
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
+        /**
+         * Sets whether virtual threads are used when running on a JDK that supports them (21+). Default {@value #DEFAULT_VIRTUAL_THREADS}.
+         *
+         * @param virtualThreads true if virtual threads should be used
+         */
+        public void setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+
+        /**
+         * Gets the number of platform threads used when virtual threads are not available or disabled.
+         *
+         * @return number of platform threads
+         */
+        public int getMaxThreads() {
+            return maxThreads;
+        }
+
+        /**
+         * Sets the number of platform threads used when virtual threads are not available or disabled. Default {@value #DEFAULT_MAX_THREADS}.
+         *
+         * @param maxThreads number of platform threads
+         */
+        public void setMaxThreads(int maxThreads) {
+            this.maxThreads = maxThreads;
+        }
+    }
+
+    /**
+     * Allows the configuration of the stapling of OCSP responses to the handshakes.
+     */
+    @ConfigurationProperties("ocsp")
+    public static class OcspConfiguration implements Toggleable {
+        private static final boolean DEFAULT_ENABLED = false;
+        private static final int DEFAULT_RETRY_DELAY_MINUTES = 10;
+        private static final Duration DEFAULT_RETRY_DELAY = Duration.ofMinutes(DEFAULT_RETRY_DELAY_MINUTES);
+
+        private boolean enabled = DEFAULT_ENABLED;
+        private Duration retryDelay = DEFAULT_RETRY_DELAY;
+
+        /**
+         * Whether the OCSP response of the certificate is fetched and stapled to the handshakes.
+         *
+         * @return true if OCSP stapling is enabled
+         */
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether the OCSP response of the certificate is fetched and stapled to the handshakes. Requires the
+         * OpenSSL provider. Default {@value #DEFAULT_ENABLED}.
+         *
+         * @param enabled true if OCSP stapling is enabled
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Gets the delay before fetching the OCSP response again after a failure.
+         *
+         * @return delay before retrying
+         */
+        @NonNull
+        public Duration getRetryDelay() {
+            return retryDelay;
+        }
+
+        /**
+         * Sets the delay before fetching the OCSP response again after a failure, or when the response has no next
+         * update. Default {@value #DEFAULT_RETRY_DELAY_MINUTES} minutes.
+         *
+         * @param retryDelay delay before retrying
+         */
+        public void setRetryDelay(@NonNull Duration retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+    }
+
+    /**
+     * Allows the configuration of the use of ACME Renewal Information (ARI) to decide when certificates are renewed.
+     */
+    @ConfigurationProperties("renewal-info")
+    public static class RenewalInfoConfiguration implements Toggleable {
+        private static final boolean DEFAULT_ENABLED = true;
+        private static final int DEFAULT_RETRY_AFTER_HOURS = 6;
+        private static final Duration DEFAULT_RETRY_AFTER = Duration.ofHours(DEFAULT_RETRY_AFTER_HOURS);
+
+        private boolean enabled = DEFAULT_ENABLED;
+        private Duration retryAfter = DEFAULT_RETRY_AFTER;
+
+        /**
+         * Whether certificates are renewed within the renewal window suggested by the ACME server.
+         *
+         * @return true if ACME Renewal Information is used
+         */
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether certificates are renewed within the renewal window suggested by the ACME server. When disabled,
+         * or when the ACME server does not provide renewal information, certificates are renewed based on
+         * {@code acme.renew-witin}. Default {@value #DEFAULT_ENABLED}.
+         *
+         * @param enabled true if ACME Renewal Information is used
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Gets the delay before querying the renewal information again when the ACME server did not send a Retry-After.
+         *
+         * @return delay before querying the renewal information again
+         */
+        @NonNull
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        /**
+         * Sets the delay before querying the renewal information again when the ACME server did not send a
+         * Retry-After. Default {@value #DEFAULT_RETRY_AFTER_HOURS} hours.
+         *
+         * @param retryAfter delay before querying the renewal information again
+         */
+        public void setRetryAfter(@NonNull Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    /**
+     * Allows the configuration of the scheduling of the background renewals.
+     */
+    @ConfigurationProperties("refresh")
+    public static class RefreshConfiguration {
+        private static final int DEFAULT_FREQUENCY_HOURS = 24;
+        private static final Duration DEFAULT_FREQUENCY = Duration.ofHours(DEFAULT_FREQUENCY_HOURS);
+        private static final int DEFAULT_JITTER_MINUTES = 60;
+        private static final Duration DEFAULT_JITTER = Duration.ofMinutes(DEFAULT_JITTER_MINUTES);
+        private static final int DEFAULT_RETRY_DELAY_MINUTES = 1;
+        private static final Duration DEFAULT_RETRY_DELAY = Duration.ofMinutes(DEFAULT_RETRY_DELAY_MINUTES);
+        private static final int DEFAULT_MAX_RETRY_DELAY_HOURS = 24;
+        private static final Duration DEFAULT_MAX_RETRY_DELAY = Duration.ofHours(DEFAULT_MAX_RETRY_DELAY_HOURS);
+
+        private Duration frequency = DEFAULT_FREQUENCY;
+        private Duration jitter = DEFAULT_JITTER;
+        private Duration retryDelay = DEFAULT_RETRY_DELAY;
+        private Duration maxRetryDelay = DEFAULT_MAX_RETRY_DELAY;
+
+        /**
+         * Gets how often the renewal window suggested by the ACME server is checked again.
+         *
+         * @return delay between two checks of the suggested renewal window
+         */
+        @NonNull
+        public Duration getFrequency() {
+            return frequency;
+        }
+
+        /**
+         * Sets how often the renewal window suggested by the ACME server is checked again. Certificates without
+         * renewal information are only checked once they are due for renewal. Default {@value #DEFAULT_FREQUENCY_HOURS} hours.
+         *
+         * @param frequency delay between two checks of the suggested renewal window
+         */
+        public void setFrequency(@NonNull Duration frequency) {
+            this.frequency = frequency;
+        }
+
+        /**
+         * Gets the maximum random delay added to each scheduled renewal.
+         *
+         * @return maximum random delay
+         */
+        @NonNull
+        public Duration getJitter() {
+            return jitter;
+        }
+
+        /**
+         * Sets the maximum random delay added to each scheduled renewal, so that the nodes of a cluster do not all
+         * renew at the same time. Default {@value #DEFAULT_JITTER_MINUTES} minutes.
+         *
+         * @param jitter maximum random delay
+         */
+        public void setJitter(@NonNull Duration jitter) {
+            this.jitter = jitter;
+        }
+
+        /**
+         * Gets the delay before retrying a failed renewal for the first time.
+         *
+         * @return delay before the first retry
+         */
+        @NonNull
+        public Duration getRetryDelay() {
+            return retryDelay;
+        }
+
+        /**
+         * Sets the delay before retrying a failed renewal for the first time. The delay doubles with each consecutive
+         * failure. Default {@value #DEFAULT_RETRY_DELAY_MINUTES} minute.
+         *
+         * @param retryDelay delay before the first retry
+         */
+        public void setRetryDelay(@NonNull Duration retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+
+        /**
+         * Gets the maximum delay between two retries of a failed renewal.
+         *
+         * @return maximum delay between two retries
+         */
+        @NonNull
+        public Duration getMaxRetryDelay() {
+            return maxRetryDelay;
+        }
+
+        /**
+         * Sets the maximum delay between two retries of a failed renewal. Default {@value #DEFAULT_MAX_RETRY_DELAY_HOURS} hours.
+         *
+         * @param maxRetryDelay maximum delay between two retries
+         */
+        public void setMaxRetryDelay(@NonNull Duration maxRetryDelay) {
+            this.maxRetryDelay = maxRetryDelay;
+        }
+    }
+
+    /**
+     * Allows the configuration of the lease a node must hold to order a certificate, so that only one node of a
+     * cluster orders it while the others wait and pick up the result.
+     */
+    @ConfigurationProperties("lock")
+    public static class LockConfiguration {
+        private static final int DEFAULT_LEASE_DURATION_MINUTES = 10;
+        private static final Duration DEFAULT_LEASE_DURATION = Duration.ofMinutes(DEFAULT_LEASE_DURATION_MINUTES);
+        private static final int DEFAULT_POLL_INTERVAL_SECONDS = 5;
+        private static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(DEFAULT_POLL_INTERVAL_SECONDS);
+        private static final int DEFAULT_WAIT_TIMEOUT_MINUTES = 15;
+        private static final Duration DEFAULT_WAIT_TIMEOUT = Duration.ofMinutes(DEFAULT_WAIT_TIMEOUT_MINUTES);
+
+        private File location;
+        private Duration leaseDuration = DEFAULT_LEASE_DURATION;
+        private Duration pollInterval = DEFAULT_POLL_INTERVAL;
+        private Duration waitTimeout = DEFAULT_WAIT_TIMEOUT;
+
+        /**
+         * Gets the directory the lease files are kept in.
+         *
+         * @return directory of the lease files, or null if the orders are only coordinated within this application
+         */
+        @Nullable
+        public File getLocation() {
+            return location;
+        }
+
+        /**
+         * Sets the directory the lease files are kept in. It must be on a volume shared by all the nodes, setting it
+         * enables the file based lease.
+         *
+         * @param location directory of the lease files
+         */
+        public void setLocation(@Nullable File location) {
+            this.location = location;
+        }
+
+        /**
+         * Gets the time after which a lease that has not been released expires.
+         *
+         * @return lease duration
+         */
+        @NonNull
+        public Duration getLeaseDuration() {
+            return leaseDuration;
+        }
+
+        /**
+         * Sets the time after which a lease that has not been released expires, so that a node crashing while ordering
+         * does not block the others. Must be longer than an order takes. Default {@value #DEFAULT_LEASE_DURATION_MINUTES} minutes.
+         *
+         * @param leaseDuration lease duration
+         */
+        public void setLeaseDuration(@NonNull Duration leaseDuration) {
+            this.leaseDuration = leaseDuration;
+        }
+
+        /**
+         * Gets the pause between two attempts to acquire a lease held by another node.
+         *
+         * @return pause between two attempts
+         */
+        @NonNull
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        /**
+         * Sets the pause between two attempts to acquire a lease held by another node. Default {@value #DEFAULT_POLL_INTERVAL_SECONDS} seconds.
+         *
+         * @param pollInterval pause between two attempts
+         */
+        public void setPollInterval(@NonNull Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        /**
+         * Gets how long to wait for a lease held by another node before failing the order.
+         *
+         * @return wait timeout
+         */
+        @NonNull
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        /**
+         * Sets how long to wait for a lease held by another node before failing the order. Default {@value #DEFAULT_WAIT_TIMEOUT_MINUTES} minutes.
+         *
+         * @param waitTimeout wait timeout
+         */
+        public void setWaitTimeout(@NonNull Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+    }
+
+    /**
+     * Allows the configuration of the watcher reloading the certificates written to {@code acme.cert-location} by other
+     * processes.
+     */
+    @ConfigurationProperties("watch")
+    public static class WatchConfiguration implements Toggleable {
+        private static final boolean DEFAULT_ENABLED = false;
+        private static final int DEFAULT_DEBOUNCE_SECONDS = 2;
+        private static final Duration DEFAULT_DEBOUNCE = Duration.ofSeconds(DEFAULT_DEBOUNCE_SECONDS);
+
+        private boolean enabled = DEFAULT_ENABLED;
+        private Duration debounce = DEFAULT_DEBOUNCE;
+
+        /**
+         * Whether the certificate files are watched for changes made by other processes.
+         *
+         * @return true if the certificate files are watched
+         */
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether the certificate files are watched for changes made by other processes. Default {@value #DEFAULT_ENABLED}.
+         *
+         * @param enabled true if the certificate files are watched
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Gets how long the certificate files must stay unchanged before they are reloaded.
+         *
+         * @return quiet period before reloading
+         */
+        @NonNull
+        public Duration getDebounce() {
+            return debounce;
+        }
+
+        /**
+         * Sets how long the certificate files must stay unchanged before they are reloaded, so that a certificate
+         * being written is only reloaded once. Default {@value #DEFAULT_DEBOUNCE_SECONDS} seconds.
+         *
+         * @param debounce quiet period before reloading
+         */
+        public void setDebounce(@NonNull Duration debounce) {
+            this.debounce = debounce;
+        }
+    }
+
+    /**
+     * Allows the configuration of how the certificates are set up on startup.
+     */
+    @ConfigurationProperties("startup")
+    public static class StartupConfiguration {
+        private static final boolean DEFAULT_BLOCKING = true;
+        private static final int DEFAULT_PLACEHOLDER_VALIDITY_HOURS = 24;
+        private static final Duration DEFAULT_PLACEHOLDER_VALIDITY = Duration.ofHours(DEFAULT_PLACEHOLDER_VALIDITY_HOURS);
+
+        private boolean blocking = DEFAULT_BLOCKING;
+        private Duration placeholderValidity = DEFAULT_PLACEHOLDER_VALIDITY;
+
+        /**
+         * Whether startup waits for the certificates that need renewal to be ordered.
+         *
+         * @return true if startup waits for the certificates to be ordered
+         */
+        public boolean isBlocking() {
+            return blocking;
+        }
+
+        /**
+         * Sets whether startup waits for the certificates that need renewal to be ordered. When false, the certificate
+         * in the certificate store is set up even if it is about to expire, or a self-signed placeholder if there is
+         * none, and the certificates are ordered in the background. Default {@value #DEFAULT_BLOCKING}.
+         *
+         * @param blocking true if startup waits for the certificates to be ordered
+         */
+        public void setBlocking(boolean blocking) {
+            this.blocking = blocking;
+        }
+
+        /**
+         * Gets how long the self-signed placeholder certificate is valid for.
+         *
+         * @return placeholder certificate validity
+         */
+        @NonNull
+        public Duration getPlaceholderValidity() {
+            return placeholderValidity;
+        }
+
+        /**
+         * Sets how long the self-signed placeholder certificate served until the first certificate is issued is
+         * valid for. Default {@value #DEFAULT_PLACEHOLDER_VALIDITY_HOURS} hours.
+         *
+         * @param placeholderValidity placeholder certificate validity
+         */
+        public void setPlaceholderValidity(@NonNull Duration placeholderValidity) {
+            this.placeholderValidity = placeholderValidity;
+        }
+    }
+
+    /**
+     * Allows the configuration of the sessions to the ACME server, which are reused by the orders and renewal information
+     * requests along with their directory and connections, each order or request using a session of its own.
+     */
+    @ConfigurationProperties("session")
+    public static class SessionConfiguration {
+        private static final int DEFAULT_TTL_MINUTES = 60;
+        private static final Duration DEFAULT_TTL = Duration.ofMinutes(DEFAULT_TTL_MINUTES);
+
+        private Duration ttl = DEFAULT_TTL;
+
+        /**
+         * Gets how long a session to the ACME server is reused for.
+         *
+         * @return session time to live
+         */
+        @NonNull
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        /**
+         * Sets how long a session to the ACME server, along with the directory it fetched and its connections, is
+         * reused for before a new one is created. Zero creates a new session for each order. Default
+         * {@value #DEFAULT_TTL_MINUTES} minutes.
+         *
+         * @param ttl session time to live
+         */
+        public void setTtl(@NonNull Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * Allows the configuration of the dedicated listener answering the http-01 challenges on
+     * {@code acme.http-challenge-server-port}, instead of the routes of the application.
+     */
+    @ConfigurationProperties("http-challenge-server")
+    public static class HttpChallengeServerConfiguration implements Toggleable {
+        private static final boolean DEFAULT_ENABLED = false;
+        private static final int DEFAULT_HTTPS_PORT = 443;
+
+        private boolean enabled = DEFAULT_ENABLED;
+        private int httpsPort = DEFAULT_HTTPS_PORT;
+
+        /**
+         * Whether the http-01 challenges are answered by a dedicated listener.
+         *
+         * @return true if the dedicated listener is used
+         */
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether the http-01 challenges are answered by a dedicated listener, started on its own event loop
+         * while an order has pending challenges and stopped afterwards. Default {@value #DEFAULT_ENABLED}.
+         *
+         * @param enabled true if the dedicated listener is used
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Gets the port the requests that are not challenges are redirected to.
+         *
+         * @return https port
+         */
+        public int getHttpsPort() {
+            return httpsPort;
+        }
+
+        /**
+         * Sets the port the requests that are not challenges are redirected to over https. Default
+         * {@value #DEFAULT_HTTPS_PORT}.
+         *
+         * @param httpsPort https port
+         */
+        public void setHttpsPort(int httpsPort) {
+            this.httpsPort = httpsPort;
+        }
+    }
+
+    /**
+     * Allows the configuration of the check that the TXT records of the dns-01 challenges are visible before the
+     * challenges are triggered, so that a record that has not propagated yet does not fail the order.
+     */
+    @ConfigurationProperties("dns-propagation")
+    public static class DnsPropagationConfiguration implements Toggleable {
+        private static final boolean DEFAULT_ENABLED = false;
+        private static final int DEFAULT_TIMEOUT_MINUTES = 5;
+        private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(DEFAULT_TIMEOUT_MINUTES);
+        private static final int DEFAULT_INITIAL_PAUSE_SECONDS = 2;
+        private static final Duration DEFAULT_INITIAL_PAUSE = Duration.ofSeconds(DEFAULT_INITIAL_PAUSE_SECONDS);
+        private static final int DEFAULT_MAX_PAUSE_SECONDS = 30;
+        private static final Duration DEFAULT_MAX_PAUSE = Duration.ofSeconds(DEFAULT_MAX_PAUSE_SECONDS);
+
+        private boolean enabled = DEFAULT_ENABLED;
+        private List<String> resolvers = Collections.emptyList();
+        private Duration timeout = DEFAULT_TIMEOUT;
+        private Duration initialPause = DEFAULT_INITIAL_PAUSE;
+        private Duration maxPause = DEFAULT_MAX_PAUSE;
+
+        /**
+         * Whether the TXT records are checked to be visible before the dns-01 challenges are triggered.
+         *
+         * @return true if the propagation of the records is checked
+         */
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether the TXT records are checked to be visible before the dns-01 challenges are triggered. Default
+         * {@value #DEFAULT_ENABLED}.
+         *
+         * @param enabled true if the propagation of the records is checked
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Gets the DNS servers queried for the TXT records.
+         *
+         * @return DNS servers as host or host:port, empty to query the authoritative nameservers of the domains
+         */
+        @NonNull
+        public List<String> getResolvers() {
+            return resolvers;
+        }
+
+        /**
+         * Sets the DNS servers queried for the TXT records, as host or host:port. A record is visible once every server
+         * answers it. When empty, the authoritative nameservers of each domain are queried. Default empty.
+         *
+         * @param resolvers DNS servers as host or host:port
+         */
+        public void setResolvers(@NonNull List<String> resolvers) {
+            this.resolvers = resolvers;
+        }
+
+        /**
+         * Gets how long to wait for the TXT records to be visible.
+         *
+         * @return propagation timeout
+         */
+        @NonNull
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        /**
+         * Sets how long to wait for the TXT records to be visible, the order fails without triggering the challenges
+         * once it has passed. Default {@value #DEFAULT_TIMEOUT_MINUTES} minutes.
+         *
+         * @param timeout propagation timeout
+         */
+        public void setTimeout(@NonNull Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        /**
+         * Gets the pause after the first check of the TXT records.
+         *
+         * @return initial pause between two checks
+         */
+        @NonNull
+        public Duration getInitialPause() {
+            return initialPause;
+        }
+
+        /**
+         * Sets the pause after the first check of the TXT records, doubled after each check up to
+         * {@code max-pause}. Default {@value #DEFAULT_INITIAL_PAUSE_SECONDS} seconds.
+         *
+         * @param initialPause initial pause between two checks
+         */
+        public void setInitialPause(@NonNull Duration initialPause) {
+            this.initialPause = initialPause;
+        }
+
+        /**
+         * Gets the longest pause between two checks of the TXT records.
+         *
+         * @return maximum pause between two checks
+         */
+        @NonNull
+        public Duration getMaxPause() {
+            return maxPause;
+        }
+
+        /**
+         * Sets the longest pause between two checks of the TXT records. Default {@value #DEFAULT_MAX_PAUSE_SECONDS}
+         * seconds.
+         *
+         * @param maxPause maximum pause between two checks
+         */
+        public void setMaxPause(@NonNull Duration maxPause) {
+            this.maxPause = maxPause;
+        }
     }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme;
+
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.naming.Named;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Configuration of an additional certificate managed next to the one configured with {@code acme.domains}. Each
+ * certificate is ordered for its own set of domains and is served to the clients requesting one of those domains
+ * through SNI.
+ */
+@EachProperty(CertificateConfiguration.PREFIX)
+public class CertificateConfiguration implements Named {
+
+    /**
+     * Prefix of the named certificates configuration.
+     */
+    public static final String PREFIX = "acme.certificates";
+
+    /**
+     * Name of the certificate configured with {@code acme.domains}. It cannot be used as the name of an additional
+     * certificate, and neither can {@code ec}, the directory its ECDSA certificate is kept in.
+     */
+    public static final String DEFAULT_NAME = "default";
+
+    /**
+     * The name is used as a directory of {@code acme.cert-location} and in the name of the lease files, so it is
+     * restricted to characters that are safe in a single path segment.
+     */
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final String ECDSA_NAME = "ec";
+
+    private final String name;
+    private List<String> domains;
+    private String domainKey;
+    private String ecDomainKey;
+
+    /**
+     * @param name the name of the certificate
+     */
+    public CertificateConfiguration(@Parameter String name) {
+        if (name == null || !NAME_PATTERN.matcher(name).matches() || ".".equals(name) || "..".equals(name)) {
+            throw new ConfigurationException("The certificate name [" + name + "] must only contain letters, digits, '.', '_' and '-', and cannot be '.' or '..'");
+        }
+        if (DEFAULT_NAME.equals(name)) {
+            throw new ConfigurationException("The certificate name [" + name + "] is reserved for the certificate configured with acme.domains");
+        }
+        if (ECDSA_NAME.equals(name)) {
+            // would share its directory with the ECDSA certificate ordered alongside the one configured with acme.domains
+            throw new ConfigurationException("The certificate name [" + name + "] is reserved for the ECDSA certificate configured with acme.ec-domain-key");
+        }
+        this.name = name;
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the domain(s) the certificate will be ordered for. Wildcard domains are served for any direct subdomain.
+     *
+     * @return the domain(s) name configured
+     */
+    @NonNull
+    @NotEmpty
+    @NotNull
+    public List<String> getDomains() {
+        return domains;
+    }
+
+    /**
+     * Sets the domain(s) in which to order the certificate for.
+     *
+     * @param domains the domain(s) name to be requested
+     */
+    public void setDomains(List<String> domains) {
+        this.domains = domains;
+    }
+
+    /**
+     * Gets the domain key of this certificate.
+     *
+     * @return the domain key, or null to use {@code acme.domain-key}
+     */
+    @Nullable
+    public String getDomainKey() {
+        return domainKey;
+    }
+
+    /**
+     * Sets the domain key used to sign the certificate. Defaults to {@code acme.domain-key}.
+     *
+     * @param domainKey the domain key
+     */
+    public void setDomainKey(@Nullable String domainKey) {
+        this.domainKey = domainKey;
+    }
+
+    /**
+     * Gets the ECDSA domain key of this certificate.
+     *
+     * @return the ECDSA domain key, or null to use {@code acme.ec-domain-key}
+     */
+    @Nullable
+    public String getEcDomainKey() {
+        return ecDomainKey;
+    }
+
+    /**
+     * Sets the ECDSA key used to order a second certificate for the same domains. Defaults to
+     * {@code acme.ec-domain-key}.
+     *
+     * @param ecDomainKey the ECDSA domain key
+     */
+    public void setEcDomainKey(@Nullable String ecDomainKey) {
+        this.ecDomainKey = ecDomainKey;
+    }
+}
@@ -16,24 +16,37 @@
 package io.micronaut.acme.background;
 
 import io.micronaut.acme.AcmeConfiguration;
+import io.micronaut.acme.CertificateConfiguration;
+import io.micronaut.acme.events.CertificateEvent;
 import io.micronaut.acme.services.AcmeService;
 import io.micronaut.runtime.event.ApplicationStartupEvent;
 import io.micronaut.runtime.event.annotation.EventListener;
 import io.micronaut.runtime.exceptions.ApplicationStartupException;
-import io.micronaut.scheduling.annotation.Scheduled;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import org.shredzone.acme4j.exception.AcmeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.security.cert.X509Certificate;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Background task to automatically refresh the certificates from an ACME server on a configurable interval.
+ * Background task to automatically refresh the certificates from an ACME server. Each certificate has a one-shot timer
+ * set to the time it is due for renewal, which is rescheduled whenever a new certificate is set up.
  */
 @Singleton
 public final class AcmeCertRefresherTask {
@@ -42,45 +55,93 @@ public final class AcmeCertRefresherTask {
 
     private AcmeService acmeService;
     private final AcmeConfiguration acmeConfiguration;
+    private final List<CertificateConfiguration> certificateConfigurations;
+    private final TaskScheduler taskScheduler;
+    private final Map<String, RenewalTimer> timers;
 
     /**
-     * Constructs a new Acme cert refresher background task.
+     * Constructs a new Acme cert refresher background task for the certificate configured with {@code acme.domains}.
+     * Without a scheduler the certificate is only renewed on startup and no background renewal is scheduled, which is
+     * logged as a warning.
      *
      * @param acmeService       Acme service
      * @param acmeConfiguration Acme configuration
+     * @deprecated Use {@link #AcmeCertRefresherTask(AcmeService, AcmeConfiguration, List, TaskScheduler)} instead
      */
+    @Deprecated
     public AcmeCertRefresherTask(AcmeService acmeService, AcmeConfiguration acmeConfiguration) {
+        this(acmeService, acmeConfiguration, Collections.emptyList(), null);
+        if (LOG.isWarnEnabled()) {
+            LOG.warn("AcmeCertRefresherTask was created without a TaskScheduler, the certificates will only be renewed on startup and never in the background");
+        }
+    }
+
+    /**
+     * Constructs a new Acme cert refresher background task.
+     *
+     * @param acmeService               Acme service
+     * @param acmeConfiguration         Acme configuration
+     * @param certificateConfigurations Additional named certificates
+     * @param taskScheduler             Scheduler the background renewals run on
+     */
+    @Inject
+    public AcmeCertRefresherTask(AcmeService acmeService,
+                                 AcmeConfiguration acmeConfiguration,
+                                 List<CertificateConfiguration> certificateConfigurations,
+                                 @Named(TaskExecutors.SCHEDULED) TaskScheduler taskScheduler) {
         this.acmeService = acmeService;
         this.acmeConfiguration = acmeConfiguration;
+        this.certificateConfigurations = certificateConfigurations;
+        this.taskScheduler = taskScheduler;
+        Map<String, RenewalTimer> renewalTimers = new LinkedHashMap<>();
+        renewalTimers.put(CertificateConfiguration.DEFAULT_NAME, new RenewalTimer(CertificateConfiguration.DEFAULT_NAME, acmeConfiguration.getDomains()));
+        for (CertificateConfiguration certificate : certificateConfigurations) {
+            renewalTimers.put(certificate.getName(), new RenewalTimer(certificate.getName(), certificate.getDomains()));
+        }
+        this.timers = Collections.unmodifiableMap(renewalTimers);
     }
 
     /**
-     * Scheduled task to refresh certs from ACME server.
+     * Reschedules the background renewal of a certificate once a new one has been set up.
      *
-     * @throws AcmeException if any issues occur during certificate renewal
+     * @param event the certificate event
      */
-    @Scheduled(
-            fixedDelay = "${acme.refresh.frequency:24h}",
-            initialDelay = "${acme.refresh.delay:24h}")
-    void backgroundRenewal() throws AcmeException {
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Running background/scheduled renewal process");
+    @EventListener
+    void onCertificate(CertificateEvent event) {
+        RenewalTimer timer = timers.get(event.getName());
+        if (!event.isValidationCert() && timer != null) {
+            timer.schedule();
         }
-        renewCertIfNeeded();
     }
 
     /**
-     * Checks to see if certificate needs renewed on app startup.
+     * Checks to see if certificate needs renewed on app startup, blocking startup until it has been ordered. When
+     * {@code acme.startup.blocking} is false, the saved certificates or placeholders are set up instead and the renewals
+     * run in the background right away.
      *
      * @param startupEvent Startup event
      */
     @EventListener
     void onStartup(ApplicationStartupEvent startupEvent) {
         try {
+            if (!acmeConfiguration.getStartup().isBlocking() && taskScheduler != null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Setting up the saved certificates and running the startup renewal process in the background");
+                }
+                for (RenewalTimer timer : timers.values()) {
+                    getDomains(timer.configuredDomains);
+                    acmeService.setupCurrentOrPlaceholderCertificate(timer.name);
+                    timer.schedule(Duration.ZERO);
+                }
+                return;
+            }
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Running startup renewal process");
             }
             renewCertIfNeeded();
+            for (RenewalTimer timer : timers.values()) {
+                timer.schedule();
+            }
         } catch (Exception e) { //NOSONAR
             LOG.error("Failed to initialize certificate for SSL no requests would be secure. Stopping application", e);
             throw new ApplicationStartupException("Failed to start due to SSL configuration issue.", e);
@@ -88,16 +149,35 @@ public final class AcmeCertRefresherTask {
     }
 
     /**
-     * Does the work to actually renew the certificate if it needs to be done.
+     * Does the work to actually renew the certificate if it needs to be done. The certificates are checked against
+     * {@code acme.renew-witin} without contacting the ACME server, the renewal information only being fetched by the
+     * background renewals.
      * @throws AcmeException if any issues occur during certificate renewal
      */
     protected void renewCertIfNeeded() throws AcmeException {
+        List<String> domains = getDomains(acmeConfiguration.getDomains());
+        if (isRenewalNeeded(CertificateConfiguration.DEFAULT_NAME)) {
+            acmeService.orderCertificate(domains);
+        } else {
+            acmeService.setupCurrentCertificate();
+        }
+        for (CertificateConfiguration certificate : certificateConfigurations) {
+            String name = certificate.getName();
+            if (isRenewalNeeded(name)) {
+                acmeService.orderCertificate(name, getDomains(certificate.getDomains()));
+            } else {
+                acmeService.setupCurrentCertificate(name);
+            }
+        }
+    }
+
+    private List<String> getDomains(List<String> configuredDomains) {
         if (!acmeConfiguration.isTosAgree()) {
             throw new IllegalStateException(String.format("Cannot refresh certificates until terms of service is accepted. Please review the TOS for Let's Encrypt and set \"%s\" to \"%s\" in configuration once complete", "acme.tos-agree", "true"));
         }
 
         List<String> domains = new ArrayList<>();
-        for (String domain : acmeConfiguration.getDomains()) {
+        for (String domain : configuredDomains) {
             domains.add(domain);
             if (domain.startsWith("*.")) {
                 String baseDomain = domain.substring(2);
@@ -107,18 +187,210 @@ public final class AcmeCertRefresherTask {
                 domains.add(baseDomain);
             }
         }
+        return domains;
+    }
 
-        X509Certificate currentCertificate = acmeService.getCurrentCertificate();
-        if (currentCertificate != null) {
-            long daysTillExpiration = ChronoUnit.SECONDS.between(Instant.now(), currentCertificate.getNotAfter().toInstant());
+    private X509Certificate getCurrentCertificate(String name) {
+        if (CertificateConfiguration.DEFAULT_NAME.equals(name)) {
+            return acmeService.getCurrentCertificate();
+        }
+        return acmeService.getCurrentCertificate(name);
+    }
 
-            if (daysTillExpiration <= acmeConfiguration.getRenewWitin().getSeconds()) {
-                acmeService.orderCertificate(domains);
-            } else {
-                acmeService.setupCurrentCertificate();
+    private CompletionStage<CertificateEvent> orderCertificateAsync(String name, List<String> domains) {
+        if (CertificateConfiguration.DEFAULT_NAME.equals(name)) {
+            return acmeService.orderCertificateAsync(domains);
+        }
+        return acmeService.orderCertificateAsync(name, domains);
+    }
+
+    /**
+     * Computes when a certificate is due for renewal: at the time suggested by the ACME server, checked again every
+     * {@code acme.refresh.frequency}, or else {@code acme.renew-witin} before it expires. The renewal information is
+     * fetched on the ACME executor, the returned stage completing once the ACME server answered.
+     */
+    private CompletionStage<Instant> getRenewalTimeAsync(X509Certificate certificate, Instant now) {
+        Instant renewWithin = getLocalRenewalTime(certificate, now);
+        if (certificate == null) {
+            return CompletableFuture.completedFuture(renewWithin);
+        }
+        return acmeService.getSuggestedRenewalTimeAsync(certificate).handle((suggestedRenewalTime, throwable) -> {
+            if (throwable != null || suggestedRenewalTime.isEmpty()) {
+                return renewWithin;
             }
-        } else {
-            acmeService.orderCertificate(domains);
+            Instant recheck = now.plus(acmeConfiguration.getRefresh().getFrequency());
+            return suggestedRenewalTime.get().isBefore(recheck) ? suggestedRenewalTime.get() : recheck;
+        });
+    }
+
+    /**
+     * @return a stage completed with the time the certificate, or its ECDSA certificate, is due for renewal
+     */
+    private CompletionStage<Instant> getRenewalTimeAsync(String name, Instant now) {
+        CompletionStage<Instant> renewalTime = getRenewalTimeAsync(getCurrentCertificate(name), now);
+        if (acmeService.hasEcdsaCertificate(name)) {
+            renewalTime = renewalTime.thenCombine(getRenewalTimeAsync(acmeService.getCurrentEcdsaCertificate(name), now),
+                    AcmeCertRefresherTask::earliest);
+        }
+        return renewalTime;
+    }
+
+    /**
+     * Computes when a certificate is due for renewal from the certificate alone, {@code acme.renew-witin} before it
+     * expires, without contacting the ACME server.
+     */
+    private Instant getLocalRenewalTime(X509Certificate certificate, Instant now) {
+        return certificate == null ? now : certificate.getNotAfter().toInstant().minus(acmeConfiguration.getRenewWitin());
+    }
+
+    private Instant getLocalRenewalTime(String name, Instant now) {
+        Instant renewalTime = getLocalRenewalTime(getCurrentCertificate(name), now);
+        if (acmeService.hasEcdsaCertificate(name)) {
+            renewalTime = earliest(renewalTime, getLocalRenewalTime(acmeService.getCurrentEcdsaCertificate(name), now));
+        }
+        return renewalTime;
+    }
+
+    private CompletionStage<Boolean> isRenewalNeededAsync(String name) {
+        Instant now = Instant.now();
+        return getRenewalTimeAsync(name, now).thenApply(renewalTime -> !now.isBefore(renewalTime));
+    }
+
+    private boolean isRenewalNeeded(String name) {
+        Instant now = Instant.now();
+        return !now.isBefore(getLocalRenewalTime(name, now));
+    }
+
+    private static Instant earliest(Instant a, Instant b) {
+        return b.isBefore(a) ? b : a;
+    }
+
+    private static Duration jitter(Duration max) {
+        long maxMillis = max.toMillis();
+        return maxMillis <= 0 ? Duration.ZERO : Duration.ofMillis(ThreadLocalRandom.current().nextLong(maxMillis + 1));
+    }
+
+    /**
+     * One-shot timer renewing a certificate once it is due for renewal, retrying with an exponential backoff on failure.
+     */
+    private final class RenewalTimer {
+        private final String name;
+        private final List<String> configuredDomains;
+        private ScheduledFuture<?> future;
+        private long generation;
+        private boolean renewing;
+        private int failures;
+
+        private RenewalTimer(String name, List<String> configuredDomains) {
+            this.name = name;
+            this.configuredDomains = configuredDomains;
+        }
+
+        /**
+         * Schedules the renewal for the time the current certificate is due for renewal, unless a renewal is running.
+         * The renewal is scheduled {@code acme.renew-witin} before the certificate expires right away, and rescheduled
+         * once the renewal information has been fetched, unless the timer has been rescheduled in the meantime.
+         */
+        synchronized void schedule() {
+            if (renewing || taskScheduler == null) {
+                return;
+            }
+            Instant now = Instant.now();
+            Instant renewWithin = getLocalRenewalTime(name, now);
+            schedule(now, renewWithin);
+            long scheduled = generation;
+            getRenewalTimeAsync(name, now).thenAccept(renewalTime -> {
+                if (!renewalTime.equals(renewWithin)) {
+                    refine(scheduled, renewalTime);
+                }
+            });
+        }
+
+        private synchronized void schedule(Instant now, Instant renewalTime) {
+            Duration delay = Duration.between(now, renewalTime);
+            if (delay.isNegative()) {
+                delay = Duration.ZERO;
+            }
+            schedule(delay.plus(jitter(acmeConfiguration.getRefresh().getJitter())));
+        }
+
+        private synchronized void schedule(Duration delay) {
+            if (future != null) {
+                future.cancel(false);
+            }
+            generation++;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Scheduling the background renewal of the ACME certificate [{}] in {}", name, delay);
+            }
+            future = taskScheduler.schedule(delay, this::run);
+        }
+
+        private synchronized void refine(long scheduled, Instant renewalTime) {
+            if (!renewing && generation == scheduled) {
+                schedule(Instant.now(), renewalTime);
+            }
+        }
+
+        private void run() {
+            CompletionStage<Boolean> renewalNeeded;
+            try {
+                renewalNeeded = isRenewalNeededAsync(name);
+            } catch (RuntimeException e) {
+                renewalNeeded = CompletableFuture.failedFuture(e);
+            }
+            renewalNeeded.whenComplete((needed, throwable) -> {
+                if (throwable != null) {
+                    onRenewalComplete(throwable);
+                } else if (needed) {
+                    renew();
+                } else {
+                    schedule();
+                }
+            });
+        }
+
+        private void renew() {
+            CompletionStage<CertificateEvent> order;
+            try {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Running background renewal of the ACME certificate [{}]", name);
+                }
+                synchronized (this) {
+                    renewing = true;
+                }
+                order = orderCertificateAsync(name, getDomains(configuredDomains));
+            } catch (RuntimeException e) {
+                order = CompletableFuture.failedFuture(e);
+            }
+            order.whenComplete((certificateEvent, throwable) -> onRenewalComplete(throwable));
+        }
+
+        private synchronized void onRenewalComplete(Throwable throwable) {
+            renewing = false;
+            if (throwable == null) {
+                failures = 0;
+                schedule();
+                return;
+            }
+            failures++;
+            Duration retryDelay = getRetryDelay();
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Failed to renew the ACME certificate [{}] in the background, retrying in {}", name, retryDelay, throwable);
+            }
+            schedule(retryDelay.plus(jitter(min(acmeConfiguration.getRefresh().getJitter(), retryDelay))));
+        }
+
+        private Duration getRetryDelay() {
+            Duration maxRetryDelay = acmeConfiguration.getRefresh().getMaxRetryDelay();
+            Duration retryDelay = acmeConfiguration.getRefresh().getRetryDelay();
+            for (int i = 1; i < failures && retryDelay.compareTo(maxRetryDelay) < 0; i++) {
+                retryDelay = retryDelay.multipliedBy(2);
+            }
+            return min(retryDelay, maxRetryDelay);
+        }
+
+        private Duration min(Duration a, Duration b) {
+            return a.compareTo(b) <= 0 ? a : b;
         }
     }
 }
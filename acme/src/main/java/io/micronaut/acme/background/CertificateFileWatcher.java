@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.background;
+
+import io.micronaut.acme.AcmeConfiguration;
+import io.micronaut.acme.services.AcmeService;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.runtime.event.ApplicationStartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Watches the certificate files in {@code acme.cert-location} and sets up the certificates written by other processes,
+ * such as another node sharing the volume or an external tool. Changes are debounced and the new chain is validated
+ * before it is set up. The watcher relies on file system notifications and never polls the disk or contacts the ACME
+ * server.
+ */
+@Singleton
+@Requires(property = "acme.watch.enabled", value = StringUtils.TRUE)
+final class CertificateFileWatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CertificateFileWatcher.class);
+    private static final String DOMAIN_CRT = "domain.crt";
+    private static final String ECDSA_LOCATION = "ec";
+    private static final String THREAD_NAME = "acme-certificate-watcher";
+
+    private final AcmeService acmeService;
+    private final TaskScheduler taskScheduler;
+    private final Duration debounce;
+    private final Map<Path, String> directories = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledFuture<?>> pendingReloads = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    /**
+     * @param acmeService       Acme service
+     * @param acmeConfiguration Acme configuration
+     * @param taskScheduler     Scheduler the debounced reloads run on
+     */
+    CertificateFileWatcher(AcmeService acmeService,
+                           AcmeConfiguration acmeConfiguration,
+                           @Named(TaskExecutors.SCHEDULED) TaskScheduler taskScheduler) {
+        this.acmeService = acmeService;
+        this.taskScheduler = taskScheduler;
+        this.debounce = acmeConfiguration.getWatch().getDebounce();
+    }
+
+    /**
+     * Starts watching the certificate files once the certificates have been set up on startup.
+     *
+     * @param startupEvent Startup event
+     */
+    @EventListener
+    synchronized void onStartup(ApplicationStartupEvent startupEvent) {
+        if (watchService != null) {
+            return;
+        }
+        try {
+            for (String name : acmeService.getCertificateNames()) {
+                Path location = acmeService.getCertificateLocation(name).toPath();
+                if (watchService == null) {
+                    watchService = location.getFileSystem().newWatchService();
+                }
+                register(location, name);
+                if (acmeService.hasEcdsaCertificate(name)) {
+                    register(location.resolve(ECDSA_LOCATION), name);
+                }
+            }
+        } catch (IOException e) {
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Failed to watch the certificate files, certificates written by other processes will not be reloaded", e);
+            }
+            stop();
+            return;
+        }
+        watcherThread = new Thread(this::watch, THREAD_NAME);
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    /**
+     * Stops watching the certificate files.
+     */
+    @PreDestroy
+    synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Failed to close the certificate watch service", e);
+                }
+            }
+            watchService = null;
+        }
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+            watcherThread = null;
+        }
+        pendingReloads.values().forEach(pending -> pending.cancel(false));
+        pendingReloads.clear();
+    }
+
+    private void register(Path directory, String name) throws IOException {
+        Files.createDirectories(directory);
+        directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        directories.put(directory, name);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Watching {} for changes to certificate [{}]", directory, name);
+        }
+    }
+
+    private void watch() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        try {
+            while (service != null) {
+                WatchKey key = service.take();
+                String name = directories.get((Path) key.watchable());
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (name != null && (event.kind() == StandardWatchEventKinds.OVERFLOW || DOMAIN_CRT.equals(String.valueOf(event.context())))) {
+                        scheduleReload(name);
+                    }
+                }
+                if (!key.reset() && LOG.isWarnEnabled()) {
+                    LOG.warn("{} can no longer be watched, certificate [{}] will not be reloaded", key.watchable(), name);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // the watcher has been stopped
+        }
+    }
+
+    private void scheduleReload(String name) {
+        pendingReloads.compute(name, (n, pending) -> {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            return taskScheduler.schedule(debounce, () -> reload(n));
+        });
+    }
+
+    private void reload(String name) {
+        try {
+            acmeService.reloadCertificate(name);
+        } catch (RuntimeException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to reload certificate [{}]", name, e);
+            }
+        }
+    }
+}
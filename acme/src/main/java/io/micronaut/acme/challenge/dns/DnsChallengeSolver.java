@@ -17,9 +17,18 @@ package io.micronaut.acme.challenge.dns;
 
 import io.micronaut.context.annotation.DefaultImplementation;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Represents a solver for the DNS challenge that can create and destroy
  * DNS records.
+ *
+ * <p>The records of the challenges authorized together are created and destroyed as a single batch through
+ * {@link #createRecords(Map)} and {@link #destroyRecords(Collection)}. Their default implementations adapt to the
+ * single record methods, a solver for a provider accepting change sets should override them to submit the whole batch
+ * at once.</p>
  */
 @DefaultImplementation(RenderedTextDnsChallengeSolver.class)
 public interface DnsChallengeSolver {
@@ -44,4 +53,50 @@ public interface DnsChallengeSolver {
      * @param domain    The domain to remove the record for, excluding the `_acme-challenge` key
      */
     void destroyRecord(String domain);
+
+    /**
+     * Creates the TXT records of a batch of challenges, all of them being triggered once the returned future completes.
+     * A batch never contains the same domain twice.
+     *
+     * <p>By default each record is created in turn with {@link #createRecord(String, String)}.</p>
+     *
+     * @param records   The digest to set the TXT record to, by domain excluding the `_acme-challenge` key
+     * @return a future completed once the provider accepted every record, or completed exceptionally if it did not
+     * @since 5.3.0
+     */
+    default CompletableFuture<Void> createRecords(Map<String, String> records) {
+        try {
+            records.forEach(this::createRecord);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Removes the TXT records previously created for a batch of challenges.
+     *
+     * <p>This method is called even if the challenges failed, so it is possible some records may not exist. By
+     * default each record is removed in turn with {@link #destroyRecord(String)}.</p>
+     *
+     * @param domains   The domains to remove the records for, excluding the `_acme-challenge` key
+     * @return a future completed once the provider accepted the removal of every record
+     * @since 5.3.0
+     */
+    default CompletableFuture<Void> destroyRecords(Collection<String> domains) {
+        RuntimeException failure = null;
+        for (String domain : domains) {
+            try {
+                destroyRecord(domain);
+            } catch (RuntimeException e) {
+                // the other records are still removed
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        return failure == null ? CompletableFuture.completedFuture(null) : CompletableFuture.failedFuture(failure);
+    }
 }
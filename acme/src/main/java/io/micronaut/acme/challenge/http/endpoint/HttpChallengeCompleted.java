@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.challenge.http.endpoint;
+
+/**
+ * Published once an http-01 challenge is no longer pending, so that its token stops being answered.
+ *
+ * @since 5.3.0
+ */
+public final class HttpChallengeCompleted {
+    private final String token;
+
+    /**
+     * @param token token of the completed challenge
+     */
+    public HttpChallengeCompleted(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @return token of the completed challenge
+     */
+    public String getToken() {
+        return token;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.challenge.http.endpoint;
+
+import io.micronaut.acme.AcmeConfiguration;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Dedicated listener answering the http-01 challenges on {@code acme.http-challenge-server-port}, so that the challenge
+ * requests, and whatever else reaches that port, never go through the event loops and routes of the application. It is
+ * started on its own event loop when an order publishes its first challenge and stopped once no challenge is pending.
+ * Requests for any other path are redirected to https.
+ */
+@Singleton
+@Requires(property = "acme.http-challenge-server.enabled", value = StringUtils.TRUE)
+final class HttpChallengeServer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpChallengeServer.class);
+    private static final String CHALLENGE_PATH = "/.well-known/acme-challenge/";
+    private static final int HTTPS_DEFAULT_PORT = 443;
+
+    private final PendingTokens tokens;
+    private final int port;
+    private final int httpsPort;
+    private EventLoopGroup group;
+    private Channel serverChannel;
+
+    /**
+     * @param acmeConfiguration Acme configuration
+     */
+    HttpChallengeServer(AcmeConfiguration acmeConfiguration) {
+        this.tokens = new PendingTokens(acmeConfiguration.getAuth().getChallengeTtl());
+        this.port = acmeConfiguration.getHttpChallengeServerPort();
+        this.httpsPort = acmeConfiguration.getHttpChallengeServer().getHttpsPort();
+    }
+
+    /**
+     * Answers the token of a new challenge, starting the listener if it is not running.
+     * @param challengeDetails details allowing for challenge verification
+     */
+    @EventListener
+    void challengeDetails(HttpChallengeDetails challengeDetails) {
+        tokens.add(challengeDetails.getToken(), challengeDetails.getContent());
+        start();
+    }
+
+    /**
+     * Stops answering the token of a completed challenge, stopping the listener once no challenge is pending.
+     * @param challengeCompleted the completed challenge
+     */
+    @EventListener
+    void challengeCompleted(HttpChallengeCompleted challengeCompleted) {
+        tokens.remove(challengeCompleted.getToken());
+        if (tokens.isEmpty()) {
+            stop();
+        }
+    }
+
+    /**
+     * @return the port the listener is bound to, -1 if it is not running
+     */
+    synchronized int getBoundPort() {
+        return serverChannel == null ? -1 : ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    /**
+     * Binds the listener, unless it is running. A failure to bind is logged rather than thrown, the challenge can still
+     * be answered by the application if the challenge server reaches it.
+     */
+    synchronized void start() {
+        if (serverChannel != null) {
+            return;
+        }
+        EventLoopGroup eventLoopGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("acme-http-challenge"));
+        try {
+            serverChannel = new ServerBootstrap()
+                    .group(eventLoopGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline()
+                                    .addLast(new HttpServerCodec())
+                                    .addLast(new ChallengeHandler());
+                        }
+                    })
+                    .bind(port)
+                    .syncUninterruptibly()
+                    .channel();
+            group = eventLoopGroup;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Started the http challenge server on port {}", getBoundPort());
+            }
+        } catch (Exception e) {
+            eventLoopGroup.shutdownGracefully();
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Failed to start the http challenge server on port {}", port, e);
+            }
+        }
+    }
+
+    /**
+     * Closes the listener and releases its event loop, if it is running.
+     */
+    @PreDestroy
+    synchronized void stop() {
+        if (serverChannel == null) {
+            return;
+        }
+        serverChannel.close().syncUninterruptibly();
+        group.shutdownGracefully();
+        serverChannel = null;
+        group = null;
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Stopped the http challenge server on port {}", port);
+        }
+    }
+
+    private FullHttpResponse respond(HttpRequest request) {
+        String path = new QueryStringDecoder(request.uri()).path();
+        if (path.startsWith(CHALLENGE_PATH)) {
+            String content = request.method() == HttpMethod.GET ? tokens.get(path.substring(CHALLENGE_PATH.length())) : null;
+            if (content == null) {
+                return response(HttpResponseStatus.NOT_FOUND, Unpooled.EMPTY_BUFFER);
+            }
+            FullHttpResponse response = response(HttpResponseStatus.OK, Unpooled.copiedBuffer(content, StandardCharsets.US_ASCII));
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_OCTET_STREAM);
+            return response;
+        }
+        String host = request.headers().get(HttpHeaderNames.HOST);
+        if (host == null || host.isEmpty()) {
+            return response(HttpResponseStatus.BAD_REQUEST, Unpooled.EMPTY_BUFFER);
+        }
+        String location = "https://" + stripPort(host)
+                + (httpsPort == HTTPS_DEFAULT_PORT ? "" : ":" + httpsPort)
+                + (request.uri().startsWith("/") ? request.uri() : "/");
+        FullHttpResponse response = response(HttpResponseStatus.MOVED_PERMANENTLY, Unpooled.EMPTY_BUFFER);
+        response.headers().set(HttpHeaderNames.LOCATION, location);
+        return response;
+    }
+
+    private static FullHttpResponse response(HttpResponseStatus status, ByteBuf content) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
+        response.headers()
+                .setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes())
+                .set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        return response;
+    }
+
+    private static String stripPort(String host) {
+        if (host.startsWith("[")) {
+            int end = host.indexOf(']');
+            return end > 0 ? host.substring(0, end + 1) : host;
+        }
+        int colon = host.indexOf(':');
+        return colon >= 0 ? host.substring(0, colon) : host;
+    }
+
+    /**
+     * Answers each request and closes the connection, the challenge server opens a new one for each validation.
+     */
+    private final class ChallengeHandler extends SimpleChannelInboundHandler<HttpObject> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) {
+            if (msg instanceof HttpRequest) {
+                ctx.writeAndFlush(respond((HttpRequest) msg)).addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+}
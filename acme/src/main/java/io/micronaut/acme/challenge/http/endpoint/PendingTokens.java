@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.challenge.http.endpoint;
+
+import io.micronaut.core.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory table of the http-01 tokens being answered, each until its challenge completes or its time to live has
+ * passed.
+ */
+final class PendingTokens {
+
+    /**
+     * ACME tokens are 43 base64url characters, longer ones are rejected without being looked up.
+     */
+    private static final int MAX_TOKEN_LENGTH = 128;
+
+    private final Map<String, PendingToken> tokens = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    /**
+     * @param ttl how long a token is answered at most
+     */
+    PendingTokens(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * @return whether no token is being answered
+     */
+    boolean isEmpty() {
+        return tokens.isEmpty();
+    }
+
+    /**
+     * @param token token requested by the challenge server
+     * @return content of the token, or null if the token is unknown or expired
+     */
+    @Nullable
+    String get(String token) {
+        if (tokens.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+            return null;
+        }
+        PendingToken pendingToken = tokens.get(token);
+        if (pendingToken == null) {
+            return null;
+        }
+        if (pendingToken.isExpired(System.nanoTime())) {
+            tokens.remove(token, pendingToken);
+            return null;
+        }
+        return pendingToken.content;
+    }
+
+    /**
+     * Answers a new token, dropping the expired ones.
+     *
+     * @param token   token of the challenge
+     * @param content content expected by the challenge server
+     */
+    void add(String token, String content) {
+        long now = System.nanoTime();
+        tokens.values().removeIf(pendingToken -> pendingToken.isExpired(now));
+        tokens.put(token, new PendingToken(content, now + ttlNanos));
+    }
+
+    /**
+     * Stops answering a token.
+     *
+     * @param token token of the completed challenge
+     */
+    void remove(String token) {
+        tokens.remove(token);
+    }
+
+    /**
+     * Content answered for a token until it expires.
+     */
+    private static final class PendingToken {
+        private final String content;
+        private final long expiresAtNanos;
+
+        PendingToken(String content, long expiresAtNanos) {
+            this.content = content;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
+}
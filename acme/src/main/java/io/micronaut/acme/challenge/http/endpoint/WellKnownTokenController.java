@@ -15,32 +15,40 @@
  */
 package io.micronaut.acme.challenge.http.endpoint;
 
-import io.micronaut.http.HttpStatus;
+import io.micronaut.acme.AcmeConfiguration;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
 import io.micronaut.http.annotation.PathVariable;
-import io.micronaut.http.exceptions.HttpStatusException;
 import io.micronaut.runtime.event.annotation.EventListener;
 
 /**
- * Endpoint to enable http-01 validation from the acme challenge server.
+ * Endpoint to enable http-01 validation from the acme challenge server. Any number of tokens can be answered at the
+ * same time, each until its challenge completes or its time to live, {@code acme.auth.challenge-ttl}, has passed.
  */
 @Controller("/.well-known/acme-challenge")
 public final class WellKnownTokenController {
-    private HttpChallengeDetails challengeDetails = new HttpChallengeDetails("notreal", "notreal");
+
+    private final PendingTokens tokens;
+
+    /**
+     * @param acmeConfiguration Acme configuration
+     */
+    public WellKnownTokenController(AcmeConfiguration acmeConfiguration) {
+        this.tokens = new PendingTokens(acmeConfiguration.getAuth().getChallengeTtl());
+    }
 
     /**
      * Does validation to make sure token is as expected and then returns the correct content the challenge server needs.
+     * Unknown tokens are answered with a not found response without raising an exception.
+     *
      * @param token passed from the challenge server
-     * @return content that the challenge server is expecting
+     * @return content that the challenge server is expecting, or null if the token is unknown
      */
     @Get("/{token}")
+    @Nullable
     String validateToken(@PathVariable String token) {
-        if (challengeDetails.getToken().equalsIgnoreCase(token)) {
-            return challengeDetails.getContent();
-        } else {
-            throw new HttpStatusException(HttpStatus.NOT_FOUND, "Not found");
-        }
+        return tokens.get(token);
     }
 
     /**
@@ -49,6 +57,15 @@ public final class WellKnownTokenController {
      */
     @EventListener
     public void challengeDetails(HttpChallengeDetails challengeDetails) {
-        this.challengeDetails = challengeDetails;
+        tokens.add(challengeDetails.getToken(), challengeDetails.getContent());
+    }
+
+    /**
+     * Event listener removing the token of a challenge that is no longer pending.
+     * @param challengeCompleted the completed challenge
+     */
+    @EventListener
+    public void challengeCompleted(HttpChallengeCompleted challengeCompleted) {
+        tokens.remove(challengeCompleted.getToken());
     }
 }
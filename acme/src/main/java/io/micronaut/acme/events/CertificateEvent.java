@@ -15,6 +15,7 @@
  */
 package io.micronaut.acme.events;
 
+import io.micronaut.acme.CertificateConfiguration;
 import io.micronaut.core.annotation.NonNull;
 import java.security.KeyPair;
 import java.security.cert.X509Certificate;
@@ -23,6 +24,7 @@ import java.security.cert.X509Certificate;
  * Event used to alert when a new ACME certificate is ready for use.
  */
 public class CertificateEvent {
+    private final String name;
     private final KeyPair domainKeyPair;
     private final X509Certificate[] fullCertificateChain;
     private boolean validationCert;
@@ -34,14 +36,34 @@ public class CertificateEvent {
      * @param fullCertificateChain X509 certificate file
      */
     public CertificateEvent(KeyPair domainKeyPair, boolean validationCert, X509Certificate... fullCertificateChain) {
+        this(CertificateConfiguration.DEFAULT_NAME, domainKeyPair, validationCert, fullCertificateChain);
+    }
+
+    /**
+     * Creates a new CertificateEvent containing the full certificate chain of a named certificate.
+     * @param name name of the certificate, {@link CertificateConfiguration#DEFAULT_NAME} for the one configured with {@code acme.domains}
+     * @param domainKeyPair key pair used to encrypt the certificate
+     * @param validationCert if this certificate is to be used for tls-apln-01 account validation
+     * @param fullCertificateChain X509 certificate file
+     */
+    public CertificateEvent(@NonNull String name, KeyPair domainKeyPair, boolean validationCert, X509Certificate... fullCertificateChain) {
         if (fullCertificateChain == null || fullCertificateChain.length == 0) {
             throw new IllegalArgumentException("Certificate chain must not be empty");
         }
+        this.name = name;
         this.validationCert = validationCert;
         this.domainKeyPair = domainKeyPair;
         this.fullCertificateChain = fullCertificateChain;
     }
 
+    /**
+     * @return name of the certificate, {@link CertificateConfiguration#DEFAULT_NAME} for the one configured with {@code acme.domains}
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
     /**
      * @return Certificate created by ACME server
      */
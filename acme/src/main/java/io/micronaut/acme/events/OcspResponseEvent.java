@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.events;
+
+import io.micronaut.core.annotation.NonNull;
+
+import java.security.cert.X509Certificate;
+
+/**
+ * Event published when a new OCSP response is available to be stapled to the handshakes serving a certificate.
+ */
+public class OcspResponseEvent {
+    private final String name;
+    private final X509Certificate certificate;
+    private final byte[] ocspResponse;
+
+    /**
+     * Creates a new OcspResponseEvent.
+     * @param name name of the certificate the response is for
+     * @param certificate certificate the response is for
+     * @param ocspResponse DER encoded OCSP response
+     */
+    public OcspResponseEvent(@NonNull String name, @NonNull X509Certificate certificate, @NonNull byte[] ocspResponse) {
+        this.name = name;
+        this.certificate = certificate;
+        this.ocspResponse = ocspResponse;
+    }
+
+    /**
+     * @return name of the certificate the response is for
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return certificate the response is for
+     */
+    @NonNull
+    public X509Certificate getCertificate() {
+        return certificate;
+    }
+
+    /**
+     * @return DER encoded OCSP response
+     */
+    @NonNull
+    public byte[] getOcspResponse() {
+        return ocspResponse;
+    }
+}
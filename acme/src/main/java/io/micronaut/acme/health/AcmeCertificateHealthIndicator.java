@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.health;
+
+import io.micronaut.acme.services.AcmeService;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.health.HealthStatus;
+import io.micronaut.management.endpoint.health.HealthEndpoint;
+import io.micronaut.management.health.indicator.HealthIndicator;
+import io.micronaut.management.health.indicator.HealthResult;
+import io.micronaut.management.health.indicator.annotation.Readiness;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Readiness indicator that is up once a certificate issued by the ACME server is set up for every managed certificate,
+ * and down while a certificate is missing, expired or still a self-signed placeholder.
+ *
+ * @since 5.3.0
+ */
+@Singleton
+@Readiness
+@Requires(classes = HealthIndicator.class)
+@Requires(beans = HealthEndpoint.class)
+@Requires(property = HealthEndpoint.PREFIX + ".acme.enabled", notEquals = StringUtils.FALSE)
+public class AcmeCertificateHealthIndicator implements HealthIndicator {
+
+    /**
+     * The name of the health indicator.
+     */
+    public static final String NAME = "acme";
+
+    private final AcmeService acmeService;
+
+    /**
+     * @param acmeService the service managing the certificates
+     */
+    public AcmeCertificateHealthIndicator(AcmeService acmeService) {
+        this.acmeService = acmeService;
+    }
+
+    @Override
+    public Publisher<HealthResult> getResult() {
+        Map<String, Boolean> issued = new LinkedHashMap<>();
+        for (String name : acmeService.getCertificateNames()) {
+            issued.put(name, acmeService.isCertificateIssued(name));
+        }
+        HealthStatus status = issued.containsValue(false) ? HealthStatus.DOWN : HealthStatus.UP;
+        return Publishers.just(HealthResult.builder(NAME, status).details(issued).build());
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.lock;
+
+import io.micronaut.context.annotation.DefaultImplementation;
+import io.micronaut.core.annotation.NonNull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Lease a node must hold to order a certificate, so that only one node of a cluster orders it while the others wait
+ * and pick up the result. The default implementation only coordinates the orders within the application, replace it
+ * with {@code @Replaces(CertificateOrderLock.class)} to coordinate them through a shared store such as Redis or a
+ * database.
+ *
+ * @since 5.3.0
+ */
+@DefaultImplementation(LocalCertificateOrderLock.class)
+public interface CertificateOrderLock {
+
+    /**
+     * Tries to acquire the lease to order a certificate, without waiting for it to be released by another node.
+     *
+     * @param name          name of the lease, unique for each certificate
+     * @param leaseDuration time after which the lease expires if it has not been released, so that a node crashing
+     *                      while ordering does not block the others
+     * @return the lease, or empty if it is held by another node
+     * @throws IOException if the shared store of the leases could not be reached
+     */
+    @NonNull
+    Optional<Lease> tryAcquire(@NonNull String name, @NonNull Duration leaseDuration) throws IOException;
+
+    /**
+     * A lease held by this node.
+     */
+    interface Lease extends AutoCloseable {
+
+        /**
+         * Releases the lease, unless it expired and has been acquired by another node in the meantime.
+         */
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.lock;
+
+import io.micronaut.acme.AcmeConfiguration;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Coordinates the certificate orders of the nodes sharing a volume through lease files. Each lease of a certificate is
+ * a new generation, {@code <name>.lease.<generation>}, created atomically by the node acquiring it and holding its
+ * owner and expiry. The lease with the highest generation is the current one. An expired lease is taken over by
+ * creating the next generation, which only one node can do, so the expired lease file is never touched while another
+ * node may still be reading it. Releasing a lease marks its file as released rather than deleting it, so that the
+ * generations only ever grow. Lease files are used rather than file locks, which are held by the JVM rather than by
+ * the application and are not reliable on network file systems.
+ */
+@Singleton
+@Replaces(CertificateOrderLock.class)
+@Requires(property = FileCertificateOrderLock.LOCATION_PROPERTY)
+final class FileCertificateOrderLock implements CertificateOrderLock {
+
+    static final String LOCATION_PROPERTY = "acme.lock.location";
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileCertificateOrderLock.class);
+    private static final String LEASE_SUFFIX = ".lease.";
+    private static final String RELEASED = "released";
+
+    private final Path location;
+
+    /**
+     * @param acmeConfiguration Acme configuration
+     */
+    FileCertificateOrderLock(AcmeConfiguration acmeConfiguration) {
+        this.location = acmeConfiguration.getLock().getLocation().toPath();
+    }
+
+    @Override
+    public Optional<Lease> tryAcquire(String name, Duration leaseDuration) throws IOException {
+        Files.createDirectories(location);
+        String leasePrefix = name.replaceAll("[^A-Za-z0-9._-]", "_") + LEASE_SUFFIX;
+        Instant now = Instant.now();
+        long generation = currentGeneration(location, leasePrefix);
+        boolean takeOver = false;
+        if (generation > 0) {
+            Path current = location.resolve(leasePrefix + generation);
+            String content = read(current);
+            if (content == null) {
+                // cleaned up by a node that acquired a later generation
+                return Optional.empty();
+            }
+            if (!RELEASED.equals(content)) {
+                if (!isExpired(current, content, leaseDuration, now)) {
+                    return Optional.empty();
+                }
+                takeOver = true;
+            }
+        }
+
+        long next = generation + 1;
+        Path leaseFile = location.resolve(leasePrefix + next);
+        String owner = UUID.randomUUID().toString();
+        if (!create(leaseFile, owner + " " + now.plus(leaseDuration).toEpochMilli())) {
+            // another node acquired the next generation first
+            return Optional.empty();
+        }
+        if (currentGeneration(location, leasePrefix) != next) {
+            // the generation read was stale, and a generation deleted since then was created again
+            Files.deleteIfExists(leaseFile);
+            return Optional.empty();
+        }
+        if (takeOver && LOG.isWarnEnabled()) {
+            LOG.warn("Taking over the expired lease [{}], the node holding it may have crashed while ordering", name);
+        }
+        deletePreviousGenerations(leasePrefix, next);
+        return Optional.of(new FileLease(location, leasePrefix, next, owner));
+    }
+
+    /**
+     * @return the highest generation of the lease files, 0 if there are none
+     */
+    private static long currentGeneration(Path location, String leasePrefix) throws IOException {
+        long generation = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(location, leasePrefix + "*")) {
+            for (Path file : files) {
+                generation = Math.max(generation, generation(file, leasePrefix));
+            }
+        }
+        return generation;
+    }
+
+    private static long generation(Path file, String leasePrefix) {
+        try {
+            return Long.parseLong(file.getFileName().toString().substring(leasePrefix.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void deletePreviousGenerations(String leasePrefix, long generation) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(location, leasePrefix + "*")) {
+            for (Path file : files) {
+                long previous = generation(file, leasePrefix);
+                if (previous > 0 && previous < generation) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Failed to delete the previous lease files of [{}]", leasePrefix, e);
+            }
+        }
+    }
+
+    private static boolean create(Path leaseFile, String content) throws IOException {
+        try {
+            Files.write(leaseFile, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        }
+    }
+
+    private static String read(Path leaseFile) throws IOException {
+        try {
+            return new String(Files.readAllBytes(leaseFile), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static boolean isExpired(Path leaseFile, String content, Duration leaseDuration, Instant now) throws IOException {
+        int separator = content.indexOf(' ');
+        if (separator > 0) {
+            try {
+                return now.toEpochMilli() > Long.parseLong(content.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                // fall through to the modification time
+            }
+        }
+        // the lease is being written, or the node crashed before writing it
+        try {
+            return Files.getLastModifiedTime(leaseFile).toInstant().plus(leaseDuration).isBefore(now);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Lease held through a lease file.
+     */
+    private static final class FileLease implements Lease {
+        private final Path location;
+        private final String leasePrefix;
+        private final long generation;
+        private final String owner;
+
+        private FileLease(Path location, String leasePrefix, long generation, String owner) {
+            this.location = location;
+            this.leasePrefix = leasePrefix;
+            this.generation = generation;
+            this.owner = owner;
+        }
+
+        @Override
+        public void close() {
+            Path leaseFile = location.resolve(leasePrefix + generation);
+            try {
+                String content = read(leaseFile);
+                if (content == null || !content.startsWith(owner + " ") || currentGeneration(location, leasePrefix) != generation) {
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn("Lease [{}] expired before the order completed and has been taken over by another node", leaseFile);
+                    }
+                    return;
+                }
+                // replaced atomically, a node reading the lease sees either the lease or the release
+                Path temp = Files.createTempFile(location, "." + leaseFile.getFileName(), ".tmp");
+                try {
+                    Files.write(temp, RELEASED.getBytes(StandardCharsets.UTF_8));
+                    Files.move(temp, leaseFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("Failed to release lease [{}], it will be taken over once it expires", leaseFile, e);
+                }
+            }
+        }
+    }
+}
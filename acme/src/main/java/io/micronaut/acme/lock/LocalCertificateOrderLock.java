@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.lock;
+
+import jakarta.inject.Singleton;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coordinates the certificate orders within the application only. Leases never expire, as they are released when
+ * the order completes.
+ */
+@Singleton
+final class LocalCertificateOrderLock implements CertificateOrderLock {
+
+    private final Map<String, Object> owners = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<Lease> tryAcquire(String name, Duration leaseDuration) {
+        Object owner = new Object();
+        if (owners.putIfAbsent(name, owner) != null) {
+            return Optional.empty();
+        }
+        return Optional.of(() -> owners.remove(name, owner));
+    }
+}
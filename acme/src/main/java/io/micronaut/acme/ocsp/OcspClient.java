@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.ocsp;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Fetches the OCSP response of a certificate from the responder listed in the certificate.
+ */
+final class OcspClient {
+
+    private static final String OCSP_REQUEST = "application/ocsp-request";
+    private static final String OCSP_RESPONSE = "application/ocsp-response";
+    private static final int HTTP_OK = 200;
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+
+    /**
+     * @param executor executor the responses are handled on
+     * @param timeout  timeout of the requests to the responder, null for none
+     */
+    OcspClient(@NonNull Executor executor, @Nullable Duration timeout) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .executor(executor)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (timeout != null) {
+            builder.connectTimeout(timeout);
+        }
+        this.httpClient = builder.build();
+        this.timeout = timeout;
+    }
+
+    /**
+     * Fetches the OCSP response of a certificate.
+     *
+     * @param certificate the certificate
+     * @param issuer      the issuer of the certificate
+     * @return a stage completed with the verified response, or exceptionally if no valid response could be fetched
+     */
+    @NonNull
+    CompletableFuture<OcspResponse> fetch(@NonNull X509Certificate certificate, @NonNull X509Certificate issuer) {
+        URI responder;
+        byte[] request;
+        try {
+            responder = responderUri(certificate);
+            request = new OCSPReqBuilder()
+                    .addRequest(OcspResponse.certificateId(certificate, issuer))
+                    .build()
+                    .getEncoded();
+        } catch (IOException | OCSPException | OperatorCreationException | CertificateEncodingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        HttpRequest.Builder httpRequest = HttpRequest.newBuilder(responder)
+                .header("Content-Type", OCSP_REQUEST)
+                .header("Accept", OCSP_RESPONSE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(request));
+        if (timeout != null) {
+            httpRequest.timeout(timeout);
+        }
+        return httpClient.sendAsync(httpRequest.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() != HTTP_OK) {
+                        throw new CompletionException(new IOException("OCSP responder " + responder + " answered with HTTP status " + response.statusCode()));
+                    }
+                    try {
+                        return OcspResponse.parse(response.body(), certificate, issuer, Instant.now());
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    private static URI responderUri(X509Certificate certificate) throws IOException {
+        byte[] extensionValue = certificate.getExtensionValue(Extension.authorityInfoAccess.getId());
+        if (extensionValue != null) {
+            AuthorityInformationAccess access = AuthorityInformationAccess.getInstance(JcaX509ExtensionUtils.parseExtensionValue(extensionValue));
+            for (AccessDescription description : access.getAccessDescriptions()) {
+                GeneralName location = description.getAccessLocation();
+                if (AccessDescription.id_ad_ocsp.equals(description.getAccessMethod())
+                        && location.getTagNo() == GeneralName.uniformResourceIdentifier) {
+                    return URI.create(location.getName().toString());
+                }
+            }
+        }
+        throw new IOException("Certificate " + certificate.getSerialNumber() + " does not list an OCSP responder");
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.ocsp;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.CertException;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.operator.ContentVerifierProvider;
+import org.bouncycastle.operator.DigestCalculator;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+
+import java.io.IOException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A verified OCSP response stating that a certificate is good.
+ */
+final class OcspResponse {
+
+    private final byte[] encoded;
+    private final Instant thisUpdate;
+    private final Instant nextUpdate;
+
+    private OcspResponse(byte[] encoded, Instant thisUpdate, @Nullable Instant nextUpdate) {
+        this.encoded = encoded;
+        this.thisUpdate = thisUpdate;
+        this.nextUpdate = nextUpdate;
+    }
+
+    /**
+     * @return the DER encoded response
+     */
+    @NonNull
+    byte[] getEncoded() {
+        return encoded;
+    }
+
+    /**
+     * @return the time the status was known to be correct
+     */
+    @NonNull
+    Instant getThisUpdate() {
+        return thisUpdate;
+    }
+
+    /**
+     * @return the time newer information will be available, null if it is always available
+     */
+    @Nullable
+    Instant getNextUpdate() {
+        return nextUpdate;
+    }
+
+    /**
+     * @param now the current time
+     * @return whether the response can still be stapled
+     */
+    boolean isValidAt(Instant now) {
+        return nextUpdate == null || nextUpdate.isAfter(now);
+    }
+
+    /**
+     * The response should be refreshed half way through its validity, leaving enough time for retries before it
+     * expires.
+     *
+     * @param now the current time
+     * @param defaultDelay delay to use if the response has no next update
+     * @return the delay before refreshing the response
+     */
+    Duration refreshDelay(Instant now, Duration defaultDelay) {
+        if (nextUpdate == null) {
+            return defaultDelay;
+        }
+        Instant halfway = thisUpdate.plus(Duration.between(thisUpdate, nextUpdate).dividedBy(2));
+        Duration delay = Duration.between(now, halfway);
+        return delay.isNegative() ? Duration.ZERO : delay;
+    }
+
+    /**
+     * Parses and verifies an OCSP response.
+     *
+     * @param encoded     DER encoded response
+     * @param certificate the certificate the response must be for
+     * @param issuer      the issuer of the certificate
+     * @param now         the current time
+     * @return the response
+     * @throws IOException if the response is not a valid, signed and current response stating the certificate is good
+     */
+    @NonNull
+    static OcspResponse parse(byte[] encoded, X509Certificate certificate, X509Certificate issuer, Instant now) throws IOException {
+        try {
+            OCSPResp response = new OCSPResp(encoded);
+            if (response.getStatus() != OCSPResp.SUCCESSFUL) {
+                throw new IOException("OCSP responder answered with status " + response.getStatus());
+            }
+            Object responseObject = response.getResponseObject();
+            if (!(responseObject instanceof BasicOCSPResp)) {
+                throw new IOException("OCSP response is not a basic OCSP response");
+            }
+            BasicOCSPResp basicResponse = (BasicOCSPResp) responseObject;
+            verifySignature(basicResponse, new JcaX509CertificateHolder(issuer));
+
+            CertificateID certificateId = certificateId(certificate, issuer);
+            for (SingleResp singleResponse : basicResponse.getResponses()) {
+                if (!certificateId.equals(singleResponse.getCertID())) {
+                    continue;
+                }
+                if (singleResponse.getCertStatus() != CertificateStatus.GOOD) {
+                    throw new IOException("OCSP response does not state that certificate " + certificate.getSerialNumber() + " is good");
+                }
+                Instant nextUpdate = singleResponse.getNextUpdate() == null ? null : singleResponse.getNextUpdate().toInstant();
+                OcspResponse ocspResponse = new OcspResponse(encoded, singleResponse.getThisUpdate().toInstant(), nextUpdate);
+                if (!ocspResponse.isValidAt(now)) {
+                    throw new IOException("OCSP response for certificate " + certificate.getSerialNumber() + " expired at " + nextUpdate);
+                }
+                return ocspResponse;
+            }
+            throw new IOException("OCSP response does not contain the status of certificate " + certificate.getSerialNumber());
+        } catch (OCSPException | CertificateEncodingException | OperatorCreationException | CertException e) {
+            throw new IOException("Invalid OCSP response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param certificate the certificate
+     * @param issuer      the issuer of the certificate
+     * @return the identifier of the certificate in OCSP requests and responses
+     */
+    static CertificateID certificateId(X509Certificate certificate, X509Certificate issuer) throws OperatorCreationException, OCSPException, CertificateEncodingException {
+        DigestCalculator sha1 = new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1);
+        return new CertificateID(sha1, new JcaX509CertificateHolder(issuer), certificate.getSerialNumber());
+    }
+
+    /**
+     * The response must either be signed by the issuer, or by a responder certificate the issuer delegated OCSP
+     * signing to.
+     */
+    private static void verifySignature(BasicOCSPResp response, X509CertificateHolder issuer) throws OperatorCreationException, OCSPException, CertException, IOException {
+        JcaContentVerifierProviderBuilder verifierProviderBuilder = new JcaContentVerifierProviderBuilder();
+        ContentVerifierProvider issuerVerifier = verifierProviderBuilder.build(issuer);
+        if (response.isSignatureValid(issuerVerifier)) {
+            return;
+        }
+        for (X509CertificateHolder responder : response.getCerts()) {
+            ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(responder.getExtensions());
+            if (extendedKeyUsage != null
+                    && extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_OCSPSigning)
+                    && responder.isSignatureValid(issuerVerifier)
+                    && response.isSignatureValid(verifierProviderBuilder.build(responder))) {
+                return;
+            }
+        }
+        throw new IOException("OCSP response is not signed by the issuer of the certificate or a responder it delegated to");
+    }
+}
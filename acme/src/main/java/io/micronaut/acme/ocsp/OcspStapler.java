@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.ocsp;
+
+import io.micronaut.acme.AcmeConfiguration;
+import io.micronaut.acme.events.CertificateEvent;
+import io.micronaut.acme.events.OcspResponseEvent;
+import io.micronaut.acme.services.AcmeExecutorFactory;
+import io.micronaut.acme.services.AcmeService;
+import io.micronaut.acme.store.CertificateStore;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches the OCSP response of each certificate once it is set up, and keeps it fresh in the background so that it can
+ * be stapled to the handshakes. The latest response is kept in memory and in the {@link CertificateStore}, so that a
+ * restart can staple it right away.
+ */
+@Singleton
+@Requires(property = "acme.ocsp.enabled", value = StringUtils.TRUE)
+public class OcspStapler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OcspStapler.class);
+    private static final Duration MIN_REFRESH_DELAY = Duration.ofMinutes(1);
+
+    private final ApplicationEventPublisher<OcspResponseEvent> eventPublisher;
+    private final AcmeService acmeService;
+    private final CertificateStore certificateStore;
+    private final ExecutorService acmeExecutor;
+    private final Duration retryDelay;
+    private final OcspClient ocspClient;
+    private final Map<String, StapledCertificate> certificates = new ConcurrentHashMap<>();
+
+    /**
+     * @param eventPublisher    publisher of the fetched responses
+     * @param acmeService       Acme service
+     * @param certificateStore  Store the responses are kept in
+     * @param acmeConfiguration Acme configuration
+     * @param acmeExecutor      Executor the responses are fetched on
+     */
+    public OcspStapler(ApplicationEventPublisher<OcspResponseEvent> eventPublisher,
+                       AcmeService acmeService,
+                       CertificateStore certificateStore,
+                       AcmeConfiguration acmeConfiguration,
+                       @Named(AcmeExecutorFactory.ACME_EXECUTOR) ExecutorService acmeExecutor) {
+        this.eventPublisher = eventPublisher;
+        this.acmeService = acmeService;
+        this.certificateStore = certificateStore;
+        this.acmeExecutor = acmeExecutor;
+        this.retryDelay = acmeConfiguration.getOcsp().getRetryDelay();
+        this.ocspClient = new OcspClient(acmeExecutor, acmeConfiguration.getTimeout());
+    }
+
+    /**
+     * Starts stapling the OCSP response of a new certificate.
+     *
+     * @param certificateEvent {@link CertificateEvent}
+     */
+    @EventListener
+    void onNewCertificate(CertificateEvent certificateEvent) {
+        if (certificateEvent.isValidationCert()) {
+            return;
+        }
+        String name = certificateEvent.getName();
+        X509Certificate[] chain = certificateEvent.getFullCertificateChain();
+        if (chain.length < 2) {
+            // placeholder and self signed certificates, stops the refreshes of the certificate they replace
+            certificates.remove(name);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Certificate [{}] has no issuer in its chain, its OCSP response is not stapled", name);
+            }
+            return;
+        }
+        if (acmeService.hasEcdsaCertificate(name)) {
+            certificates.remove(name);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Certificate [{}] is served alongside an ECDSA certificate, its OCSP response is not stapled", name);
+            }
+            return;
+        }
+        StapledCertificate stapled = new StapledCertificate(name, chain[0], chain[1]);
+        StapledCertificate previous = certificates.put(name, stapled);
+        if (previous != null && previous.certificate.equals(stapled.certificate)) {
+            stapled.response = previous.response;
+        }
+        CompletableFuture.runAsync(() -> staple(stapled), acmeExecutor);
+    }
+
+    private void staple(StapledCertificate stapled) {
+        Instant now = Instant.now();
+        OcspResponse response = stapled.response;
+        if (response == null) {
+            response = load(stapled, now);
+            stapled.response = response;
+        }
+        if (response != null && response.isValidAt(now)) {
+            publish(stapled, response);
+            schedule(stapled, response.refreshDelay(now, retryDelay));
+        } else {
+            refresh(stapled);
+        }
+    }
+
+    private void refresh(StapledCertificate stapled) {
+        if (isSuperseded(stapled)) {
+            return;
+        }
+        ocspClient.fetch(stapled.certificate, stapled.issuer).whenComplete((response, throwable) -> {
+            if (isSuperseded(stapled)) {
+                return;
+            }
+            if (throwable != null) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("Failed to fetch the OCSP response of certificate [{}], retrying in {}", stapled.name, retryDelay, throwable);
+                }
+                schedule(stapled, retryDelay);
+                return;
+            }
+            stapled.response = response;
+            save(stapled, response);
+            publish(stapled, response);
+            Duration refreshDelay = response.refreshDelay(Instant.now(), retryDelay);
+            // a responder serving a response past its half life must not be polled in a tight loop
+            schedule(stapled, refreshDelay.compareTo(MIN_REFRESH_DELAY) < 0 ? MIN_REFRESH_DELAY : refreshDelay);
+        });
+    }
+
+    private void schedule(StapledCertificate stapled, Duration delay) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Refreshing the OCSP response of certificate [{}] in {}", stapled.name, delay);
+        }
+        CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS, acmeExecutor)
+                .execute(() -> refresh(stapled));
+    }
+
+    /**
+     * A certificate that was set up again, or replaced, has its own refresh scheduled.
+     */
+    private boolean isSuperseded(StapledCertificate stapled) {
+        return certificates.get(stapled.name) != stapled;
+    }
+
+    private void publish(StapledCertificate stapled, OcspResponse response) {
+        eventPublisher.publishEvent(new OcspResponseEvent(stapled.name, stapled.certificate, response.getEncoded()));
+    }
+
+    private OcspResponse load(StapledCertificate stapled, Instant now) {
+        try {
+            Optional<byte[]> stored = certificateStore.loadOcspResponse(stapled.name);
+            return stored.isPresent() ? OcspResponse.parse(stored.get(), stapled.certificate, stapled.issuer, now) : null;
+        } catch (IOException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Ignoring the OCSP response stored for certificate [{}]: {}", stapled.name, e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private void save(StapledCertificate stapled, OcspResponse response) {
+        try {
+            certificateStore.storeOcspResponse(stapled.name, response.getEncoded());
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to store the OCSP response of certificate [{}]", stapled.name, e);
+            }
+        }
+    }
+
+    /**
+     * A certificate whose OCSP response is stapled, along with its latest response.
+     */
+    private static final class StapledCertificate {
+        private final String name;
+        private final X509Certificate certificate;
+        private final X509Certificate issuer;
+        private volatile OcspResponse response;
+
+        StapledCertificate(String name, X509Certificate certificate, X509Certificate issuer) {
+            this.name = name;
+            this.certificate = certificate;
+            this.issuer = issuer;
+        }
+    }
+}
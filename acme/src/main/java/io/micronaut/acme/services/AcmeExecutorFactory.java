@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.services;
+
+import io.micronaut.acme.AcmeConfiguration;
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executor used for all calls to the ACME server and all polling, so that ordering a certificate never
+ * takes capacity from the executors of the application.
+ */
+@Factory
+public class AcmeExecutorFactory {
+
+    /**
+     * Name of the executor used for the ACME network calls and polling.
+     */
+    public static final String ACME_EXECUTOR = "acme";
+
+    private static final Logger LOG = LoggerFactory.getLogger(AcmeExecutorFactory.class);
+    private static final String THREAD_NAME_PREFIX = "acme-executor-";
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Uses a virtual thread per task when running on JDK 21+, otherwise falls back to a small bounded pool of
+     * platform threads.
+     *
+     * @param acmeConfiguration Acme configuration
+     * @return the ACME executor
+     */
+    @Singleton
+    @Named(ACME_EXECUTOR)
+    @Bean(preDestroy = "shutdown")
+    ExecutorService acmeExecutor(AcmeConfiguration acmeConfiguration) {
+        AcmeConfiguration.ExecutorConfiguration executorConfiguration = acmeConfiguration.getExecutor();
+        if (executorConfiguration.isVirtualThreads()) {
+            ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+            if (virtualThreadExecutor != null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Using virtual threads for the ACME executor");
+                }
+                return virtualThreadExecutor;
+            }
+        }
+
+        int maxThreads = Math.max(1, executorConfiguration.getMaxThreads());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Using {} platform threads for the ACME executor", maxThreads);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * The module is compiled against JDK 17 so the virtual thread API is looked up reflectively.
+     *
+     * @return an executor starting a new virtual thread per task, or null if virtual threads are not supported
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 1L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Virtual threads are not supported by this JDK", e);
+            }
+            return null;
+        }
+    }
+}
@@ -16,16 +16,21 @@
 package io.micronaut.acme.services;
 
 import io.micronaut.acme.AcmeConfiguration;
+import io.micronaut.acme.CertificateConfiguration;
 import io.micronaut.acme.challenge.dns.DnsChallengeSolver;
+import io.micronaut.acme.challenge.http.endpoint.HttpChallengeCompleted;
 import io.micronaut.acme.challenge.http.endpoint.HttpChallengeDetails;
 import io.micronaut.acme.events.CertificateEvent;
+import io.micronaut.acme.events.TlsAlpnChallengeCompleted;
+import io.micronaut.acme.lock.CertificateOrderLock;
+import io.micronaut.acme.store.CertificateStore;
 import io.micronaut.context.event.ApplicationEventPublisher;
 import io.micronaut.core.annotation.NonNull;
-import io.micronaut.core.io.IOUtils;
 import io.micronaut.core.io.ResourceResolver;
-import io.micronaut.scheduling.TaskScheduler;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 import org.shredzone.acme4j.*;
 import org.shredzone.acme4j.challenge.Challenge;
 import org.shredzone.acme4j.challenge.Dns01Challenge;
@@ -33,31 +38,43 @@ import org.shredzone.acme4j.challenge.Http01Challenge;
 import org.shredzone.acme4j.challenge.TlsAlpn01Challenge;
 import org.shredzone.acme4j.exception.AcmeException;
 import org.shredzone.acme4j.exception.AcmeRetryAfterException;
+import org.shredzone.acme4j.exception.AcmeServerException;
+import org.shredzone.acme4j.exception.AcmeUnauthorizedException;
 import org.shredzone.acme4j.util.CSRBuilder;
 import org.shredzone.acme4j.util.CertificateUtils;
-import org.shredzone.acme4j.util.KeyPairUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.net.URI;
 import java.net.URL;
-import java.nio.file.Files;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
-import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CancellationException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static io.micronaut.acme.AcmeConfiguration.ChallengeType;
-import static java.nio.file.StandardOpenOption.*;
 
 /**
  * Service to contact an ACME server and setup a certificate on a given basis.
@@ -66,9 +83,19 @@ import static java.nio.file.StandardOpenOption.*;
 public class AcmeService {
 
     private static final Logger LOG = LoggerFactory.getLogger(AcmeService.class);
-    private static final String DOMAIN_CRT = "domain.crt";
-    private static final String DOMAIN_CSR = "domain.csr";
-    private static final String X509_CERT = "X.509";
+    private static final String METADATA_CERTIFICATE_URL = "certificate-url";
+    private static final String METADATA_ORDER_URL = "order-url";
+    private static final String METADATA_STORED_AT = "stored-at";
+    private static final String METADATA_PENDING_ORDER_URL = "pending-order-url";
+    private static final String METADATA_PENDING_DOMAINS = "pending-order-domains";
+    private static final String METADATA_PENDING_STAGE = "pending-order-stage";
+    private static final String STAGE_CREATED = "created";
+    private static final String STAGE_AUTHORIZED = "authorized";
+    private static final String STAGE_FINALIZING = "finalizing";
+    private static final String ECDSA_LOCATION = "ec";
+    private static final String ACCOUNT_URL = "url";
+    private static final String ACCOUNT_KEY_ID = "key-id";
+    private static final URI ACCOUNT_DOES_NOT_EXIST = URI.create("urn:ietf:params:acme:error:accountDoesNotExist");
 
     /**
      * Let's Encrypt has different production vs test servers.
@@ -82,15 +109,17 @@ public class AcmeService {
      */
     private final String acmeServerUrl;
     private final AcmeConfiguration acmeConfiguration;
-    private ResourceResolver resourceResolver;
-    private final TaskScheduler taskScheduler;
-    private final File certLocation;
-    private final String domainKeyString;
+    private final ExecutorService acmeExecutor;
     private final String accountKeyString;
-    private final Duration authPause;
-    private final Duration orderPause;
     private final Duration timeout;
     private final DnsChallengeSolver dnsChallengeSolver;
+    private final Map<String, ManagedCertificate> certificates;
+    private final KeyPairCache keyPairCache;
+    private final AcmeSessionCache sessions;
+    private final RenewalInfoClient renewalInfoClient;
+    private final DnsPropagationCheck dnsPropagationCheck;
+    private final CertificateOrderLock orderLock;
+    private final CertificateStore certificateStore;
 
     private ApplicationEventPublisher eventPublisher;
 
@@ -100,26 +129,40 @@ public class AcmeService {
      * @param eventPublisher    Application Event Publisher
      * @param resourceResolver  Resource resolver for finding keys from classpath or disk
      * @param acmeConfiguration Acme Configuration
-     * @param taskScheduler     Task scheduler for enabling background polling of the certificate refreshes
+     * @param acmeExecutor      Executor all calls to the ACME server and all polling are run on
      * @param dnsChallengeSolver  DNS Challenge Resolver for setting up a DNS challenge
+     * @param certificateConfigurations Additional named certificates
+     * @param orderLock         Lease coordinating the certificate orders of several nodes
+     * @param certificateStore  Store the certificates are kept in
      */
     public AcmeService(ApplicationEventPublisher eventPublisher,
                        AcmeConfiguration acmeConfiguration,
                        ResourceResolver resourceResolver,
-                       @Named("scheduled") TaskScheduler taskScheduler,
-                       DnsChallengeSolver dnsChallengeSolver) {
+                       @Named(AcmeExecutorFactory.ACME_EXECUTOR) ExecutorService acmeExecutor,
+                       DnsChallengeSolver dnsChallengeSolver,
+                       List<CertificateConfiguration> certificateConfigurations,
+                       CertificateOrderLock orderLock,
+                       CertificateStore certificateStore) {
         this.eventPublisher = eventPublisher;
         this.timeout = acmeConfiguration.getTimeout();
-        this.orderPause = acmeConfiguration.getOrder().getPause();
-        this.authPause = acmeConfiguration.getAuth().getPause();
         this.accountKeyString = acmeConfiguration.getAccountKey();
-        this.domainKeyString = acmeConfiguration.getDomainKey();
-        this.certLocation = acmeConfiguration.getCertLocation();
+        this.certificates = createCertificates(acmeConfiguration, certificateConfigurations);
+        this.keyPairCache = new KeyPairCache(resourceResolver);
         this.acmeServerUrl = acmeConfiguration.getAcmeServer();
+        this.sessions = acmeServerUrl != null
+                ? new AcmeSessionCache(acmeServerUrl, timeout, acmeConfiguration.getSession().getTtl())
+                : null;
+        this.renewalInfoClient = acmeConfiguration.getRenewalInfo().isEnabled() && sessions != null
+                ? new RenewalInfoClient(sessions, this::login, acmeExecutor, acmeConfiguration.getRenewalInfo().getRetryAfter())
+                : null;
+        this.dnsPropagationCheck = acmeConfiguration.getDnsPropagation().isEnabled()
+                ? new DnsPropagationCheck(acmeConfiguration.getDnsPropagation().getResolvers())
+                : null;
         this.acmeConfiguration = acmeConfiguration;
-        this.resourceResolver = resourceResolver;
-        this.taskScheduler = taskScheduler;
+        this.acmeExecutor = acmeExecutor;
         this.dnsChallengeSolver = dnsChallengeSolver;
+        this.orderLock = orderLock;
+        this.certificateStore = certificateStore;
     }
 
     /**
@@ -128,98 +171,430 @@ public class AcmeService {
      * @return current domain certificate
      */
     public X509Certificate getCurrentCertificate() {
-        try {
-            CertificateFactory cf = CertificateFactory.getInstance(X509_CERT);
-            File certificate = new File(certLocation, DOMAIN_CRT);
-            if (certificate.exists()) {
-                return (X509Certificate) cf.generateCertificate(Files.newInputStream(certificate.toPath()));
-            } else {
-                return null;
-            }
-        } catch (CertificateException | IOException e) {
-            if (LOG.isWarnEnabled()) {
-                LOG.warn("Could not create certificate from file", e);
-            }
+        return getCurrentCertificate(CertificateConfiguration.DEFAULT_NAME);
+    }
+
+    /**
+     * Gets the current X509Certificate of a named certificate.
+     *
+     * @param name name of the certificate
+     * @return current certificate, or null if it has not been ordered yet
+     */
+    public X509Certificate getCurrentCertificate(@NonNull String name) {
+        return getFullCertificateChain(name)
+                .map(chain -> chain[0])
+                .orElse(null);
+    }
+
+    /**
+     * @return the names of all managed certificates, starting with {@link CertificateConfiguration#DEFAULT_NAME}
+     */
+    @NonNull
+    public Set<String> getCertificateNames() {
+        return certificates.keySet();
+    }
+
+    /**
+     * Gets the directory the files of a named certificate are kept in.
+     *
+     * @param name name of the certificate
+     * @return the directory of the certificate
+     */
+    @NonNull
+    public File getCertificateLocation(@NonNull String name) {
+        return getCertificate(name).location;
+    }
+
+    /**
+     * @param name name of the certificate
+     * @return whether an ECDSA certificate is ordered alongside the certificate
+     */
+    public boolean hasEcdsaCertificate(@NonNull String name) {
+        return getCertificate(name).ecdsa != null;
+    }
+
+    /**
+     * Gets the current ECDSA certificate ordered alongside a named certificate.
+     *
+     * @param name name of the certificate
+     * @return current ECDSA certificate, or null if it is not configured or has not been ordered yet
+     */
+    public X509Certificate getCurrentEcdsaCertificate(@NonNull String name) {
+        ManagedCertificate ecdsa = getCertificate(name).ecdsa;
+        if (ecdsa == null) {
             return null;
         }
+        return loadChain(ecdsa)
+                .map(chain -> chain[0])
+                .orElse(null);
+    }
+
+    /**
+     * Gets the time the ACME server suggests renewing a certificate at, using ACME Renewal Information (ARI), without
+     * blocking the calling thread. The time is picked at random within the suggested renewal window, and the window is
+     * only queried again on the ACME executor once the Retry-After sent by the ACME server has passed.
+     *
+     * @param certificate a certificate issued by the ACME server
+     * @return a stage completed with the suggested renewal time, or with an empty optional if renewal information is
+     * disabled or not provided by the ACME server
+     */
+    @NonNull
+    public CompletionStage<Optional<Instant>> getSuggestedRenewalTimeAsync(@NonNull X509Certificate certificate) {
+        if (renewalInfoClient == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return renewalInfoClient.getRenewalTimeAsync(certificate, Instant.now());
     }
 
     /**
-     * Returns the full certificate chain.
+     * Gets how often a cached session to the ACME server has been reused by the orders and renewal information
+     * requests, rather than creating a new one and fetching the directory again. The reuse of the HTTP connections is
+     * not measured.
+     *
+     * @return the session statistics
+     */
+    @NonNull
+    public AcmeSessionStatistics getSessionStatistics() {
+        return sessions == null ? new AcmeSessionStatistics(0, 0) : sessions.getStatistics();
+    }
+
+    /**
+     * Returns the full certificate chain, as loaded from the {@link CertificateStore}.
      *
      * @return array of each of the certificates in the chain
      */
     @NonNull
     protected Optional<X509Certificate[]> getFullCertificateChain() {
+        return getFullCertificateChain(CertificateConfiguration.DEFAULT_NAME);
+    }
+
+    /**
+     * Returns the full certificate chain of a named certificate.
+     *
+     * @param name name of the certificate
+     * @return array of each of the certificates in the chain
+     */
+    @NonNull
+    protected Optional<X509Certificate[]> getFullCertificateChain(@NonNull String name) {
+        return loadChain(getCertificate(name));
+    }
+
+    /**
+     * Orders a new certificate using ACME protocol. Blocks until the certificate has been ordered, use
+     * {@link #orderCertificateAsync(List)} to order without blocking the calling thread.
+     *
+     * @param domains List of domains to order a certificate for
+     * @throws AcmeException if any issues occur during ordering of certificate
+     */
+    public void orderCertificate(List<String> domains) throws AcmeException {
+        orderCertificate(CertificateConfiguration.DEFAULT_NAME, domains);
+    }
+
+    /**
+     * Orders a new certificate for a named certificate using ACME protocol. Blocks until the certificate has been
+     * ordered.
+     *
+     * @param name    name of the certificate
+     * @param domains List of domains to order a certificate for
+     * @throws AcmeException if any issues occur during ordering of certificate
+     */
+    public void orderCertificate(@NonNull String name, List<String> domains) throws AcmeException {
         try {
-            CertificateFactory cf = CertificateFactory.getInstance(X509_CERT);
-            File certificate = new File(certLocation, DOMAIN_CRT);
-            if (certificate.exists()) {
-                return Optional.of(cf.generateCertificates(Files.newInputStream(certificate.toPath())).stream()
-                        .map(X509Certificate.class::cast)
-                        .toArray(X509Certificate[]::new));
-            }
-        } catch (CertificateException | IOException e) {
-            if (LOG.isWarnEnabled()) {
-                LOG.warn("Could not create certificate from file", e);
+            orderCertificateAsync(name, domains).toCompletableFuture().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AcmeException("ACME certificate order interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof AcmeException) {
+                throw (AcmeException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new AcmeException("ACME certificate order failed", cause);
             }
         }
-        return Optional.empty();
     }
 
     /**
-     * Orders a new certificate using ACME protocol.
+     * Orders a new certificate using ACME protocol without blocking the calling thread. Each stage of the order
+     * (login, order, authorize, finalize and download) is chained onto the previous one and none of them waits on
+     * a poll to complete.
      *
      * @param domains List of domains to order a certificate for
-     * @throws AcmeException if any issues occur during ordering of certificate
+     * @return a stage completed with the event published for the new certificate, or completed exceptionally with
+     * the {@link AcmeException} that caused the order to fail
      */
-    public void orderCertificate(List<String> domains) throws AcmeException {
-        AtomicInteger orderRetryAttempts = new AtomicInteger(acmeConfiguration.getOrder().getRefreshAttempts());
+    @NonNull
+    public CompletionStage<CertificateEvent> orderCertificateAsync(@NonNull List<String> domains) {
+        return orderCertificateAsync(CertificateConfiguration.DEFAULT_NAME, domains);
+    }
+
+    /**
+     * Orders a new certificate for a named certificate using ACME protocol without blocking the calling thread.
+     *
+     * @param name    name of the certificate
+     * @param domains List of domains to order a certificate for
+     * @return a stage completed with the event published for the new certificate, or completed exceptionally with
+     * the {@link AcmeException} that caused the order to fail
+     */
+    @NonNull
+    public CompletionStage<CertificateEvent> orderCertificateAsync(@NonNull String name, @NonNull List<String> domains) {
+        ManagedCertificate certificate = getCertificate(name);
+        CompletableFuture<CertificateEvent> order = orderCertificateAsync(certificate, domains);
+        ManagedCertificate ecdsa = certificate.ecdsa;
+        if (ecdsa == null) {
+            return order;
+        }
+        // the authorizations of the first order are still valid, so the ECDSA order needs no new challenge
+        return order.thenCompose(certificateEvent -> orderCertificateAsync(ecdsa, domains).thenApply(ecdsaEvent -> certificateEvent));
+    }
+
+    /**
+     * Orders a certificate once the order lease has been acquired. If another node ordered the certificate while this
+     * one was waiting for the lease, the certificate it stored is used rather than ordering another one.
+     */
+    private CompletableFuture<CertificateEvent> orderCertificateAsync(ManagedCertificate certificate, List<String> domains) {
+        X509Certificate currentCertificate = loadChain(certificate)
+                .map(chain -> chain[0])
+                .orElse(null);
+        return acquireOrderLease(certificate).thenCompose(lease -> {
+            CompletableFuture<CertificateEvent> order;
+            try {
+                CertificateEvent orderedByAnotherNode = pickUpCertificate(certificate, currentCertificate);
+                order = orderedByAnotherNode != null
+                        ? CompletableFuture.completedFuture(orderedByAnotherNode)
+                        : doOrderCertificateAsync(certificate, domains);
+            } catch (RuntimeException e) {
+                order = CompletableFuture.failedFuture(e);
+            }
+            return order.whenComplete((certificateEvent, throwable) -> lease.close());
+        });
+    }
+
+    private CompletableFuture<CertificateOrderLock.Lease> acquireOrderLease(ManagedCertificate certificate) {
+        AcmeConfiguration.LockConfiguration lockConfiguration = acmeConfiguration.getLock();
+        // polled at a fixed interval: checking the lease only reads the lock, it puts no load on the ACME server to back off from
+        AdaptivePoller poller = new AdaptivePoller(lockConfiguration.getPollInterval(), lockConfiguration.getPollInterval(), lockConfiguration.getWaitTimeout());
+        return poll(poller, () -> {
+            Optional<CertificateOrderLock.Lease> lease;
+            try {
+                lease = orderLock.tryAcquire(certificate.id, lockConfiguration.getLeaseDuration());
+            } catch (IOException e) {
+                throw new AcmeException("ACME certificate order failed. Failed to acquire the order lease of certificate [" + certificate.name + "]", e);
+            }
+            if (lease.isPresent()) {
+                return lease.get();
+            }
+            if (poller.isExpired()) {
+                throw new AcmeException("ACME certificate order failed. Timed out waiting for another node to order certificate [" + certificate.name + "]");
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Waiting for another node to order certificate [{}]", certificate.name);
+            }
+            return null;
+        });
+    }
+
+    private CertificateEvent pickUpCertificate(ManagedCertificate certificate, X509Certificate previousCertificate) {
+        Optional<X509Certificate[]> chain = loadChain(certificate);
+        if (chain.isEmpty() || chain.get()[0].equals(previousCertificate)) {
+            return null;
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info("ACME certificate [{}] has been ordered by another node, using it", certificate.name);
+        }
+        return publishCertificate(certificate, getDomainKeyPair(certificate), chain.get());
+    }
+
+    private CompletableFuture<CertificateEvent> doOrderCertificateAsync(ManagedCertificate certificate, List<String> domains) {
+        if (sessions == null) {
+            return CompletableFuture.failedFuture(new AcmeException("ACME certificate order failed. No ACME server is configured"));
+        }
+        // the order, its authorizations and challenges are bound to the session, which is returned once the order completed
+        AcmeSessionCache.Lease session = sessions.acquire();
+        return CompletableFuture.supplyAsync(() -> call(() -> createOrder(session.getSession(), certificate, domains)), acmeExecutor)
+                .thenCompose(order -> {
+                    Status status = order.getStatus();
+                    if (status == Status.PROCESSING || status == Status.VALID) {
+                        return CompletableFuture.supplyAsync(() -> call(() -> new FinalizedOrder(order, requireDomainKeyPair(certificate))), acmeExecutor);
+                    }
+                    return authorizeAsync(certificate, order)
+                            .thenRun(() -> checkpointOrder(certificate, order, domains, STAGE_AUTHORIZED))
+                            .thenCompose(v -> pollOrderStatus(order, Status.READY))
+                            .thenApplyAsync(ready -> call(() -> finalizeOrder(certificate, domains, ready)), acmeExecutor);
+                })
+                .thenCompose(finalized -> pollOrderStatus(finalized.order, Status.VALID).thenApply(order -> finalized))
+                .thenApplyAsync(finalized -> call(() -> downloadCertificate(certificate, finalized.order, finalized.domainKeyPair)), acmeExecutor)
+                .whenComplete((certificateEvent, throwable) -> session.close());
+    }
+
+    private ManagedCertificate getCertificate(String name) {
+        ManagedCertificate certificate = certificates.get(name);
+        if (certificate == null) {
+            throw new IllegalArgumentException("No certificate configured with name [" + name + "]");
+        }
+        return certificate;
+    }
 
-        Session session = new Session(acmeServerUrl);
-        if (timeout != null) {
-            session.networkSettings().setTimeout(timeout);
+    private static Map<String, ManagedCertificate> createCertificates(AcmeConfiguration acmeConfiguration,
+                                                                      List<CertificateConfiguration> certificateConfigurations) {
+        File certLocation = acmeConfiguration.getCertLocation();
+        Map<String, ManagedCertificate> certificates = new LinkedHashMap<>();
+        certificates.put(CertificateConfiguration.DEFAULT_NAME,
+                new ManagedCertificate(CertificateConfiguration.DEFAULT_NAME, acmeConfiguration.getDomains(), certLocation, acmeConfiguration.getDomainKey(), acmeConfiguration.getEcDomainKey()));
+        for (CertificateConfiguration configuration : certificateConfigurations) {
+            String name = configuration.getName();
+            String domainKey = configuration.getDomainKey() != null ? configuration.getDomainKey() : acmeConfiguration.getDomainKey();
+            String ecDomainKey = configuration.getEcDomainKey() != null ? configuration.getEcDomainKey() : acmeConfiguration.getEcDomainKey();
+            certificates.put(name, new ManagedCertificate(name, configuration.getDomains(), new File(certLocation, name), domainKey, ecDomainKey));
         }
+        return Collections.unmodifiableMap(certificates);
+    }
 
+    /**
+     * Creates an order, or resumes the one checkpointed by a previous attempt, with the account stored in the
+     * {@link CertificateStore}, which saves looking the account up on the ACME server. The account is only looked up
+     * when none is stored for the account key, or when the ACME server rejects the stored one.
+     */
+    private Order createOrder(Session session, ManagedCertificate certificate, List<String> domains) throws AcmeException {
         KeyPair accountKeyPair;
         try {
             accountKeyPair = getKeyPairFromConfigValue(this.accountKeyString);
         } catch (IOException e) {
-            if (LOG.isErrorEnabled()) {
-                LOG.error("ACME certificate order failed. Failed to read the account keys", e);
+            throw new AcmeException("ACME certificate order failed. Failed to read the account keys", e);
+        }
+        String accountKeyId = accountKeyId(accountKeyPair);
+        URL accountUrl = loadAccountUrl(accountKeyId);
+        if (accountUrl != null) {
+            try {
+                return resumeOrCreateOrder(certificate, domains, session.login(accountUrl, accountKeyPair));
+            } catch (AcmeServerException e) {
+                if (!isAccountRejected(e)) {
+                    throw e;
+                }
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("ACME server rejected the stored account [{}], looking it up again: {}", accountUrl, e.getMessage());
+                }
             }
-            return;
         }
+        Login login = doLogin(session, accountKeyPair);
+        storeAccountUrl(login.getAccountLocation(), accountKeyId);
+        return resumeOrCreateOrder(certificate, domains, login);
+    }
 
+    /**
+     * Logs in with the account stored in the {@link CertificateStore}. The account is only looked up on the ACME server
+     * when none is stored for the account key, the renewal information requests not being signed with it.
+     */
+    private Login login(Session session) throws AcmeException {
+        KeyPair accountKeyPair;
+        try {
+            accountKeyPair = getKeyPairFromConfigValue(this.accountKeyString);
+        } catch (IOException e) {
+            throw new AcmeException("Failed to read the account keys", e);
+        }
+        String accountKeyId = accountKeyId(accountKeyPair);
+        URL accountUrl = loadAccountUrl(accountKeyId);
+        if (accountUrl != null) {
+            return session.login(accountUrl, accountKeyPair);
+        }
         Login login = doLogin(session, accountKeyPair);
-        Order order = createOrder(domains, login);
-        for (Authorization auth : order.getAuthorizations()) {
+        storeAccountUrl(login.getAccountLocation(), accountKeyId);
+        return login;
+    }
+
+    /**
+     * Binds to the order checkpointed by a previous attempt for the same domains, so that its valid authorizations are
+     * kept and the order continues from its current status. A new order is only created when there is none, or when
+     * it has become invalid or cannot be found anymore.
+     */
+    private Order resumeOrCreateOrder(ManagedCertificate certificate, List<String> domains, Login login) throws AcmeException {
+        Map<String, String> metadata = loadMetadata(certificate);
+        String pendingOrderUrl = metadata.get(METADATA_PENDING_ORDER_URL);
+        if (pendingOrderUrl != null && String.join(",", domains).equals(metadata.get(METADATA_PENDING_DOMAINS))) {
             try {
-                authorize(auth);
-            } catch (AcmeException | IOException e) {
-                if (LOG.isErrorEnabled()) {
-                    LOG.error("ACME certificate order failed. Failed to authorize the domain [{}]", auth.getIdentifier(), e);
+                Order order = login.bindOrder(URI.create(pendingOrderUrl).toURL());
+                try {
+                    order.update();
+                } catch (AcmeRetryAfterException e) {
+                    // the status has been updated, the polls honour the retry after
+                }
+                Status status = order.getStatus();
+                if (status == Status.PENDING || status == Status.READY || status == Status.PROCESSING || status == Status.VALID) {
+                    if (LOG.isInfoEnabled()) {
+                        LOG.info("Resuming the ACME order [{}] of certificate [{}] with status {}, last checkpoint {}",
+                                pendingOrderUrl, certificate.name, status, metadata.get(METADATA_PENDING_STAGE));
+                    }
+                    return order;
+                }
+                if (LOG.isInfoEnabled()) {
+                    LOG.info("The pending ACME order [{}] of certificate [{}] is {}, creating a new order", pendingOrderUrl, certificate.name, status);
+                }
+            } catch (AcmeServerException | IOException | IllegalArgumentException e) {
+                if (e instanceof AcmeServerException && isAccountRejected((AcmeServerException) e)) {
+                    // a new order would be rejected as well, the account is looked up again first
+                    throw (AcmeServerException) e;
+                }
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("Failed to resume the pending ACME order [{}] of certificate [{}], creating a new order: {}", pendingOrderUrl, certificate.name, e.getMessage());
                 }
-                return;
             }
         }
-        KeyPair domainKeyPair = getDomainKeyPair();
-        if (domainKeyPair == null) {
-            return;
-        }
+        Order order = createOrder(domains, login);
+        checkpointOrder(certificate, order, domains, STAGE_CREATED);
+        return order;
+    }
 
-        attemptCertificateOrder(domains, orderRetryAttempts, order, domainKeyPair);
+    /**
+     * @return whether the ACME server rejected the account itself, rather than the request
+     */
+    private static boolean isAccountRejected(AcmeServerException e) {
+        return e instanceof AcmeUnauthorizedException || ACCOUNT_DOES_NOT_EXIST.equals(e.getType());
     }
 
-    private KeyPair getKeyPairFromConfigValue(String keyString) throws IOException {
-        String pem = keyString;
-        if (keyString.startsWith("file:") || keyString.startsWith("classpath:")) {
-            Optional<URL> resource = resourceResolver.getResource(keyString);
-            if (resource.isPresent()) {
-                pem = IOUtils.readText(new BufferedReader(new InputStreamReader(resource.get().openStream())));
+    private URL loadAccountUrl(String accountKeyId) {
+        try {
+            Map<String, String> account = certificateStore.loadAccountMetadata();
+            String url = account.get(ACCOUNT_URL);
+            if (url != null && accountKeyId.equals(account.get(ACCOUNT_KEY_ID))) {
+                return URI.create(url).toURL();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to load the stored ACME account, looking it up again", e);
             }
         }
-        return KeyPairUtils.readKeyPair(new StringReader(pem));
+        return null;
+    }
+
+    private void storeAccountUrl(URL accountUrl, String accountKeyId) {
+        Map<String, String> account = new LinkedHashMap<>();
+        account.put(ACCOUNT_URL, accountUrl.toString());
+        account.put(ACCOUNT_KEY_ID, accountKeyId);
+        try {
+            certificateStore.storeAccountMetadata(account);
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to store the ACME account [{}]", accountUrl, e);
+            }
+        }
+    }
+
+    /**
+     * @return the base64url encoded SHA-256 digest of the account public key, telling whether the account key changed
+     */
+    private static String accountKeyId(KeyPair accountKeyPair) throws AcmeException {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(accountKeyPair.getPublic().getEncoded());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AcmeException("Failed to digest the account key", e);
+        }
+    }
+
+    private KeyPair getKeyPairFromConfigValue(String keyString) throws IOException {
+        return keyPairCache.get(keyString);
     }
 
     private Order createOrder(List<String> domains, Login login) throws AcmeException {
@@ -238,159 +613,188 @@ public class AcmeService {
         return login;
     }
 
-    @SuppressWarnings("java:S3776")
-    private void attemptCertificateOrder(List<String> domains, AtomicInteger orderRetryAttempts, Order order, KeyPair domainKeyPair) {
-        AtomicLong retryAfter = new AtomicLong();
-        SelfCancellable orderStatusPoll = new SelfCancellable() {
-            @Override
-            public void run() {
-                int retryAttempt = orderRetryAttempts.getAndDecrement();
-                if (retryAttempt > 0) {
-                    if (retryAfter.get() < Instant.now().toEpochMilli()) {
-                        try {
-                            order.update();
-                            Status status = order.getStatus();
-                            if (status == Status.INVALID) {
-                                throw new AcmeRuntimeException("ACME certificate order failed. The certificate order was invalid: " + order.getError());
-                            } else if (status == Status.READY) {
-                                CSRBuilder csrb = new CSRBuilder();
-                                csrb.addDomains(domains);
-                                if (csrbSign(csrb)) {
-                                    return;
-                                }
-
-                                // Write the CSR to a file, for later use.
-                                if (csrbWrite(csrb)) {
-                                    return;
-                                }
-
-                                // Order the certificate
-                                if (orderCertificate(csrb)) {
-                                    return;
-                                }
-
-                                // Get the certificate
-                                Certificate certificate = order.getCertificate();
-
-                                if (certificate != null) {
-                                    // Write a combined file containing the certificate and chain.
-                                    if (writeCombinedFile(certificate)) { //NOSONAR
-                                        return;
-                                    }
-                                } else {
-                                    if (LOG.isErrorEnabled()) {
-                                        LOG.error("ACME certificate order failed. The certificate was not found in the order");
-                                    }
-                                }
-
-                                cancel();
-                            } else {
-                                if (LOG.isDebugEnabled()) {
-                                    LOG.debug("Waiting on valid order status. Attempt : {}", retryAttempt);
-                                }
-                            }
-                        } catch (AcmeRetryAfterException e) {
-                            retryAfter.set(e.getRetryAfter().toEpochMilli());
-                        } catch (AcmeException e) {
-                            throw new AcmeRuntimeException("ACME certificate order failed. Failed to update the certificate order. Reason : " + e.getMessage());
-                        }
-                    }
-                } else {
-                    throw new AcmeRuntimeException("ACME certificate order failed. Status still not valid after [" + acmeConfiguration.getOrder().getRefreshAttempts() + "] attempts");
-                }
+    /**
+     * Polls the order until it reaches the expected status, honouring any retry after sent by the ACME server.
+     *
+     * @param order          the order to poll
+     * @param expectedStatus the status to wait for
+     * @return a stage completed with the order once it reached the expected status
+     */
+    private CompletableFuture<Order> pollOrderStatus(Order order, Status expectedStatus) {
+        AdaptivePoller poller = newPoller(acmeConfiguration.getOrder());
+        return poll(poller, () -> {
+            if (order.getStatus() == expectedStatus) {
+                return order;
+            }
+            try {
+                order.update();
+            } catch (AcmeRetryAfterException e) {
+                // the status has been updated along with the retry after
+                poller.retryAfter(e.getRetryAfter());
+            } catch (AcmeException e) {
+                throw new AcmeException("ACME certificate order failed. Failed to update the certificate order. Reason : " + e.getMessage(), e);
             }
+            Status status = order.getStatus();
+            if (status == Status.INVALID) {
+                throw new AcmeException("ACME certificate order failed. The certificate order was invalid: " + order.getError());
+            } else if (status == expectedStatus) {
+                return order;
+            }
+            if (poller.isExpired()) {
+                throw new AcmeException("ACME certificate order failed. Status still not " + expectedStatus + " after " + poller.getTimeout());
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Waiting on {} order status, currently {}", expectedStatus, status);
+            }
+            return null;
+        });
+    }
 
-            private boolean writeCombinedFile(Certificate certificate) {
-                boolean result = false;
-                try {
-                    File domainCsr = new File(certLocation, DOMAIN_CRT);
-                    try (BufferedWriter writer = Files.newBufferedWriter(domainCsr.toPath(), WRITE, CREATE, TRUNCATE_EXISTING)) {
-                        certificate.writeCertificate(writer);
-                    }
-                    Optional<X509Certificate[]> chainOptional = getFullCertificateChain();
-                    if (chainOptional.isPresent()) {
-                        eventPublisher.publishEvent(new CertificateEvent(domainKeyPair, false, chainOptional.get()));
-                        if (LOG.isInfoEnabled()) {
-                            LOG.info("ACME certificate order success! Certificate URL: {}", certificate.getLocation());
-                        }
-                    } else {
-                        if (LOG.isErrorEnabled()) {
-                            LOG.error("ACME certificate chain could not be loaded from file.");
-                        }
-                        result = true;
-                    }
-                } catch (IOException e) {
-                    if (LOG.isErrorEnabled()) {
-                        LOG.error("ACME certificate order failed. Failed to write the certificate chain to the configured location", e);
-                    }
-                    result = true;
-                }
-                return result;
+    private static AdaptivePoller newPoller(AcmeConfiguration.AbstractConfiguration configuration) {
+        return new AdaptivePoller(configuration.getInitialPause(), configuration.getPause(), configuration.getTimeout());
+    }
+
+    private FinalizedOrder finalizeOrder(ManagedCertificate certificate, List<String> domains, Order order) throws AcmeException {
+        KeyPair domainKeyPair = requireDomainKeyPair(certificate);
+        byte[] csr = loadCheckpointedCsr(certificate, order, domainKeyPair);
+        if (csr == null) {
+            // Generate a CSR for all of the domains, and sign it with the domain key pair.
+            CSRBuilder csrb = new CSRBuilder();
+            csrb.addDomains(domains);
+            try {
+                csrb.sign(domainKeyPair);
+            } catch (IOException e) {
+                throw new AcmeException("ACME certificate order failed. Failed to sign the domain keys with the CSR", e);
             }
 
-            private boolean orderCertificate(CSRBuilder csrb) {
-                try {
-                    order.execute(csrb.getEncoded());
-                } catch (AcmeException | IOException e) {
-                    if (LOG.isErrorEnabled()) {
-                        LOG.error("ACME certificate order failed. Failed to execute the certificate order", e);
-                    }
-                    return true;
-                }
-                return false;
+            // Store the CSR, for later use.
+            try {
+                csr = csrb.getEncoded();
+                certificateStore.storeCsr(certificate.id, csr);
+            } catch (IOException e) {
+                throw new AcmeException("ACME certificate order failed. Failed to store the CSR", e);
             }
+            checkpointOrder(certificate, order, domains, STAGE_FINALIZING);
+        }
 
-            private boolean csrbWrite(CSRBuilder csrb) {
-                try {
-                    File domainCsr = new File(certLocation, DOMAIN_CSR);
-                    OutputStream outputStream = Files.newOutputStream(domainCsr.toPath(), WRITE, CREATE, TRUNCATE_EXISTING);
-                    csrb.write(outputStream);
-                } catch (IOException e) {
-                    if (LOG.isErrorEnabled()) {
-                        LOG.error("ACME certificate order failed. Failed to write the CSR to the configured location", e);
-                    }
-                    return true;
-                }
-                return false;
+        // Order the certificate
+        try {
+            order.execute(csr);
+        } catch (AcmeException | IOException e) {
+            throw new AcmeException("ACME certificate order failed. Failed to execute the certificate order", e);
+        }
+        return new FinalizedOrder(order, domainKeyPair);
+    }
+
+    private CertificateEvent downloadCertificate(ManagedCertificate managedCertificate, Order order, KeyPair domainKeyPair) throws AcmeException {
+        Certificate certificate = order.getCertificate();
+        if (certificate == null) {
+            throw new AcmeException("ACME certificate order failed. The certificate was not found in the order");
+        }
+
+        // Store the certificate along with its chain.
+        X509Certificate[] chain = certificate.getCertificateChain().toArray(new X509Certificate[0]);
+        try {
+            certificateStore.storeChain(managedCertificate.id, chain);
+        } catch (IOException e) {
+            throw new AcmeException("ACME certificate order failed. Failed to store the certificate chain", e);
+        }
+        storeMetadata(managedCertificate, order, certificate);
+
+        CertificateEvent certificateEvent = publishCertificate(managedCertificate, domainKeyPair, chain);
+        if (LOG.isInfoEnabled()) {
+            LOG.info("ACME certificate order success for certificate [{}]! Certificate URL: {}", managedCertificate.name, certificate.getLocation());
+        }
+        return certificateEvent;
+    }
+
+    private KeyPair requireDomainKeyPair(ManagedCertificate certificate) throws AcmeException {
+        KeyPair domainKeyPair = getDomainKeyPair(certificate);
+        if (domainKeyPair == null) {
+            throw new AcmeException("ACME certificate order failed. Failed to read the domain keys");
+        }
+        return domainKeyPair;
+    }
+
+    /**
+     * Reads back the CSR stored before the pending order was finalized, provided it was signed by the current domain
+     * key, so that a resumed order is finalized with the same CSR.
+     */
+    private byte[] loadCheckpointedCsr(ManagedCertificate certificate, Order order, KeyPair domainKeyPair) {
+        Map<String, String> metadata = loadMetadata(certificate);
+        if (!STAGE_FINALIZING.equals(metadata.get(METADATA_PENDING_STAGE))
+                || !order.getLocation().toString().equals(metadata.get(METADATA_PENDING_ORDER_URL))) {
+            return null;
+        }
+        try {
+            Optional<byte[]> csr = certificateStore.loadCsr(certificate.id);
+            if (csr.isPresent() && new PKCS10CertificationRequest(csr.get()).getSubjectPublicKeyInfo()
+                    .equals(SubjectPublicKeyInfo.getInstance(domainKeyPair.getPublic().getEncoded()))) {
+                return csr.get();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to read back the CSR of certificate [{}], signing a new one: {}", certificate.name, e.getMessage());
             }
+        }
+        return null;
+    }
 
-            private boolean csrbSign(CSRBuilder csrb) {
-                try {
-                    csrb.sign(domainKeyPair);
-                } catch (IOException e) {
-                    if (LOG.isErrorEnabled()) {
-                        LOG.error("ACME certificate order failed. Failed to sign the domain keys with the CSR", e);
-                    }
-                    return true;
-                }
-                return false;
+    /**
+     * Records the pending order and the last stage it completed, so that another attempt resumes it.
+     */
+    private void checkpointOrder(ManagedCertificate certificate, Order order, List<String> domains, String stage) {
+        Map<String, String> metadata = new LinkedHashMap<>(loadMetadata(certificate));
+        metadata.put(METADATA_PENDING_ORDER_URL, order.getLocation().toString());
+        metadata.put(METADATA_PENDING_DOMAINS, String.join(",", domains));
+        metadata.put(METADATA_PENDING_STAGE, stage);
+        storeMetadata(certificate, metadata);
+    }
+
+    private Map<String, String> loadMetadata(ManagedCertificate certificate) {
+        try {
+            return certificateStore.loadMetadata(certificate.id);
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to load the metadata of certificate [{}]", certificate.name, e);
             }
-        };
+            return Collections.emptyMap();
+        }
+    }
 
-        ScheduledFuture<?> scheduledFuture = taskScheduler.scheduleWithFixedDelay(Duration.ZERO, orderPause, orderStatusPoll);
-        orderStatusPoll.setFuture(scheduledFuture);
+    private void storeMetadata(ManagedCertificate managedCertificate, Order order, Certificate certificate) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put(METADATA_CERTIFICATE_URL, certificate.getLocation().toString());
+        metadata.put(METADATA_ORDER_URL, order.getLocation().toString());
+        metadata.put(METADATA_STORED_AT, Instant.now().toString());
+        storeMetadata(managedCertificate, metadata);
+    }
 
+    private void storeMetadata(ManagedCertificate managedCertificate, Map<String, String> metadata) {
         try {
-            scheduledFuture.get();
-        } catch (InterruptedException e) {
-            if (LOG.isErrorEnabled()) {
-                LOG.error("ACME certificate order poll interrupted", e);
+            certificateStore.storeMetadata(managedCertificate.id, metadata);
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to store the metadata of certificate [{}]", managedCertificate.name, e);
             }
-            Thread.currentThread().interrupt();
-        } catch (ExecutionException e) {
-            if (LOG.isErrorEnabled()) {
-                LOG.error("ACME certificate order poll threw an error", e);
+        }
+    }
+
+    private Optional<X509Certificate[]> loadChain(ManagedCertificate certificate) {
+        try {
+            return certificateStore.loadChain(certificate.id);
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to load the certificate chain of certificate [{}]", certificate.name, e);
             }
-        } catch (CancellationException e) {
-            //cancel is used in happy path so, ignoring this
+            return Optional.empty();
         }
     }
 
-    private KeyPair getDomainKeyPair() {
-        // Generate a CSR for all of the domains, and sign it with the domain key pair.
+    private KeyPair getDomainKeyPair(ManagedCertificate certificate) {
         KeyPair domainKeyPair = null;
         try {
-            domainKeyPair = getKeyPairFromConfigValue(domainKeyString);
+            domainKeyPair = getKeyPairFromConfigValue(certificate.domainKey);
         } catch (IOException e) {
             if (LOG.isErrorEnabled()) {
                 LOG.error("ACME certificate order failed. Failed to read the domain keys", e);
@@ -400,132 +804,262 @@ public class AcmeService {
     }
 
     /**
-     * Authorize a domain. It will be associated with your account, so you will be able to
-     * retrieve a signed certificate for the domain later.
+     * Authorize the domains of an order. They will be associated with your account, so you will be able to
+     * retrieve a signed certificate for the domains later.
      *
-     * @param auth {@link Authorization} to perform
+     * @param certificate the certificate the order is for
+     * @param order {@link Order} whose authorizations to perform
+     * @return a stage completed once every authorization is valid
      */
-    private void authorize(Authorization auth) throws AcmeException, IOException {
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Authorization {} for domain {}", auth, auth.getIdentifier().getDomain());
-        }
+    private CompletableFuture<Void> authorizeAsync(ManagedCertificate certificate, Order order) {
+        return CompletableFuture.supplyAsync(() -> findPendingChallenges(order.getAuthorizations()), acmeExecutor)
+                .thenCompose(pendingChallenges -> {
+                    int batchSize = isParallelAuthorization() ? acmeConfiguration.getAuth().getMaxConcurrency() : 1;
+                    CompletableFuture<Void> authorizations = CompletableFuture.completedFuture(null);
+                    for (List<PendingChallenge> batch : toBatches(pendingChallenges, batchSize)) {
+                        authorizations = authorizations.thenCompose(v -> authorizeBatch(certificate, batch));
+                    }
+                    return authorizations;
+                });
+    }
 
-        // The authorization is already valid. No need to process a challenge.
-        if (auth.getStatus() == Status.VALID) {
-            return;
+    private List<PendingChallenge> findPendingChallenges(List<Authorization> authorizations) {
+        List<PendingChallenge> pendingChallenges = new ArrayList<>();
+        for (Authorization auth : authorizations) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Authorization {} for domain {}", auth, auth.getIdentifier().getDomain());
+            }
+
+            // The authorization is already valid. No need to process a challenge.
+            if (auth.getStatus() != Status.VALID) {
+                findChallengeRequiringAuth(auth).ifPresent(challenge -> pendingChallenges.add(new PendingChallenge(auth, challenge)));
+            }
         }
+        return pendingChallenges;
+    }
 
+    private Optional<Challenge> findChallengeRequiringAuth(Authorization auth) {
         ChallengeType challengeType = acmeConfiguration.getChallengeType();
         if (LOG.isDebugEnabled()) {
             LOG.debug("Challenge type selected : {}", challengeType);
         }
 
-        Optional<Challenge> matchingChallengeRequiringAuth = auth.getChallenges().stream()
+        return auth.getChallenges().stream()
                 .filter(c -> c.getStatus() != Status.VALID)
                 .filter(c -> challengeType.getAcmeChallengeName().equals(c.getType()))
                 .findFirst();
+    }
 
-        if (!matchingChallengeRequiringAuth.isPresent()) {
-            return;
-        }
+    /**
+     * Parallel authorization applies to every challenge type, each pending challenge being answered for its own
+     * domain: a DNS record, an http-01 token or a tls-alpn-01 validation certificate picked per handshake.
+     *
+     * @return true if the authorizations of an order should be validated in parallel
+     */
+    private boolean isParallelAuthorization() {
+        return acmeConfiguration.getAuth().isParallel();
+    }
 
-        Challenge challenge = matchingChallengeRequiringAuth.get();
+    /**
+     * Splits the pending challenges into batches. A batch never contains the same domain twice, as a wildcard and its
+     * base domain share the same challenge record.
+     */
+    private List<List<PendingChallenge>> toBatches(List<PendingChallenge> pendingChallenges, int maxConcurrency) {
+        int batchSize = Math.max(1, maxConcurrency);
+        List<List<PendingChallenge>> batches = new ArrayList<>();
+        List<Set<String>> batchDomains = new ArrayList<>();
+        for (PendingChallenge pendingChallenge : pendingChallenges) {
+            int i = 0;
+            while (i < batches.size() && (batches.get(i).size() >= batchSize || batchDomains.get(i).contains(pendingChallenge.getDomain()))) {
+                i++;
+            }
+            if (i == batches.size()) {
+                batches.add(new ArrayList<>(batchSize));
+                batchDomains.add(new HashSet<>());
+            }
+            batches.get(i).add(pendingChallenge);
+            batchDomains.get(i).add(pendingChallenge.getDomain());
+        }
+        return batches;
+    }
 
-        doChallengeSpecificSetup(auth, challenge);
+    /**
+     * Sets up and triggers every challenge of the batch before polling them together. The DNS records of the batch
+     * are staged with a single call to the solver, and no challenge is triggered before it accepted all of them and,
+     * if {@code acme.dns-propagation.enabled} is set, before all of them are visible. The
+     * challenge state of the whole batch is cleaned up once the poll completes, whether it succeeded or not.
+     */
+    private CompletableFuture<Void> authorizeBatch(ManagedCertificate certificate, List<PendingChallenge> batch) {
+        List<PendingChallenge> prepared = new CopyOnWriteArrayList<>();
+        Map<String, String> dnsRecords = new LinkedHashMap<>();
+        return CompletableFuture.runAsync(() -> call(() -> {
+                    for (PendingChallenge pendingChallenge : batch) {
+                        prepared.add(pendingChallenge);
+                        doChallengeSpecificSetup(certificate, pendingChallenge.getAuthorization(), pendingChallenge.getChallenge(), dnsRecords);
+                    }
+                    return null;
+                }), acmeExecutor)
+                .thenCompose(v -> createDnsRecords(dnsRecords))
+                .thenCompose(v -> awaitDnsPropagation(dnsRecords))
+                .thenRunAsync(() -> call(() -> {
+                    for (PendingChallenge pendingChallenge : batch) {
+                        pendingChallenge.getChallenge().trigger();
+                    }
+                    return null;
+                }), acmeExecutor)
+                .thenCompose(v -> pollChallenges(batch))
+                .handle((v, throwable) -> throwable)
+                .thenComposeAsync(throwable -> cleanupBatch(prepared, dnsRecords.keySet()).thenApply(v -> {
+                    if (throwable != null) {
+                        throw throwable instanceof CompletionException ? (CompletionException) throwable : new CompletionException(throwable);
+                    }
+                    return null;
+                }), acmeExecutor);
+    }
 
-        doChallengeAuthorization(auth, challenge);
+    private CompletableFuture<Void> createDnsRecords(Map<String, String> dnsRecords) {
+        if (dnsRecords.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("DNS challenge selected, attempting the creation of the records for domains {}", dnsRecords.keySet());
+        }
+        return dnsChallengeSolver.createRecords(Collections.unmodifiableMap(dnsRecords));
     }
 
-    @SuppressWarnings("java:S3776")
-    private void doChallengeAuthorization(Authorization auth, Challenge challenge) throws AcmeException {
-        AtomicInteger authRetryAttempts = new AtomicInteger(acmeConfiguration.getAuth().getRefreshAttempts());
-        challenge.trigger();
-        SelfCancellable authStatusPoll = new SelfCancellable() {
-            @Override
-            public void run() {
-                int retryAttempt = authRetryAttempts.getAndDecrement();
+    /**
+     * Checks the DNS records until all of them are visible, backing off between the checks. Failing once the timeout
+     * has passed keeps a record that has not propagated from invalidating its challenge.
+     */
+    private CompletableFuture<Void> awaitDnsPropagation(Map<String, String> dnsRecords) {
+        if (dnsPropagationCheck == null || dnsRecords.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        AcmeConfiguration.DnsPropagationConfiguration propagation = acmeConfiguration.getDnsPropagation();
+        AdaptivePoller poller = new AdaptivePoller(propagation.getInitialPause(), propagation.getMaxPause(), propagation.getTimeout());
+        Map<String, String> pending = new LinkedHashMap<>(dnsRecords);
+        return poll(poller, () -> {
+            pending.entrySet().removeIf(record -> dnsPropagationCheck.isVisible(record.getKey(), record.getValue()));
+            if (pending.isEmpty()) {
                 if (LOG.isDebugEnabled()) {
-                    LOG.debug("Challenge auth check retry number : {}", retryAttempt);
+                    LOG.debug("The DNS records for domains {} are visible", dnsRecords.keySet());
                 }
-                if (retryAttempt > 0) {
-                    Status status = challenge.getStatus();
-                    if (status == Status.VALID) {
-                        cancel();
-                    } else if (status == Status.INVALID) {
-                        throw new AcmeRuntimeException("ACME certificate order failed. Challenge of type " + challenge.getType() + " failed. With error : " + challenge.getError() + ", for domain" + auth.getIdentifier() + " ... Giving up.");
-                    } else {
-                        try {
-                            challenge.update();
-                        } catch (AcmeException e) {
-                            if (LOG.isWarnEnabled()) {
-                                LOG.warn("ACME certificate order failed. Challenge of type {} failed.", challenge.getType(), e);
-                            }
-                        }
+                return Boolean.TRUE;
+            }
+            if (poller.isExpired()) {
+                throw new AcmeException("ACME certificate order failed. The DNS records for domains " + pending.keySet() + " are still not visible after " + poller.getTimeout());
+            }
+            return null;
+        }).thenApply(done -> null);
+    }
+
+    /**
+     * Cleans up the challenge state of a batch, the DNS records being destroyed with a single call to the solver. A
+     * failure is only logged, the returned future always completes normally.
+     */
+    private CompletableFuture<Void> cleanupBatch(List<PendingChallenge> prepared, Set<String> dnsDomains) {
+        for (PendingChallenge pendingChallenge : prepared) {
+            try {
+                doChallengeSpecificCleanup(pendingChallenge.getAuthorization(), pendingChallenge.getChallenge());
+            } catch (RuntimeException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("Failed to cleanup the challenge for domain [{}]", pendingChallenge.getDomain(), e);
+                }
+            }
+        }
+        if (dnsDomains.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("DNS challenges completed, attempting the destruction of the records for domains {}", dnsDomains);
+        }
+        CompletableFuture<Void> destroyed;
+        try {
+            destroyed = dnsChallengeSolver.destroyRecords(Collections.unmodifiableSet(dnsDomains));
+        } catch (RuntimeException e) {
+            destroyed = CompletableFuture.failedFuture(e);
+        }
+        return destroyed.handle((v, throwable) -> {
+            if (throwable != null && LOG.isWarnEnabled()) {
+                LOG.warn("Failed to destroy the DNS records for domains {}", dnsDomains, unwrap(throwable));
+            }
+            return null;
+        });
+    }
+
+    @SuppressWarnings("java:S3776")
+    private CompletableFuture<Void> pollChallenges(List<PendingChallenge> batch) {
+        AdaptivePoller poller = newPoller(acmeConfiguration.getAuth());
+        List<PendingChallenge> remaining = new CopyOnWriteArrayList<>(batch);
+        return poll(poller, () -> {
+            for (PendingChallenge pendingChallenge : remaining) {
+                Challenge challenge = pendingChallenge.getChallenge();
+                Status status = challenge.getStatus();
+                if (status == Status.VALID) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Challenge of type {} has been completed for domain : {}.", challenge.getType(), pendingChallenge.getDomain());
                     }
+                    remaining.remove(pendingChallenge);
+                } else if (status == Status.INVALID) {
+                    throw new AcmeException("ACME certificate order failed. Challenge of type " + challenge.getType() + " failed. With error : " + challenge.getError() + ", for domain " + pendingChallenge.getDomain() + " ... Giving up.");
                 } else {
-                    throw new AcmeRuntimeException("ACME certificate order failed. Challenge of type " + challenge.getType() + " failed. Still not valid after " + acmeConfiguration.getAuth().getRefreshAttempts() + " attempts");
+                    try {
+                        challenge.update();
+                    } catch (AcmeRetryAfterException e) {
+                        poller.retryAfter(e.getRetryAfter());
+                    } catch (AcmeException e) {
+                        if (LOG.isWarnEnabled()) {
+                            LOG.warn("Failed to update the challenge of type {} for domain {}, retrying.", challenge.getType(), pendingChallenge.getDomain(), e);
+                        }
+                    }
                 }
             }
-        };
-
-        ScheduledFuture<?> scheduledFuture = taskScheduler.scheduleWithFixedDelay(Duration.ZERO, authPause, authStatusPoll);
-        authStatusPoll.setFuture(scheduledFuture);
-
-        try {
-            scheduledFuture.get();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Challenge of type {} has been completed for domain : {}.", challenge.getType(), auth.getIdentifier());
+            if (remaining.isEmpty()) {
+                return Boolean.TRUE;
             }
-        } catch (InterruptedException e) {
-            if (LOG.isErrorEnabled()) {
-                LOG.error("ACME certificate auth poll interrupted", e);
+            if (poller.isExpired()) {
+                throw new AcmeException("ACME certificate order failed. Challenges for domains " + getDomains(remaining) + " still not valid after " + poller.getTimeout());
             }
-            Thread.currentThread().interrupt();
-        } catch (ExecutionException e) {
-            if (e.getCause() instanceof AcmeRuntimeException) {
-                throw new AcmeException(e.getCause().getMessage());
-            } else {
-                throw new AcmeException("ACME certificate challenge poll threw an error", e);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Challenge auth check, pending domains : {}", remaining.size());
             }
-        } catch (CancellationException e) {
-            //cancel is used in happy path so, ignoring this
-        } finally {
-            doChallengeSpecificCleanup(auth, challenge);
+            return null;
+        }).thenApply(done -> null);
+    }
+
+    private static List<String> getDomains(List<PendingChallenge> pendingChallenges) {
+        List<String> domains = new ArrayList<>(pendingChallenges.size());
+        for (PendingChallenge pendingChallenge : pendingChallenges) {
+            domains.add(pendingChallenge.getDomain());
         }
+        return Collections.unmodifiableList(domains);
     }
 
-    private void doChallengeSpecificSetup(Authorization auth, Challenge challenge) throws IOException {
+    /**
+     * Sets up a challenge. The DNS records are only staged into {@code dnsRecords}, to be created together with the
+     * other records of the batch.
+     */
+    private void doChallengeSpecificSetup(ManagedCertificate certificate, Authorization auth, Challenge challenge, Map<String, String> dnsRecords) throws IOException {
         if (challenge instanceof TlsAlpn01Challenge) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("TLS challenge selected, creating keys");
             }
-            KeyPair domainKeyPair = getDomainKeyPair();
+            KeyPair domainKeyPair = getDomainKeyPair(certificate);
             X509Certificate tlsAlpn01Certificate = CertificateUtils.createTlsAlpn01Certificate(domainKeyPair, auth.getIdentifier(), ((TlsAlpn01Challenge) challenge).getAcmeValidation());
-            eventPublisher.publishEvent(new CertificateEvent(domainKeyPair, true, tlsAlpn01Certificate));
+            eventPublisher.publishEvent(new CertificateEvent(certificate.name, domainKeyPair, true, tlsAlpn01Certificate));
         } else if (challenge instanceof Http01Challenge) {
             Http01Challenge http01Challenge = (Http01Challenge) challenge;
             eventPublisher.publishEvent(new HttpChallengeDetails(http01Challenge.getToken(), http01Challenge.getAuthorization()));
         } else if (challenge instanceof Dns01Challenge) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("DNS challenge selected, attempting record creation.");
-            }
-            Dns01Challenge dns01Challenge = (Dns01Challenge) challenge;
-            String digest = dns01Challenge.getDigest();
-            String domain = auth.getIdentifier().getDomain();
-
-            dnsChallengeSolver.createRecord(domain, digest);
+            dnsRecords.put(auth.getIdentifier().getDomain(), ((Dns01Challenge) challenge).getDigest());
         }
     }
 
     private void doChallengeSpecificCleanup(Authorization auth, Challenge challenge) {
-        if (challenge instanceof Dns01Challenge) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("DNS challenge completed, attempting record destruction.");
-            }
-
-            String domain = auth.getIdentifier().getDomain();
-
-            dnsChallengeSolver.destroyRecord(domain);
+        if (challenge instanceof Http01Challenge) {
+            eventPublisher.publishEvent(new HttpChallengeCompleted(((Http01Challenge) challenge).getToken()));
+        } else if (challenge instanceof TlsAlpn01Challenge) {
+            eventPublisher.publishEvent(new TlsAlpnChallengeCompleted(auth.getIdentifier().getDomain()));
         }
     }
 
@@ -533,29 +1067,268 @@ public class AcmeService {
      * Setup the certificate that has been saved to disk and configures it for use.
      */
     public void setupCurrentCertificate() {
-        Optional<X509Certificate[]> fullCertificateChainOptional = getFullCertificateChain();
+        setupCurrentCertificate(CertificateConfiguration.DEFAULT_NAME);
+    }
+
+    /**
+     * Setup a named certificate that has been saved to disk and configures it for use.
+     *
+     * @param name name of the certificate
+     */
+    public void setupCurrentCertificate(@NonNull String name) {
+        ManagedCertificate certificate = getCertificate(name);
+        setupCurrentCertificate(certificate);
+        if (certificate.ecdsa != null) {
+            setupCurrentCertificate(certificate.ecdsa);
+        }
+    }
+
+    private void setupCurrentCertificate(ManagedCertificate certificate) {
+        String name = certificate.name;
+        Optional<X509Certificate[]> fullCertificateChainOptional = loadChain(certificate);
         if (fullCertificateChainOptional.isPresent()) {
-            eventPublisher.publishEvent(new CertificateEvent(getDomainKeyPair(), false, fullCertificateChainOptional.get()));
+            publishCertificate(certificate, getDomainKeyPair(certificate), fullCertificateChainOptional.get());
         } else {
             if (LOG.isErrorEnabled()) {
-                LOG.error("ACME certificate chain could not be loaded from file.");
+                LOG.error("ACME certificate chain of certificate [{}] could not be loaded from file.", name);
+            }
+        }
+    }
+
+    /**
+     * Sets up a named certificate and its ECDSA certificate as saved in the {@link CertificateStore}, even if they are
+     * about to expire, without contacting the ACME server. A short-lived self-signed placeholder is set up instead of
+     * a certificate that has not been saved yet, until it is ordered.
+     *
+     * @param name name of the certificate
+     */
+    public void setupCurrentOrPlaceholderCertificate(@NonNull String name) {
+        ManagedCertificate certificate = getCertificate(name);
+        setupCurrentOrPlaceholderCertificate(certificate);
+        if (certificate.ecdsa != null) {
+            setupCurrentOrPlaceholderCertificate(certificate.ecdsa);
+        }
+    }
+
+    private void setupCurrentOrPlaceholderCertificate(ManagedCertificate certificate) {
+        KeyPair domainKeyPair = getDomainKeyPair(certificate);
+        Optional<X509Certificate[]> chain = loadChain(certificate);
+        if (chain.isPresent()) {
+            publishCertificate(certificate, domainKeyPair, chain.get());
+            return;
+        }
+        if (domainKeyPair == null) {
+            return;
+        }
+        try {
+            X509Certificate placeholder = PlaceholderCertificate.create(domainKeyPair, certificate.domains, acmeConfiguration.getStartup().getPlaceholderValidity());
+            if (LOG.isInfoEnabled()) {
+                LOG.info("No certificate [{}] has been saved yet, serving a self-signed placeholder until it is ordered", certificate.name);
+            }
+            certificate.placeholder = true;
+            certificate.published = placeholder;
+            eventPublisher.publishEvent(new CertificateEvent(certificate.name, domainKeyPair, false, placeholder));
+        } catch (GeneralSecurityException e) {
+            if (LOG.isErrorEnabled()) {
+                LOG.error("Failed to create the placeholder of certificate [{}]", certificate.name, e);
             }
         }
     }
 
     /**
-     * Enabled a task that can be cancelled by itself.
+     * Whether a certificate issued by the ACME server, and not yet expired, is set up for a named certificate and its
+     * ECDSA certificate, rather than no certificate or a self-signed placeholder.
+     *
+     * @param name name of the certificate
+     * @return true if issued certificates are set up
      */
-    private abstract class SelfCancellable implements Runnable {
+    public boolean isCertificateIssued(@NonNull String name) {
+        ManagedCertificate certificate = getCertificate(name);
+        return isIssued(certificate) && (certificate.ecdsa == null || isIssued(certificate.ecdsa));
+    }
 
-        private ScheduledFuture<?> future;
+    private static boolean isIssued(ManagedCertificate certificate) {
+        X509Certificate published = certificate.published;
+        return published != null && !certificate.placeholder && published.getNotAfter().toInstant().isAfter(Instant.now());
+    }
 
-        void setFuture(ScheduledFuture<?> future) {
-            this.future = future;
+    /**
+     * Loads a named certificate and its ECDSA certificate from the {@link CertificateStore}
+     * again, and sets them up if they changed since they were last set up. A changed chain is only set up if it is
+     * currently valid, properly ordered and issued for the domain key. The ACME server is never contacted.
+     *
+     * @param name name of the certificate
+     * @return true if a new certificate has been set up
+     */
+    public boolean reloadCertificate(@NonNull String name) {
+        ManagedCertificate certificate = getCertificate(name);
+        boolean reloaded = reloadCertificate(certificate);
+        if (certificate.ecdsa != null) {
+            reloaded |= reloadCertificate(certificate.ecdsa);
+        }
+        return reloaded;
+    }
+
+    private boolean reloadCertificate(ManagedCertificate certificate) {
+        Optional<X509Certificate[]> chain = loadChain(certificate);
+        if (chain.isEmpty() || chain.get()[0].equals(certificate.published)) {
+            return false;
         }
+        KeyPair domainKeyPair = getDomainKeyPair(certificate);
+        try {
+            validateChain(chain.get(), domainKeyPair);
+        } catch (GeneralSecurityException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Ignoring the changed certificate chain of certificate [{}]: {}", certificate.name, e.getMessage());
+            }
+            return false;
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Certificate chain of certificate [{}] changed in the certificate store, setting it up", certificate.name);
+        }
+        publishCertificate(certificate, domainKeyPair, chain.get());
+        return true;
+    }
+
+    private static void validateChain(X509Certificate[] chain, KeyPair domainKeyPair) throws GeneralSecurityException {
+        chain[0].checkValidity();
+        if (domainKeyPair == null || !chain[0].getPublicKey().equals(domainKeyPair.getPublic())) {
+            throw new GeneralSecurityException("the certificate was not issued for the domain key");
+        }
+        for (int i = 1; i < chain.length; i++) {
+            chain[i - 1].verify(chain[i].getPublicKey());
+        }
+    }
+
+    private CertificateEvent publishCertificate(ManagedCertificate certificate, KeyPair domainKeyPair, X509Certificate[] chain) {
+        CertificateEvent certificateEvent = new CertificateEvent(certificate.name, domainKeyPair, false, chain);
+        certificate.placeholder = false;
+        certificate.published = chain[0];
+        eventPublisher.publishEvent(certificateEvent);
+        return certificateEvent;
+    }
+
+    /**
+     * Runs the check on the ACME executor until it returns a non null value, pausing between each attempt as decided
+     * by the poller. No thread waits for the pause or for the poll to complete. The check is expected to fail once the
+     * poller expired.
+     *
+     * @param poller decides the pause before each check but the first one
+     * @param check  the check to run, returning null while the poll should continue
+     * @param <T>    the result type
+     * @return a stage completed with the first non null result, or exceptionally with the failure of the check
+     */
+    private <T> CompletableFuture<T> poll(AdaptivePoller poller, Callable<T> check) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        schedulePoll(Duration.ZERO, poller, check, result);
+        return result;
+    }
+
+    private <T> void schedulePoll(Duration delay, AdaptivePoller poller, Callable<T> check, CompletableFuture<T> result) {
+        Executor delayedExecutor = CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS, acmeExecutor);
+        delayedExecutor.execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                T value = check.call();
+                if (value != null) {
+                    result.complete(value);
+                } else {
+                    schedulePoll(poller.nextDelay(), poller, check, result);
+                }
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    private static <T> T call(Callable<T> callable) {
+        try {
+            return callable.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * A challenge of an authorization that still needs to be validated.
+     */
+    private static final class PendingChallenge {
+        private final Authorization authorization;
+        private final Challenge challenge;
+        private final String domain;
+
+        PendingChallenge(Authorization authorization, Challenge challenge) {
+            this.authorization = authorization;
+            this.challenge = challenge;
+            this.domain = authorization.getIdentifier().getDomain();
+        }
+
+        Authorization getAuthorization() {
+            return authorization;
+        }
+
+        Challenge getChallenge() {
+            return challenge;
+        }
+
+        String getDomain() {
+            return domain;
+        }
+    }
+
+    /**
+     * A certificate managed by this service and the location its state is kept in. The ECDSA certificate ordered
+     * alongside it, if any, keeps its state in a sub directory.
+     */
+    private static final class ManagedCertificate {
+        private final String name;
+        private final String id;
+        private final List<String> domains;
+        private final File location;
+        private final String domainKey;
+        private final ManagedCertificate ecdsa;
+        private volatile X509Certificate published;
+        private volatile boolean placeholder;
+
+        ManagedCertificate(String name, List<String> domains, File location, String domainKey, String ecDomainKey) {
+            this(name, name, domains == null ? Collections.emptyList() : domains, location, domainKey, ecDomainKey);
+        }
+
+        /**
+         * @param id name the certificate is stored and leased under, suffixed for the ECDSA certificate
+         */
+        private ManagedCertificate(String name, String id, List<String> domains, File location, String domainKey, String ecDomainKey) {
+            this.name = name;
+            this.id = id;
+            this.domains = domains;
+            this.location = location;
+            this.domainKey = domainKey;
+            this.ecdsa = ecDomainKey == null ? null : new ManagedCertificate(name, name + CertificateStore.ECDSA_SUFFIX, domains, new File(location, ECDSA_LOCATION), ecDomainKey, null);
+        }
+    }
+
+    /**
+     * An order that has been finalized with a CSR signed by the domain key pair.
+     */
+    private static final class FinalizedOrder {
+        private final Order order;
+        private final KeyPair domainKeyPair;
 
-        void cancel() {
-            future.cancel(false);
+        FinalizedOrder(Order order, KeyPair domainKeyPair) {
+            this.order = order;
+            this.domainKeyPair = domainKeyPair;
         }
     }
 }
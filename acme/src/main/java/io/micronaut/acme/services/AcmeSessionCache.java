@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.services;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import org.shredzone.acme4j.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the acme4j {@link Session sessions} to the ACME server, so that the directory and the keep-alive connections
+ * of their HTTP client are reused by the orders and renewal information requests. An acme4j session keeps the nonce of
+ * its last request and is not safe for concurrent use, so each order or request checks out a session of its own and
+ * returns it once done, for the next one to reuse. A session is dropped once its time to live has passed, the next
+ * one fetching the directory again.
+ */
+final class AcmeSessionCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AcmeSessionCache.class);
+
+    private final String acmeServerUrl;
+    private final Duration timeout;
+    private final Duration ttl;
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final Deque<Lease> idle = new ArrayDeque<>();
+
+    /**
+     * @param acmeServerUrl the ACME server url
+     * @param timeout       timeout of the requests to the ACME server, null for the acme4j default
+     * @param ttl           how long a session is reused for
+     */
+    AcmeSessionCache(@NonNull String acmeServerUrl, @Nullable Duration timeout, @NonNull Duration ttl) {
+        this.acmeServerUrl = acmeServerUrl;
+        this.timeout = timeout;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Checks out a session, which is only used by the caller until the lease is closed.
+     *
+     * @return the lease of the most recently returned session that has not expired, or of a new one
+     */
+    @NonNull
+    synchronized Lease acquire() {
+        Instant now = Instant.now();
+        while (!idle.isEmpty()) {
+            Lease lease = idle.pollFirst();
+            if (now.isBefore(lease.expiresAt)) {
+                reused.incrementAndGet();
+                return lease;
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("ACME session to [{}] expired after {}, dropping it", acmeServerUrl, ttl);
+            }
+        }
+        Session session = new Session(acmeServerUrl);
+        if (timeout != null) {
+            session.networkSettings().setTimeout(timeout);
+        }
+        created.incrementAndGet();
+        return new Lease(session, now.plus(ttl));
+    }
+
+    /**
+     * @return how often sessions were created and reused
+     */
+    @NonNull
+    AcmeSessionStatistics getStatistics() {
+        return new AcmeSessionStatistics(created.get(), reused.get());
+    }
+
+    private synchronized void release(Lease lease) {
+        if (Instant.now().isBefore(lease.expiresAt)) {
+            idle.addFirst(lease);
+        }
+    }
+
+    /**
+     * A session checked out of the cache. Closing the lease returns the session to the cache, so it must not be used
+     * anymore, neither directly nor through the logins and resources bound to it.
+     */
+    final class Lease implements AutoCloseable {
+        private final Session session;
+        private final Instant expiresAt;
+
+        private Lease(Session session, Instant expiresAt) {
+            this.session = session;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return the session
+         */
+        @NonNull
+        Session getSession() {
+            return session;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+}
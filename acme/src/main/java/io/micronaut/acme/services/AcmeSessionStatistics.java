@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.services;
+
+/**
+ * Session cache statistics: how often a session to the ACME server was created and how often a cached one, along
+ * with its directory, was reused. The reuse of the HTTP connections is left to the HTTP client of the session and is
+ * not measured.
+ *
+ * @since 5.3.0
+ */
+public final class AcmeSessionStatistics {
+
+    private final long sessionsCreated;
+    private final long sessionsReused;
+
+    /**
+     * @param sessionsCreated number of sessions created
+     * @param sessionsReused  number of times an existing session was reused
+     */
+    public AcmeSessionStatistics(long sessionsCreated, long sessionsReused) {
+        this.sessionsCreated = sessionsCreated;
+        this.sessionsReused = sessionsReused;
+    }
+
+    /**
+     * Each new session fetches the directory from the ACME server.
+     *
+     * @return number of sessions created
+     */
+    public long getSessionsCreated() {
+        return sessionsCreated;
+    }
+
+    /**
+     * @return number of times a cached session and its directory were reused
+     */
+    public long getSessionsReused() {
+        return sessionsReused;
+    }
+
+    @Override
+    public String toString() {
+        return "AcmeSessionStatistics{sessionsCreated=" + sessionsCreated + ", sessionsReused=" + sessionsReused + '}';
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.services;
+
+import io.micronaut.core.annotation.NonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Decides the delays between the checks of a poll. The first pauses are short and doubled after each check up to a
+ * maximum, unless the ACME server asked to retry after a given time, which is then honoured exactly. No delay goes past
+ * the deadline of the poll, computed from its timeout when the poller is created.
+ *
+ * <p>A poller is used by a single poll, whose checks never run concurrently.</p>
+ */
+final class AdaptivePoller {
+
+    private final Duration maxPause;
+    private final Duration timeout;
+    private final long deadlineNanos;
+    private Duration pause;
+    private Instant retryAfter;
+
+    /**
+     * @param initialPause pause after the first check
+     * @param maxPause     longest pause between two checks, unless the ACME server asked for a longer one
+     * @param timeout      how long the poll may last
+     */
+    AdaptivePoller(@NonNull Duration initialPause, @NonNull Duration maxPause, @NonNull Duration timeout) {
+        this.pause = initialPause.compareTo(maxPause) < 0 ? initialPause : maxPause;
+        this.maxPause = maxPause;
+        this.timeout = timeout;
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * Asks for the next check to run at the given time rather than after the current pause. When several retry after
+     * times are received before the next check, the latest one is honoured.
+     *
+     * @param instant time the ACME server asked to retry after
+     */
+    void retryAfter(@NonNull Instant instant) {
+        if (retryAfter == null || instant.isAfter(retryAfter)) {
+            retryAfter = instant;
+        }
+    }
+
+    /**
+     * @return whether the deadline of the poll has passed
+     */
+    boolean isExpired() {
+        return System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * @return how long the poll may last
+     */
+    @NonNull
+    Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the delay before the next check, never past the deadline of the poll
+     */
+    @NonNull
+    Duration nextDelay() {
+        Duration delay;
+        if (retryAfter != null) {
+            delay = Duration.between(Instant.now(), retryAfter);
+            retryAfter = null;
+        } else {
+            delay = pause;
+            Duration doubled = pause.multipliedBy(2);
+            pause = doubled.compareTo(maxPause) < 0 ? doubled : maxPause;
+        }
+        Duration remaining = Duration.ofNanos(deadlineNanos - System.nanoTime());
+        if (remaining.compareTo(delay) < 0) {
+            delay = remaining;
+        }
+        return delay.isNegative() ? Duration.ZERO : delay;
+    }
+}
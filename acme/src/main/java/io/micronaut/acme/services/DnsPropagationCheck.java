@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.services;
+
+import io.micronaut.core.annotation.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.naming.Context;
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+
+/**
+ * Checks that the TXT record of a dns-01 challenge is visible before the challenge is triggered. The record is looked
+ * up with the JNDI DNS provider on the configured DNS servers, or on the authoritative nameservers of the domain, and
+ * is only visible once every one of them answers it. A record delegated to another zone through a CNAME, as with
+ * acme-dns, is looked up at the end of the CNAME chain.
+ */
+final class DnsPropagationCheck {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DnsPropagationCheck.class);
+    private static final String CHALLENGE_RECORD_PREFIX = "_acme-challenge.";
+    private static final String SYSTEM_RESOLVER = "dns:";
+    private static final String[] TXT = {"TXT"};
+    private static final String[] NS = {"NS"};
+    private static final String[] CNAME = {"CNAME"};
+    private static final int MAX_CNAME_HOPS = 8;
+    private static final String QUERY_TIMEOUT_MILLIS = "1000";
+    private static final String QUERY_RETRIES = "2";
+
+    private final List<String> resolvers;
+
+    /**
+     * @param resolvers DNS servers queried as host or host:port, empty to query the authoritative nameservers
+     */
+    DnsPropagationCheck(@NonNull List<String> resolvers) {
+        List<String> urls = new ArrayList<>(resolvers.size());
+        for (String resolver : resolvers) {
+            urls.add("dns://" + resolver);
+        }
+        this.resolvers = Collections.unmodifiableList(urls);
+    }
+
+    /**
+     * @param domain domain of the challenge, excluding the {@code _acme-challenge} label
+     * @param digest expected value of the TXT record
+     * @return whether every queried DNS server answers the record with the digest
+     */
+    boolean isVisible(@NonNull String domain, @NonNull String digest) {
+        String name = CHALLENGE_RECORD_PREFIX + domain;
+        if (resolvers.isEmpty()) {
+            // the nameservers of the zone the record is delegated to, as with acme-dns, are the ones serving it
+            String target = resolveCname(SYSTEM_RESOLVER, name);
+            for (String server : findAuthoritativeServers(target)) {
+                if (!isVisible(server, target, digest)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (String server : resolvers) {
+            if (!isVisible(server, resolveCname(server, name), digest)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisible(String server, String name, String digest) {
+        if (hasTxtRecord(server, name, digest)) {
+            return true;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("The TXT record {} is not visible yet on {}", name, server);
+        }
+        return false;
+    }
+
+    /**
+     * Follows the CNAME records of the name, so that a record delegated to another zone is looked up where it is served.
+     */
+    private static String resolveCname(String server, String name) {
+        String target = name;
+        for (int i = 0; i < MAX_CNAME_HOPS; i++) {
+            List<String> cnames = lookup(server, target, CNAME);
+            if (cnames.isEmpty()) {
+                break;
+            }
+            target = stripRoot(cnames.get(0));
+        }
+        return target;
+    }
+
+    /**
+     * Walks up the name until a zone with nameservers is found, falling back to the system resolver if none is.
+     */
+    private List<String> findAuthoritativeServers(String name) {
+        String zone = name;
+        while (zone.indexOf('.') > 0) {
+            List<String> servers = new ArrayList<>();
+            for (String value : lookup(SYSTEM_RESOLVER, zone, NS)) {
+                servers.add("dns://" + stripRoot(value));
+            }
+            if (!servers.isEmpty()) {
+                return servers;
+            }
+            zone = zone.substring(zone.indexOf('.') + 1);
+        }
+        return Collections.singletonList(SYSTEM_RESOLVER);
+    }
+
+    private static boolean hasTxtRecord(String server, String name, String digest) {
+        for (String value : lookup(server, name, TXT)) {
+            if (digest.equals(unquote(value))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> lookup(String server, String name, String[] types) {
+        Hashtable<String, String> env = new Hashtable<>();
+        env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.dns.DnsContextFactory");
+        env.put(Context.PROVIDER_URL, server);
+        env.put("com.sun.jndi.dns.timeout.initial", QUERY_TIMEOUT_MILLIS);
+        env.put("com.sun.jndi.dns.timeout.retries", QUERY_RETRIES);
+        DirContext context = null;
+        try {
+            context = new InitialDirContext(env);
+            Attributes attributes = context.getAttributes(name, types);
+            Attribute attribute = attributes.get(types[0]);
+            List<String> values = new ArrayList<>();
+            if (attribute != null) {
+                NamingEnumeration<?> all = attribute.getAll();
+                while (all.hasMore()) {
+                    values.add(String.valueOf(all.next()));
+                }
+            }
+            return values;
+        } catch (NameNotFoundException e) {
+            return Collections.emptyList();
+        } catch (NamingException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Failed to look up the {} records of {} on {}", types[0], name, server, e);
+            }
+            return Collections.emptyList();
+        } finally {
+            if (context != null) {
+                try {
+                    context.close();
+                } catch (NamingException e) {
+                    // nothing to release
+                }
+            }
+        }
+    }
+
+    private static String stripRoot(String name) {
+        return name.endsWith(".") ? name.substring(0, name.length() - 1) : name;
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+}
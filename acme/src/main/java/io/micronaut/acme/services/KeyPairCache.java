@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.services;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.io.ResourceResolver;
+import org.shredzone.acme4j.util.KeyPairUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.KeyPair;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the key pairs decoded from the configured PEM values, keyed by the configuration value. Keys loaded from a
+ * {@code file:} resource are decoded again when the file's modification time or size changed; inline and
+ * {@code classpath:} keys cannot change at runtime and are decoded only once.
+ */
+final class KeyPairCache {
+
+    private static final String FILE_PREFIX = "file:";
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    private final ResourceResolver resourceResolver;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param resourceResolver resolver for {@code file:} and {@code classpath:} key locations
+     */
+    KeyPairCache(@NonNull ResourceResolver resourceResolver) {
+        this.resourceResolver = resourceResolver;
+    }
+
+    /**
+     * Returns the key pair for the given configuration value, decoding it only if it was not decoded yet or its
+     * source changed.
+     *
+     * @param keyString inline PEM or a {@code file:}/{@code classpath:} location of one
+     * @return the key pair
+     * @throws IOException if the key could not be read
+     */
+    @NonNull
+    KeyPair get(@NonNull String keyString) throws IOException {
+        if (!keyString.startsWith(FILE_PREFIX) && !keyString.startsWith(CLASSPATH_PREFIX)) {
+            Entry entry = entries.get(keyString);
+            if (entry == null) {
+                entry = new Entry(KeyPairUtils.readKeyPair(new StringReader(keyString)), null);
+                entries.put(keyString, entry);
+            }
+            return entry.keyPair;
+        }
+
+        Optional<URL> resource = resourceResolver.getResource(keyString);
+        if (!resource.isPresent()) {
+            entries.remove(keyString);
+            // not a location we can resolve, let the PEM parser report it
+            return KeyPairUtils.readKeyPair(new StringReader(keyString));
+        }
+        URL url = resource.get();
+        FileStamp stamp = FileStamp.of(url);
+        Entry entry = entries.get(keyString);
+        if (entry == null || (stamp != null && !stamp.equals(entry.stamp))) {
+            try (Reader reader = new InputStreamReader(url.openStream(), StandardCharsets.UTF_8)) {
+                entry = new Entry(KeyPairUtils.readKeyPair(reader), stamp);
+            }
+            entries.put(keyString, entry);
+        }
+        return entry.keyPair;
+    }
+
+    /**
+     * A decoded key pair together with the state of the file it was decoded from.
+     */
+    private static final class Entry {
+        private final KeyPair keyPair;
+        private final FileStamp stamp;
+
+        Entry(KeyPair keyPair, @Nullable FileStamp stamp) {
+            this.keyPair = keyPair;
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * Modification time and size of a file on disk.
+     */
+    private static final class FileStamp {
+        private final long lastModified;
+        private final long size;
+
+        private FileStamp(long lastModified, long size) {
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        @Nullable
+        static FileStamp of(URL url) throws IOException {
+            if (!"file".equals(url.getProtocol())) {
+                return null;
+            }
+            Path path;
+            try {
+                path = Paths.get(url.toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return null;
+            }
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileStamp(attributes.lastModifiedTime().toMillis(), attributes.size());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileStamp that = (FileStamp) o;
+            return lastModified == that.lastModified && size == that.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lastModified, size);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.services;
+
+import io.micronaut.core.annotation.NonNull;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.cert.CertIOException;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Creates the short-lived self-signed certificate served until a certificate has been issued by the ACME server.
+ */
+final class PlaceholderCertificate {
+
+    private static final String SUBJECT = "CN=acme placeholder";
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(5);
+
+    private PlaceholderCertificate() {
+    }
+
+    /**
+     * Creates a self-signed certificate for the domains, signed by the domain key.
+     *
+     * @param domainKeyPair domain key pair
+     * @param domains       domains of the certificate
+     * @param validity      how long the certificate is valid for
+     * @return the self-signed certificate
+     * @throws GeneralSecurityException if the certificate cannot be signed
+     */
+    @NonNull
+    static X509Certificate create(@NonNull KeyPair domainKeyPair, @NonNull List<String> domains, @NonNull Duration validity) throws GeneralSecurityException {
+        Instant now = Instant.now();
+        X500Name subject = new X500Name(SUBJECT);
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(subject, new BigInteger(64, new SecureRandom()),
+                Date.from(now.minus(CLOCK_SKEW)), Date.from(now.plus(validity)), subject, domainKeyPair.getPublic());
+        try {
+            if (!domains.isEmpty()) {
+                GeneralName[] names = domains.stream()
+                        .map(domain -> new GeneralName(GeneralName.dNSName, domain))
+                        .toArray(GeneralName[]::new);
+                builder.addExtension(Extension.subjectAlternativeName, false, new GeneralNames(names));
+            }
+            String signatureAlgorithm = "EC".equals(domainKeyPair.getPrivate().getAlgorithm()) ? "SHA256withECDSA" : "SHA256withRSA";
+            return new JcaX509CertificateConverter().getCertificate(builder.build(new JcaContentSignerBuilder(signatureAlgorithm).build(domainKeyPair.getPrivate())));
+        } catch (CertIOException | OperatorCreationException e) {
+            throw new GeneralSecurityException("Failed to create the placeholder certificate", e);
+        }
+    }
+}
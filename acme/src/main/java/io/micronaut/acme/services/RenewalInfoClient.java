@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.services;
+
+import io.micronaut.core.annotation.NonNull;
+import org.shredzone.acme4j.Login;
+import org.shredzone.acme4j.RenewalInfo;
+import org.shredzone.acme4j.Session;
+import org.shredzone.acme4j.connector.Resource;
+import org.shredzone.acme4j.exception.AcmeException;
+import org.shredzone.acme4j.exception.AcmeProtocolException;
+import org.shredzone.acme4j.exception.AcmeRetryAfterException;
+import org.shredzone.acme4j.toolbox.AcmeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fetches the ACME Renewal Information (ARI, RFC 9773) of the certificates with acme4j and picks the time they are
+ * renewed at within the renewal window suggested by the ACME server.
+ *
+ * <p>The suggested windows are cached until the Retry-After sent along with them, so that the ACME server is only
+ * queried again once it asked to be. The queries run on the ACME executor, never on the calling thread.</p>
+ */
+final class RenewalInfoClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenewalInfoClient.class);
+    private static final Duration MIN_RETRY_AFTER = Duration.ofMinutes(1);
+    private static final Duration MAX_RETRY_AFTER = Duration.ofDays(1);
+
+    private final AcmeSessionCache sessions;
+    private final AccountLogin accountLogin;
+    private final ExecutorService executor;
+    private final Duration defaultRetryAfter;
+    private final Map<String, RenewalWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * @param sessions          the sessions to the ACME server
+     * @param accountLogin      logs in with the ACME account the renewal information is bound to
+     * @param executor          executor the renewal information is fetched on
+     * @param defaultRetryAfter delay before querying the renewal information again when the ACME server sent none
+     */
+    RenewalInfoClient(@NonNull AcmeSessionCache sessions,
+                      @NonNull AccountLogin accountLogin,
+                      @NonNull ExecutorService executor,
+                      @NonNull Duration defaultRetryAfter) {
+        this.sessions = sessions;
+        this.accountLogin = accountLogin;
+        this.executor = executor;
+        this.defaultRetryAfter = defaultRetryAfter;
+    }
+
+    /**
+     * Gets the time the certificate should be renewed at, picked at random within the renewal window suggested by
+     * the ACME server. The same time is returned as long as the ACME server keeps suggesting the same window. The
+     * window cached for the certificate completes the stage right away, until its Retry-After has passed.
+     *
+     * @param certificate the certificate issued by the ACME server
+     * @param now         the current time
+     * @return a stage completed with the renewal time, or with an empty optional if the ACME server does not provide
+     * renewal information for the certificate
+     */
+    @NonNull
+    CompletableFuture<Optional<Instant>> getRenewalTimeAsync(@NonNull X509Certificate certificate, @NonNull Instant now) {
+        String certificateId;
+        try {
+            certificateId = AcmeUtils.getRenewalUniqueIdentifier(certificate);
+        } catch (AcmeProtocolException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("No renewal information for certificate [{}]: {}", certificate.getSerialNumber(), e.getMessage());
+            }
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        RenewalWindow window = windows.get(certificateId);
+        if (window != null && now.isBefore(window.recheckAfter)) {
+            return CompletableFuture.completedFuture(Optional.of(window.renewalTime));
+        }
+        return CompletableFuture.supplyAsync(() -> getRenewalTime(certificateId, certificate, now, window), executor);
+    }
+
+    private Optional<Instant> getRenewalTime(String certificateId, X509Certificate certificate, Instant now, RenewalWindow previous) {
+        RenewalWindow window = previous;
+        try {
+            RenewalWindow fetched = fetch(certificateId, certificate, now, previous);
+            if (fetched == null) {
+                windows.remove(certificateId);
+                return Optional.empty();
+            }
+            windows.values().removeIf(w -> w.notAfter.isBefore(now));
+            windows.put(certificateId, fetched);
+            window = fetched;
+        } catch (AcmeException | AcmeProtocolException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to fetch the renewal information of certificate [{}] from the ACME server", certificate.getSerialNumber(), e);
+            }
+            // keep using the last window the ACME server suggested, if any
+        }
+        return window == null ? Optional.empty() : Optional.of(window.renewalTime);
+    }
+
+    private RenewalWindow fetch(String certificateId, X509Certificate certificate, Instant now, RenewalWindow previous) throws AcmeException {
+        try (AcmeSessionCache.Lease lease = sessions.acquire()) {
+            Session session = lease.getSession();
+            Optional<URL> baseUrl = session.resourceUrlOptional(Resource.RENEWAL_INFO);
+            if (baseUrl.isEmpty()) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("ACME server does not provide renewal information, falling back to acme.renew-witin");
+                }
+                return null;
+            }
+            RenewalInfo renewalInfo = accountLogin.login(session).bindRenewalInfo(resolve(baseUrl.get(), certificateId));
+            Duration retryAfter = defaultRetryAfter;
+            try {
+                renewalInfo.update();
+            } catch (AcmeRetryAfterException e) {
+                // the renewal information has been updated along with the retry after
+                retryAfter = Duration.between(now, e.getRetryAfter());
+            }
+            Instant start = renewalInfo.getSuggestedWindowStart();
+            Instant end = renewalInfo.getSuggestedWindowEnd();
+            if (end.isBefore(start)) {
+                throw new AcmeProtocolException("Suggested renewal window ends before it starts");
+            }
+            if (retryAfter.compareTo(MIN_RETRY_AFTER) < 0) {
+                retryAfter = MIN_RETRY_AFTER;
+            } else if (retryAfter.compareTo(MAX_RETRY_AFTER) > 0) {
+                retryAfter = MAX_RETRY_AFTER;
+            }
+
+            Instant renewalTime;
+            if (previous != null && previous.start.equals(start) && previous.end.equals(end)) {
+                renewalTime = previous.renewalTime;
+            } else {
+                long windowMillis = Duration.between(start, end).toMillis();
+                renewalTime = start.plusMillis(windowMillis > 0 ? ThreadLocalRandom.current().nextLong(windowMillis + 1) : 0);
+                if (LOG.isInfoEnabled()) {
+                    LOG.info("ACME server suggests renewing certificate [{}] between {} and {}, renewing at {}", certificate.getSerialNumber(), start, end, renewalTime);
+                }
+            }
+            return new RenewalWindow(start, end, renewalTime, now.plus(retryAfter), certificate.getNotAfter().toInstant());
+        }
+    }
+
+    private static URL resolve(URL baseUrl, String certificateId) throws AcmeException {
+        String base = baseUrl.toString();
+        try {
+            return URI.create(base.endsWith("/") ? base + certificateId : base + "/" + certificateId).toURL();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            throw new AcmeException("Invalid renewal information url " + base, e);
+        }
+    }
+
+    /**
+     * Logs in with the ACME account, looking it up on the ACME server if needed.
+     */
+    @FunctionalInterface
+    interface AccountLogin {
+
+        /**
+         * @param session the session to log in with
+         * @return the login of the ACME account
+         * @throws AcmeException if the account cannot be looked up
+         */
+        @NonNull
+        Login login(@NonNull Session session) throws AcmeException;
+    }
+
+    /**
+     * Renewal window suggested by the ACME server for a certificate.
+     */
+    private static final class RenewalWindow {
+        private final Instant start;
+        private final Instant end;
+        private final Instant renewalTime;
+        private final Instant recheckAfter;
+        private final Instant notAfter;
+
+        private RenewalWindow(Instant start, Instant end, Instant renewalTime, Instant recheckAfter, Instant notAfter) {
+            this.start = start;
+            this.end = end;
+            this.renewalTime = renewalTime;
+            this.recheckAfter = recheckAfter;
+            this.notAfter = notAfter;
+        }
+    }
+}
@@ -15,20 +15,33 @@
  */
 package io.micronaut.acme.ssl;
 
+import io.micronaut.acme.CertificateConfiguration;
 import io.micronaut.acme.events.CertificateEvent;
+import io.micronaut.acme.events.OcspResponseEvent;
+import io.micronaut.acme.events.TlsAlpnChallengeCompleted;
 import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Value;
 import io.micronaut.http.server.netty.ssl.CertificateProvidedSslBuilder;
 import io.micronaut.http.server.netty.ssl.ServerSslBuilder;
 import io.micronaut.http.ssl.ServerSslConfiguration;
 import io.micronaut.runtime.event.annotation.EventListener;
 import io.netty.handler.ssl.*;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.shredzone.acme4j.challenge.TlsAlpn01Challenge;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLException;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The Netty implementation of {@link ServerSslBuilder} that generates an {@link SslContext} to create a server handler
@@ -39,30 +52,70 @@ import java.util.Optional;
 public class AcmeSSLContextBuilder implements ServerSslBuilder {
 
     private static final Logger LOG = LoggerFactory.getLogger(AcmeSSLContextBuilder.class);
+    private static final int DNS_NAME = 2;
 
     private DelegatedSslContext delegatedSslContext = new DelegatedSslContext(null);
     private final ServerSslConfiguration ssl;
+    private final Map<String, DelegatedSslContext> namedSslContexts;
+    private final HostnameMapping hostnameMapping;
+    private final TlsAlpnValidations validations = new TlsAlpnValidations();
+    private final boolean ocspStapling;
+    private final Map<String, OcspResponseEvent> ocspResponses = new ConcurrentHashMap<>();
+    private final Map<String, CertificateEvent> certificates = new ConcurrentHashMap<>();
+    private final Map<String, CertificateEvent> ecdsaCertificates = new ConcurrentHashMap<>();
 
     /**
      * @param ssl The SSL configuration
      */
     public AcmeSSLContextBuilder(ServerSslConfiguration ssl) {
+        this(ssl, Collections.emptyList(), false);
+    }
+
+    /**
+     * @param ssl                       The SSL configuration
+     * @param certificateConfigurations Additional named certificates, served to the host names they are configured for
+     * @param ocspEnabled               Whether OCSP responses are stapled to the handshakes
+     */
+    @Inject
+    public AcmeSSLContextBuilder(ServerSslConfiguration ssl,
+                                 List<CertificateConfiguration> certificateConfigurations,
+                                 @Value("${acme.ocsp.enabled:false}") boolean ocspEnabled) {
         this.ssl = ssl;
+        this.ocspStapling = ocspEnabled && OpenSsl.isOcspSupported();
+        if (ocspEnabled && !ocspStapling && LOG.isWarnEnabled()) {
+            LOG.warn("OCSP stapling is enabled but requires the OpenSSL provider, which is not available. OCSP responses will not be stapled");
+        }
+        Map<String, DelegatedSslContext> contexts = new HashMap<>();
+        HostnameMapping.Builder mapping = HostnameMapping.builder(delegatedSslContext);
+        for (CertificateConfiguration certificate : certificateConfigurations) {
+            DelegatedSslContext context = new DelegatedSslContext(null);
+            contexts.put(certificate.getName(), context);
+            mapping.add(certificate.getDomains(), context);
+        }
+        this.namedSslContexts = Collections.unmodifiableMap(contexts);
+        this.hostnameMapping = mapping.build();
     }
 
     /**
      * Listens for CertificateEvent containing the ACME certificate and replaces the {@link SslContext} to now use that certificate.
+     * A tls-alpn-01 validation certificate does not replace it, it is only served to the handshakes asking for the
+     * {@code acme-tls/1} protocol for the domain being validated.
      *
      * @param certificateEvent {@link CertificateEvent}
      */
     @EventListener
     void onNewCertificate(CertificateEvent certificateEvent) {
-        try {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("New certificate received and replaced the proxied SSL context");
+        DelegatedSslContext target = getDelegatedSslContext(certificateEvent.getName());
+        if (target == null) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Ignoring certificate [{}] as no such certificate is configured", certificateEvent.getName());
             }
+            return;
+        }
+        try {
             if (certificateEvent.isValidationCert()) {
-                SslProvider provider = SslProvider.isAlpnSupported(SslProvider.OPENSSL) ? SslProvider.OPENSSL : SslProvider.JDK;
+                String domain = getValidatedDomain(certificateEvent.getCert());
+                SslProvider provider = SslProvider.isAlpnSupported(SslProvider.OPENSSL_REFCNT) ? SslProvider.OPENSSL_REFCNT : SslProvider.JDK;
                 SslContext sslContext = SslContextBuilder
                         .forServer(certificateEvent.getDomainKeyPair().getPrivate(), certificateEvent.getCert())
                         .sslProvider(provider)
@@ -74,12 +127,43 @@ public class AcmeSSLContextBuilder implements ServerSslBuilder {
                                 ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
                                 TlsAlpn01Challenge.ACME_TLS_1_PROTOCOL))
                         .build();
-                delegatedSslContext.setNewSslContext(sslContext);
+                // served next to the production context, only to the handshakes asking for acme-tls/1
+                validations.add(domain, sslContext);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Serving the tls-alpn-01 validation certificate of [{}] for certificate [{}]", domain, certificateEvent.getName());
+                }
             } else {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("New certificate [{}] received and replaced the proxied SSL context", certificateEvent.getName());
+                }
+                String name = certificateEvent.getName();
+                boolean ecdsa = isEcdsa(certificateEvent);
+                (ecdsa ? ecdsaCertificates : certificates).put(name, certificateEvent);
+                CertificateEvent other = (ecdsa ? certificates : ecdsaCertificates).get(name);
+                if (other != null) {
+                    // one context serving both certificates, the TLS implementation picks the one the client supports
+                    SslContext sslContext = SslContextBuilder
+                            .forServer(new KeyTypeKeyManager(certificateEvent, other).newKeyManagerFactory())
+                            .sslProvider(OpenSsl.isAvailable() ? SslProvider.OPENSSL_REFCNT : SslProvider.JDK)
+                            .build();
+                    // a single OCSP response cannot be stapled for two certificates
+                    target.setNewSslContext(sslContext);
+                    return;
+                }
                 SslContext sslContext = SslContextBuilder
                         .forServer(certificateEvent.getDomainKeyPair().getPrivate(), certificateEvent.getFullCertificateChain())
+                        .sslProvider(OpenSsl.isAvailable() ? SslProvider.OPENSSL_REFCNT : SslProvider.JDK)
+                        .enableOcsp(ocspStapling)
                         .build();
-                delegatedSslContext.setNewSslContext(sslContext);
+                if (ocspStapling) {
+                    target.setNewSslContext(sslContext, certificateEvent.getCert());
+                    OcspResponseEvent ocspResponse = ocspResponses.get(certificateEvent.getName());
+                    if (ocspResponse != null) {
+                        target.setOcspResponse(ocspResponse.getCertificate(), ocspResponse.getOcspResponse());
+                    }
+                } else {
+                    target.setNewSslContext(sslContext);
+                }
             }
         } catch (SSLException e) {
             if (LOG.isErrorEnabled()) {
@@ -88,6 +172,105 @@ public class AcmeSSLContextBuilder implements ServerSslBuilder {
         }
     }
 
+    /**
+     * Listens for OcspResponseEvent and staples the response to the handshakes serving the certificate it is for.
+     *
+     * @param ocspResponseEvent {@link OcspResponseEvent}
+     */
+    @EventListener
+    void onOcspResponse(OcspResponseEvent ocspResponseEvent) {
+        if (!ocspStapling) {
+            return;
+        }
+        String name = ocspResponseEvent.getName();
+        // kept in case the certificate it is for has not been swapped in yet
+        ocspResponses.put(name, ocspResponseEvent);
+        DelegatedSslContext target = getDelegatedSslContext(name);
+        if (target != null && target.setOcspResponse(ocspResponseEvent.getCertificate(), ocspResponseEvent.getOcspResponse())) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Stapling a new OCSP response for certificate [{}]", name);
+            }
+        }
+    }
+
+    /**
+     * Listens for TlsAlpnChallengeCompleted and stops serving the validation certificate of the domain.
+     *
+     * @param challengeCompleted {@link TlsAlpnChallengeCompleted}
+     */
+    @EventListener
+    void onTlsAlpnChallengeCompleted(TlsAlpnChallengeCompleted challengeCompleted) {
+        if (validations.remove(challengeCompleted.getDomain()) && LOG.isDebugEnabled()) {
+            LOG.debug("Stopped serving the tls-alpn-01 validation certificate of [{}]", challengeCompleted.getDomain());
+        }
+    }
+
+    /**
+     * A tls-alpn-01 validation certificate holds the domain it validates as its only dNSName.
+     */
+    private static String getValidatedDomain(X509Certificate certificate) throws SSLException {
+        try {
+            Collection<List<?>> names = certificate.getSubjectAlternativeNames();
+            if (names != null) {
+                for (List<?> name : names) {
+                    if (Integer.valueOf(DNS_NAME).equals(name.get(0))) {
+                        return (String) name.get(1);
+                    }
+                }
+            }
+        } catch (CertificateParsingException e) {
+            throw new SSLException("Invalid tls-alpn-01 validation certificate", e);
+        }
+        throw new SSLException("The tls-alpn-01 validation certificate holds no domain");
+    }
+
+    private static boolean isEcdsa(CertificateEvent certificateEvent) {
+        return "EC".equals(certificateEvent.getDomainKeyPair().getPrivate().getAlgorithm());
+    }
+
+    private DelegatedSslContext getDelegatedSslContext(String name) {
+        if (CertificateConfiguration.DEFAULT_NAME.equals(name)) {
+            return delegatedSslContext;
+        }
+        return namedSslContexts.get(name);
+    }
+
+    /**
+     * Number of native OpenSSL contexts that have not been freed yet. Contexts replaced by a new certificate are
+     * freed once the connections using them are closed, so this stays flat across certificate rotations. It can be
+     * bound to a gauge to monitor native memory.
+     *
+     * @return the number of live native contexts, always 0 with the JDK provider
+     */
+    public int getLiveNativeSslContexts() {
+        int live = delegatedSslContext.liveNativeContexts();
+        for (DelegatedSslContext context : namedSslContexts.values()) {
+            live += context.liveNativeContexts();
+        }
+        return live;
+    }
+
+    /**
+     * @return the mapping of host names to the contexts of the named certificates, empty if there are none
+     */
+    Optional<HostnameMapping> getHostnameMapping() {
+        return hostnameMapping.isEmpty() ? Optional.empty() : Optional.of(hostnameMapping);
+    }
+
+    /**
+     * @return the mapping of host names to their contexts, serving the default context only if there are no named certificates
+     */
+    HostnameMapping getSniMapping() {
+        return hostnameMapping;
+    }
+
+    /**
+     * @return the contexts of the pending tls-alpn-01 validations
+     */
+    TlsAlpnValidations getValidations() {
+        return validations;
+    }
+
     @Override
     public ServerSslConfiguration getSslConfiguration() {
         return ssl;
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.ssl;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.netty.channel.ChannelPipelineCustomizer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.ssl.SniHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.Mapping;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import org.shredzone.acme4j.challenge.TlsAlpn01Challenge;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link SniHandler} that replaces itself with an {@link SslHandler} registered under the name Micronaut expects the
+ * SSL handler to have in the pipeline. Handshakes offering the {@code acme-tls/1} protocol for a domain with a pending
+ * tls-alpn-01 challenge are served its validation certificate instead of the mapped context.
+ */
+final class AcmeSniHandler extends SniHandler {
+
+    private static final int EXTENSION_SERVER_NAME = 0;
+    private static final int EXTENSION_ALPN = 16;
+    private static final byte[] ACME_TLS_1 = TlsAlpn01Challenge.ACME_TLS_1_PROTOCOL.getBytes(StandardCharsets.US_ASCII);
+
+    private final TlsAlpnValidations validations;
+    private SslContext validationContext;
+
+    /**
+     * @param mapping                host name to SSL context mapping
+     * @param handshakeTimeoutMillis handshake timeout of the SSL handler this handler replaced
+     */
+    AcmeSniHandler(Mapping<? super String, ? extends SslContext> mapping, long handshakeTimeoutMillis) {
+        this(mapping, null, handshakeTimeoutMillis);
+    }
+
+    /**
+     * @param mapping                host name to SSL context mapping
+     * @param validations            contexts of the pending tls-alpn-01 validations, null if none are ever served
+     * @param handshakeTimeoutMillis handshake timeout of the SSL handler this handler replaced
+     */
+    AcmeSniHandler(Mapping<? super String, ? extends SslContext> mapping,
+                   @Nullable TlsAlpnValidations validations,
+                   long handshakeTimeoutMillis) {
+        super(mapping, handshakeTimeoutMillis);
+        this.validations = validations;
+    }
+
+    @Override
+    protected Future<SslContext> lookup(ChannelHandlerContext ctx, ByteBuf clientHello) throws Exception {
+        // only parsed while a validation is pending, every other handshake costs the usual SNI lookup
+        if (clientHello != null && validations != null && !validations.isEmpty()) {
+            SslContext context = validations.retain(acmeTlsHostname(clientHello));
+            if (context != null) {
+                validationContext = context;
+                return ctx.executor().newSucceededFuture(context);
+            }
+        }
+        return super.lookup(ctx, clientHello);
+    }
+
+    @Override
+    protected void replaceHandler(ChannelHandlerContext ctx, String hostname, SslContext sslContext) throws Exception {
+        SslHandler sslHandler = null;
+        try {
+            sslHandler = newSslHandler(sslContext, ctx.alloc());
+            ctx.pipeline().replace(this, ChannelPipelineCustomizer.HANDLER_SSL, sslHandler);
+            sslHandler = null;
+        } finally {
+            // the engine was not handed over to the pipeline, release it
+            if (sslHandler != null) {
+                ReferenceCountUtil.safeRelease(sslHandler.engine());
+            }
+            // the engine holds its own reference to the validation context
+            if (validationContext != null) {
+                ReferenceCountUtil.safeRelease(validationContext);
+                validationContext = null;
+            }
+        }
+    }
+
+    /**
+     * Reads the host name of a ClientHello offering the {@code acme-tls/1} protocol.
+     *
+     * @param clientHello ClientHello message, starting at its protocol version
+     * @return the SNI host name, null if the handshake is not a tls-alpn-01 validation or the message is malformed
+     */
+    @Nullable
+    static String acmeTlsHostname(ByteBuf clientHello) {
+        int offset = clientHello.readerIndex();
+        int end = clientHello.writerIndex();
+        // protocol version and random
+        offset += 34;
+        if (end - offset < 1) {
+            return null;
+        }
+        // session id
+        offset += 1 + clientHello.getUnsignedByte(offset);
+        if (end - offset < 2) {
+            return null;
+        }
+        // cipher suites
+        offset += 2 + clientHello.getUnsignedShort(offset);
+        if (end - offset < 1) {
+            return null;
+        }
+        // compression methods
+        offset += 1 + clientHello.getUnsignedByte(offset);
+        if (end - offset < 2) {
+            return null;
+        }
+        int extensionsEnd = offset + 2 + clientHello.getUnsignedShort(offset);
+        offset += 2;
+        if (extensionsEnd > end) {
+            return null;
+        }
+        String hostname = null;
+        boolean acmeTls = false;
+        while (extensionsEnd - offset >= 4) {
+            int type = clientHello.getUnsignedShort(offset);
+            int length = clientHello.getUnsignedShort(offset + 2);
+            offset += 4;
+            if (extensionsEnd - offset < length) {
+                return null;
+            }
+            if (type == EXTENSION_SERVER_NAME) {
+                hostname = readHostname(clientHello, offset, offset + length);
+            } else if (type == EXTENSION_ALPN) {
+                acmeTls = offersAcmeTls(clientHello, offset, offset + length);
+            }
+            offset += length;
+        }
+        return acmeTls ? hostname : null;
+    }
+
+    private static String readHostname(ByteBuf buffer, int offset, int end) {
+        // server name list length, name type and name length
+        if (end - offset < 5 || buffer.getUnsignedByte(offset + 2) != 0) {
+            return null;
+        }
+        int length = buffer.getUnsignedShort(offset + 3);
+        offset += 5;
+        if (end - offset < length) {
+            return null;
+        }
+        return buffer.toString(offset, length, StandardCharsets.US_ASCII);
+    }
+
+    private static boolean offersAcmeTls(ByteBuf buffer, int offset, int end) {
+        // protocol name list length
+        offset += 2;
+        while (offset < end) {
+            int length = buffer.getUnsignedByte(offset);
+            offset++;
+            if (end - offset < length) {
+                return false;
+            }
+            if (length == ACME_TLS_1.length) {
+                boolean matches = true;
+                for (int i = 0; i < length && matches; i++) {
+                    matches = buffer.getByte(offset + i) == ACME_TLS_1[i];
+                }
+                if (matches) {
+                    return true;
+                }
+            }
+            offset += length;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.ssl;
+
+import io.micronaut.acme.AcmeConfiguration;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.http.netty.channel.ChannelPipelineCustomizer;
+import io.micronaut.http.server.netty.NettyServerCustomizer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+import jakarta.inject.Singleton;
+
+import javax.net.ssl.SSLEngine;
+
+/**
+ * Routes the handshakes of the connections to the certificate configured for the requested host name, or to the
+ * tls-alpn-01 validation certificate of the domain when the handshake asks for it, by replacing the SSL handler of
+ * each connection with an {@link AcmeSniHandler}. Nothing is registered unless named certificates are configured or
+ * the tls challenge type is used, and with the tls challenge type alone the SSL handler is only replaced on the
+ * connections accepted while a validation is pending. Every other connection keeps the SSL handler Micronaut built.
+ */
+@Singleton
+@Requires(beans = NettyServerCustomizer.Registry.class)
+final class AcmeSniServerCustomizer implements BeanCreatedEventListener<NettyServerCustomizer.Registry> {
+
+    private final AcmeSSLContextBuilder sslContextBuilder;
+    private final AcmeConfiguration acmeConfiguration;
+
+    /**
+     * @param sslContextBuilder builder holding the SSL contexts of the certificates
+     * @param acmeConfiguration ACME configuration
+     */
+    AcmeSniServerCustomizer(AcmeSSLContextBuilder sslContextBuilder, AcmeConfiguration acmeConfiguration) {
+        this.sslContextBuilder = sslContextBuilder;
+        this.acmeConfiguration = acmeConfiguration;
+    }
+
+    @Override
+    public NettyServerCustomizer.Registry onCreated(BeanCreatedEvent<NettyServerCustomizer.Registry> event) {
+        NettyServerCustomizer.Registry registry = event.getBean();
+        boolean tlsChallenge = acmeConfiguration.getChallengeType() == AcmeConfiguration.ChallengeType.TLS;
+        if (tlsChallenge || sslContextBuilder.getHostnameMapping().isPresent()) {
+            TlsAlpnValidations validations = tlsChallenge ? sslContextBuilder.getValidations() : null;
+            registry.register(new SniCustomizer(sslContextBuilder.getSniMapping(), validations, null));
+        }
+        return registry;
+    }
+
+    /**
+     * Customizer installing the SNI handler on the connections that need it.
+     */
+    static final class SniCustomizer implements NettyServerCustomizer {
+        private final HostnameMapping mapping;
+        private final TlsAlpnValidations validations;
+        private final Channel channel;
+
+        /**
+         * @param mapping     host name to SSL context mapping
+         * @param validations contexts of the pending tls-alpn-01 validations, null if the tls challenge type is not used
+         * @param channel     connection to customize, null for the customizer registered with the server
+         */
+        SniCustomizer(HostnameMapping mapping, TlsAlpnValidations validations, Channel channel) {
+            this.mapping = mapping;
+            this.validations = validations;
+            this.channel = channel;
+        }
+
+        @Override
+        public NettyServerCustomizer specializeForChannel(Channel channel, ChannelRole role) {
+            return role == ChannelRole.CONNECTION ? new SniCustomizer(mapping, validations, channel) : this;
+        }
+
+        @Override
+        public void onInitialPipelineBuilt() {
+            if (channel == null || !isRoutingNeeded()) {
+                return;
+            }
+            ChannelHandler handler = channel.pipeline().get(ChannelPipelineCustomizer.HANDLER_SSL);
+            if (handler instanceof SslHandler) {
+                SslHandler sslHandler = (SslHandler) handler;
+                SSLEngine engine = sslHandler.engine();
+                channel.pipeline().replace(handler, ChannelPipelineCustomizer.HANDLER_SSL, new AcmeSniHandler(mapping, validations, sslHandler.getHandshakeTimeoutMillis()));
+                // the engine of the replaced handler is never used, free it unless removing the handler already did
+                if (engine instanceof ReferenceCounted && ((ReferenceCounted) engine).refCnt() > 0) {
+                    ReferenceCountUtil.release(engine);
+                }
+            }
+        }
+
+        /**
+         * @return whether the handshakes have to be routed, as the default certificate is the only one served otherwise
+         */
+        private boolean isRoutingNeeded() {
+            return !mapping.isEmpty() || validations != null && !validations.isEmpty();
+        }
+    }
+}
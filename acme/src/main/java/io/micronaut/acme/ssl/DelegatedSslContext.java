@@ -17,18 +17,33 @@ package io.micronaut.acme.ssl;
 
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.ssl.ApplicationProtocolNegotiator;
+import io.netty.handler.ssl.ReferenceCountedOpenSslEngine;
 import io.netty.handler.ssl.SslContext;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
 
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLSessionContext;
+import java.security.cert.X509Certificate;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
- * Allows for netty SslContext to be delegated to another as well as switched out at runtime.
+ * Allows for netty SslContext to be delegated to another as well as switched out at runtime. The delegate is published
+ * atomically, so every event loop sees a new context as soon as it has been set, without any locking when creating
+ * engines.
+ * <p>
+ * Reference counted (OpenSSL) contexts are owned by this context: a replaced context is released, and its native
+ * memory is freed once every engine created from it has been released as well.
  */
 public class DelegatedSslContext extends SslContext {
 
-    private SslContext ctx;
+    private final AtomicReference<Delegate> delegate;
+    private final Set<ReferenceCounted> retiredContexts = ConcurrentHashMap.newKeySet();
 
     /**
      * Creates a new DelegatedSslContext with the SslContext to be delegated to.
@@ -36,7 +51,7 @@ public class DelegatedSslContext extends SslContext {
      * @param ctx {@link SslContext}
      */
     DelegatedSslContext(SslContext ctx) {
-        this.ctx = ctx;
+        this.delegate = new AtomicReference<>(new Delegate(ctx, null, null));
     }
 
     /**
@@ -45,47 +60,150 @@ public class DelegatedSslContext extends SslContext {
      * @param sslContext {@link SslContext}
      */
     final void setNewSslContext(SslContext sslContext) {
-        this.ctx = sslContext;
+        setNewSslContext(sslContext, null);
+    }
+
+    /**
+     * Overrides the existing delegated SslContext with the one passed, serving the given certificate. Any OCSP
+     * response stapled for the previous certificate is dropped.
+     *
+     * @param sslContext  {@link SslContext}
+     * @param certificate the certificate served by the context, null if OCSP responses should not be stapled
+     */
+    final void setNewSslContext(SslContext sslContext, X509Certificate certificate) {
+        SslContext retired = this.delegate.getAndSet(new Delegate(sslContext, certificate, null)).context;
+        if (retired instanceof ReferenceCounted && retired != sslContext) {
+            ReferenceCounted referenceCounted = (ReferenceCounted) retired;
+            retiredContexts.add(referenceCounted);
+            // engines still in use hold their own reference, the native context is freed once they are all closed
+            ReferenceCountUtil.safeRelease(referenceCounted);
+            retiredContexts.removeIf(context -> context.refCnt() == 0);
+        }
+    }
+
+    /**
+     * Staples an OCSP response to the engines created from now on, if the current context still serves the
+     * certificate the response is for.
+     *
+     * @param certificate  the certificate the response is for
+     * @param ocspResponse DER encoded OCSP response
+     * @return whether the response is stapled
+     */
+    final boolean setOcspResponse(X509Certificate certificate, byte[] ocspResponse) {
+        while (true) {
+            Delegate current = delegate.get();
+            if (current.certificate == null || !current.certificate.equals(certificate)) {
+                return false;
+            }
+            if (delegate.compareAndSet(current, new Delegate(current.context, current.certificate, ocspResponse))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Number of native contexts held by this context that have not been freed yet: the current one if it is
+     * reference counted, plus the replaced ones still used by open engines.
+     *
+     * @return the number of live native contexts
+     */
+    final int liveNativeContexts() {
+        retiredContexts.removeIf(context -> context.refCnt() == 0);
+        SslContext current = delegate.get().context;
+        return retiredContexts.size() + (current instanceof ReferenceCounted ? 1 : 0);
+    }
+
+    /**
+     * @return whether an SslContext has been set to delegate to
+     */
+    final boolean hasSslContext() {
+        return delegate.get().context != null;
     }
 
     @Override
     public final boolean isClient() {
-        return ctx.isClient();
+        return delegate.get().context.isClient();
     }
 
     @Override
     public final List<String> cipherSuites() {
-        return ctx.cipherSuites();
+        return delegate.get().context.cipherSuites();
     }
 
     @Override
     public final long sessionCacheSize() {
-        return ctx.sessionCacheSize();
+        return delegate.get().context.sessionCacheSize();
     }
 
     @Override
     public final long sessionTimeout() {
-        return ctx.sessionTimeout();
+        return delegate.get().context.sessionTimeout();
     }
 
     @Override
     public final ApplicationProtocolNegotiator applicationProtocolNegotiator() {
-        return ctx.applicationProtocolNegotiator();
+        return delegate.get().context.applicationProtocolNegotiator();
     }
 
     @Override
     public final SSLEngine newEngine(ByteBufAllocator alloc) {
-        return ctx.newEngine(alloc);
+        return newEngine(context -> context.newEngine(alloc));
     }
 
     @Override
     public final SSLEngine newEngine(ByteBufAllocator alloc, String peerHost, int peerPort) {
-        return ctx.newEngine(alloc, peerHost, peerPort);
+        return newEngine(context -> context.newEngine(alloc, peerHost, peerPort));
     }
 
     @Override
     public final SSLSessionContext sessionContext() {
-        return ctx.sessionContext();
+        return delegate.get().context.sessionContext();
+    }
+
+    /**
+     * Creates an engine from the current context. A reference counted context is retained while the engine is
+     * created, so that it cannot be freed by a concurrent swap in the meantime. If it was freed between reading and
+     * retaining it, the context that replaced it is used instead.
+     */
+    private SSLEngine newEngine(Function<SslContext, SSLEngine> engineFactory) {
+        while (true) {
+            Delegate current = delegate.get();
+            if (!(current.context instanceof ReferenceCounted)) {
+                return engineFactory.apply(current.context);
+            }
+            ReferenceCounted referenceCounted = (ReferenceCounted) current.context;
+            try {
+                referenceCounted.retain();
+            } catch (IllegalReferenceCountException e) {
+                continue;
+            }
+            try {
+                return staple(engineFactory.apply(current.context), current.ocspResponse);
+            } finally {
+                referenceCounted.release();
+            }
+        }
+    }
+
+    private static SSLEngine staple(SSLEngine engine, byte[] ocspResponse) {
+        if (ocspResponse != null && engine instanceof ReferenceCountedOpenSslEngine) {
+            ((ReferenceCountedOpenSslEngine) engine).setOcspResponse(ocspResponse);
+        }
+        return engine;
     }
 
+    /**
+     * The context delegated to, along with the certificate it serves and the OCSP response stapled for it.
+     */
+    private static final class Delegate {
+        private final SslContext context;
+        private final X509Certificate certificate;
+        private final byte[] ocspResponse;
+
+        Delegate(SslContext context, X509Certificate certificate, byte[] ocspResponse) {
+            this.context = context;
+            this.certificate = certificate;
+            this.ocspResponse = ocspResponse;
+        }
+    }
 }
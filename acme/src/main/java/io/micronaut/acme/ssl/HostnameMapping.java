@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.ssl;
+
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.core.annotation.NonNull;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.Mapping;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps the SNI host name of a handshake to the SSL context of the certificate serving it. Exact names and
+ * {@code *.} wildcard names are each kept in a hash map, so a lookup costs at most two hash lookups whatever the number
+ * of configured host names. Host names that are not configured, or whose certificate is not available yet, are served
+ * the default context.
+ */
+final class HostnameMapping implements Mapping<String, SslContext> {
+
+    private static final String WILDCARD_PREFIX = "*.";
+
+    private final SslContext defaultContext;
+    private final Map<String, DelegatedSslContext> exactNames;
+    private final Map<String, DelegatedSslContext> wildcardNames;
+
+    private HostnameMapping(SslContext defaultContext,
+                            Map<String, DelegatedSslContext> exactNames,
+                            Map<String, DelegatedSslContext> wildcardNames) {
+        this.defaultContext = defaultContext;
+        this.exactNames = exactNames;
+        this.wildcardNames = wildcardNames;
+    }
+
+    /**
+     * @return whether no host name is mapped to a context other than the default one
+     */
+    boolean isEmpty() {
+        return exactNames.isEmpty() && wildcardNames.isEmpty();
+    }
+
+    @Override
+    public SslContext map(String hostname) {
+        if (hostname == null) {
+            return defaultContext;
+        }
+        String name = normalize(hostname);
+        DelegatedSslContext context = exactNames.get(name);
+        if (context == null) {
+            int dot = name.indexOf('.');
+            if (dot > 0) {
+                // a wildcard only covers a single label
+                context = wildcardNames.get(name.substring(dot + 1));
+            }
+        }
+        return context != null && context.hasSslContext() ? context : defaultContext;
+    }
+
+    /**
+     * Starts a new mapping.
+     *
+     * @param defaultContext context served to the host names that are not mapped
+     * @return the builder
+     */
+    static Builder builder(@NonNull SslContext defaultContext) {
+        return new Builder(defaultContext);
+    }
+
+    private static String normalize(String hostname) {
+        String name = hostname.toLowerCase(Locale.ROOT);
+        return name.endsWith(".") ? name.substring(0, name.length() - 1) : name;
+    }
+
+    /**
+     * Builder of an immutable {@link HostnameMapping}.
+     */
+    static final class Builder {
+        private final SslContext defaultContext;
+        private final Map<String, DelegatedSslContext> exactNames = new HashMap<>();
+        private final Map<String, DelegatedSslContext> wildcardNames = new HashMap<>();
+
+        private Builder(SslContext defaultContext) {
+            this.defaultContext = defaultContext;
+        }
+
+        /**
+         * Maps the domains of a certificate to its context.
+         *
+         * @param domains domains of the certificate, possibly wildcards
+         * @param context context serving the certificate
+         * @return this builder
+         */
+        Builder add(List<String> domains, DelegatedSslContext context) {
+            for (String domain : domains) {
+                String name = normalize(domain);
+                Map<String, DelegatedSslContext> names = exactNames;
+                if (name.startsWith(WILDCARD_PREFIX)) {
+                    name = name.substring(WILDCARD_PREFIX.length());
+                    names = wildcardNames;
+                }
+                DelegatedSslContext existing = names.putIfAbsent(name, context);
+                if (existing != null && existing != context) {
+                    throw new ConfigurationException("The domain [" + domain + "] is configured for more than one certificate");
+                }
+            }
+            return this;
+        }
+
+        HostnameMapping build() {
+            return new HostnameMapping(defaultContext,
+                    Collections.unmodifiableMap(new HashMap<>(exactNames)),
+                    Collections.unmodifiableMap(new HashMap<>(wildcardNames)));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.ssl;
+
+import io.micronaut.acme.events.CertificateEvent;
+import io.netty.handler.ssl.util.SimpleKeyManagerFactory;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.ManagerFactoryParameters;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Key manager serving one certificate per key type, so that the same handshake can be answered with an ECDSA
+ * certificate for the clients supporting it and with an RSA certificate for the others. The key algorithm, used as
+ * the alias, is picked from the exact key type requested by the TLS implementation. Key types of the static ECDH
+ * cipher suites, such as {@code EC_RSA} for an EC key signed with RSA, are not served as neither certificate fits them.
+ */
+final class KeyTypeKeyManager extends X509ExtendedKeyManager {
+
+    private static final String EC = "EC";
+    private static final String RSA = "RSA";
+    private static final Set<String> EC_KEY_TYPES = Set.of(EC, "ECDHE_ECDSA");
+    private static final Set<String> RSA_KEY_TYPES = Set.of(RSA, "DHE_RSA", "ECDHE_RSA");
+
+    private final Map<String, CertificateEvent> certificates = new HashMap<>();
+
+    /**
+     * @param certificates the certificates to serve, at most one per key algorithm
+     */
+    KeyTypeKeyManager(CertificateEvent... certificates) {
+        for (CertificateEvent certificate : certificates) {
+            this.certificates.put(certificate.getDomainKeyPair().getPrivate().getAlgorithm().toUpperCase(Locale.ROOT), certificate);
+        }
+    }
+
+    /**
+     * @return a factory handing out this key manager
+     */
+    KeyManagerFactory newKeyManagerFactory() {
+        KeyManager[] keyManagers = {this};
+        return new SimpleKeyManagerFactory() {
+            @Override
+            protected void engineInit(KeyStore keyStore, char[] password) {
+                // the key material is already known
+            }
+
+            @Override
+            protected void engineInit(ManagerFactoryParameters managerFactoryParameters) {
+                // the key material is already known
+            }
+
+            @Override
+            protected KeyManager[] engineGetKeyManagers() {
+                return keyManagers;
+            }
+        };
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+        return null;
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+        return null;
+    }
+
+    @Override
+    public String chooseEngineClientAlias(String[] keyType, Principal[] issuers, SSLEngine engine) {
+        return null;
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+        String alias = alias(keyType);
+        return alias == null ? null : new String[] {alias};
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+        return alias(keyType);
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+        return alias(keyType);
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+        CertificateEvent certificate = alias == null ? null : certificates.get(alias);
+        return certificate == null ? null : certificate.getFullCertificateChain().clone();
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+        CertificateEvent certificate = alias == null ? null : certificates.get(alias);
+        return certificate == null ? null : certificate.getDomainKeyPair().getPrivate();
+    }
+
+    private String alias(String keyType) {
+        if (keyType == null) {
+            return null;
+        }
+        String type = keyType.toUpperCase(Locale.ROOT);
+        String alias;
+        if (EC_KEY_TYPES.contains(type)) {
+            alias = EC;
+        } else if (RSA_KEY_TYPES.contains(type)) {
+            alias = RSA;
+        } else {
+            return null;
+        }
+        return certificates.containsKey(alias) ? alias : null;
+    }
+}
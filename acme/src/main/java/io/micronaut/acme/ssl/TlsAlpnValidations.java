@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.ssl;
+
+import io.micronaut.core.annotation.Nullable;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SSL contexts serving the tls-alpn-01 validation certificates of the pending challenges, by domain. They are only
+ * picked for the handshakes offering the {@code acme-tls/1} protocol, every other handshake keeps being served the
+ * production context.
+ */
+final class TlsAlpnValidations {
+
+    private final Map<String, SslContext> contexts = new ConcurrentHashMap<>();
+
+    /**
+     * @return whether no validation is pending
+     */
+    boolean isEmpty() {
+        return contexts.isEmpty();
+    }
+
+    /**
+     * Serves a validation certificate for a domain, replacing the previous one of that domain.
+     *
+     * @param domain  domain being validated
+     * @param context context serving the validation certificate
+     */
+    void add(String domain, SslContext context) {
+        SslContext previous = contexts.put(normalize(domain), context);
+        if (previous != null && previous != context) {
+            ReferenceCountUtil.safeRelease(previous);
+        }
+    }
+
+    /**
+     * Stops serving the validation certificate of a domain.
+     *
+     * @param domain domain that was validated
+     * @return whether a validation certificate was served for the domain
+     */
+    boolean remove(String domain) {
+        SslContext previous = contexts.remove(normalize(domain));
+        if (previous != null) {
+            ReferenceCountUtil.safeRelease(previous);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Looks up the validation context of a domain and retains it, the caller has to release it once its engine was
+     * created so that a validation completing during the handshake does not free the context under it.
+     *
+     * @param hostname SNI host name of the handshake
+     * @return the retained context, null if no validation is pending for the host name
+     */
+    @Nullable
+    SslContext retain(@Nullable String hostname) {
+        if (hostname == null) {
+            return null;
+        }
+        SslContext context = contexts.get(normalize(hostname));
+        if (context == null) {
+            return null;
+        }
+        try {
+            return ReferenceCountUtil.retain(context);
+        } catch (IllegalReferenceCountException e) {
+            // removed and freed concurrently
+            return null;
+        }
+    }
+
+    private static String normalize(String hostname) {
+        String name = hostname.toLowerCase(Locale.ROOT);
+        return name.endsWith(".") ? name.substring(0, name.length() - 1) : name;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.store;
+
+import io.micronaut.core.annotation.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Keeps an immutable snapshot of the certificate chain parsed from disk. The file is only parsed again when its
+ * modification time, size or identity changed, or when the snapshot has been invalidated.
+ */
+final class CertificateChainCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CertificateChainCache.class);
+    private static final String X509_CERT = "X.509";
+
+    private final Path certificate;
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param certificate path to the PEM encoded certificate chain
+     */
+    CertificateChainCache(@NonNull Path certificate) {
+        this.certificate = certificate;
+    }
+
+    /**
+     * Returns the certificate chain, parsing the file again only if it changed since it was last parsed.
+     *
+     * @return a copy of the certificate chain, or empty if there is no certificate or it could not be parsed
+     */
+    @NonNull
+    Optional<X509Certificate[]> getChain() {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(certificate, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            snapshot = null;
+            return Optional.empty();
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Could not read the attributes of the certificate file", e);
+            }
+            return Optional.empty();
+        }
+
+        Snapshot current = snapshot;
+        if (current == null || !current.matches(attributes)) {
+            current = load(attributes);
+            snapshot = current;
+        }
+        return current == null ? Optional.empty() : Optional.of(current.chain.clone());
+    }
+
+    /**
+     * Discards the current snapshot so that the next read parses the file again.
+     */
+    void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot load(BasicFileAttributes attributes) {
+        try (InputStream inputStream = Files.newInputStream(certificate)) {
+            CertificateFactory cf = CertificateFactory.getInstance(X509_CERT);
+            X509Certificate[] chain = cf.generateCertificates(inputStream).stream()
+                    .map(X509Certificate.class::cast)
+                    .toArray(X509Certificate[]::new);
+            if (chain.length == 0) {
+                return null;
+            }
+            return new Snapshot(attributes, chain);
+        } catch (CertificateException | IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Could not create certificate from file", e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Parsed certificate chain along with the attributes of the file it was parsed from.
+     */
+    private static final class Snapshot {
+        private final FileTime lastModified;
+        private final long size;
+        private final Object fileKey;
+        private final X509Certificate[] chain;
+
+        Snapshot(BasicFileAttributes attributes, X509Certificate[] chain) {
+            this.lastModified = attributes.lastModifiedTime();
+            this.size = attributes.size();
+            this.fileKey = attributes.fileKey();
+            this.chain = chain;
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size()
+                    && lastModified.equals(attributes.lastModifiedTime())
+                    && Objects.equals(fileKey, attributes.fileKey());
+        }
+    }
+}
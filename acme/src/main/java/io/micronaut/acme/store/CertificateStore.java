@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.store;
+
+import io.micronaut.context.annotation.DefaultImplementation;
+import io.micronaut.core.annotation.NonNull;
+
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stores the certificates ordered from the ACME server along with their CSR, metadata and OCSP response, and the ACME
+ * account. The default implementation
+ * keeps them in {@code acme.cert-location}, replace it with {@code @Replaces(CertificateStore.class)} to keep them in
+ * an external store.
+ *
+ * <p>Certificates are identified by their name, suffixed with {@link #ECDSA_SUFFIX} for the ECDSA certificate ordered
+ * alongside a certificate. Implementations must never expose a partially stored chain, and should cache the chain as
+ * it is loaded on each handshake setup and renewal check.</p>
+ *
+ * @since 5.3.0
+ */
+@DefaultImplementation(FileSystemCertificateStore.class)
+public interface CertificateStore {
+
+    /**
+     * Suffix of the name of the ECDSA certificate ordered alongside a certificate.
+     */
+    String ECDSA_SUFFIX = "/ec";
+
+    /**
+     * Loads the certificate chain.
+     *
+     * @param name name of the certificate
+     * @return the certificate chain, leaf certificate first, or empty if none has been stored
+     * @throws IOException if the chain could not be loaded
+     */
+    @NonNull
+    Optional<X509Certificate[]> loadChain(@NonNull String name) throws IOException;
+
+    /**
+     * Stores the certificate chain, replacing the previous one.
+     *
+     * @param name  name of the certificate
+     * @param chain the certificate chain, leaf certificate first
+     * @throws IOException if the chain could not be stored
+     */
+    void storeChain(@NonNull String name, @NonNull X509Certificate[] chain) throws IOException;
+
+    /**
+     * Loads the certificate signing request last sent to the ACME server.
+     *
+     * @param name name of the certificate
+     * @return the DER encoded CSR, or empty if none has been stored
+     * @throws IOException if the CSR could not be loaded
+     */
+    @NonNull
+    Optional<byte[]> loadCsr(@NonNull String name) throws IOException;
+
+    /**
+     * Stores the certificate signing request sent to the ACME server, replacing the previous one.
+     *
+     * @param name name of the certificate
+     * @param csr  the DER encoded CSR
+     * @throws IOException if the CSR could not be stored
+     */
+    void storeCsr(@NonNull String name, @NonNull byte[] csr) throws IOException;
+
+    /**
+     * Loads the metadata of the certificate.
+     *
+     * @param name name of the certificate
+     * @return the metadata, empty if none has been stored
+     * @throws IOException if the metadata could not be loaded
+     */
+    @NonNull
+    Map<String, String> loadMetadata(@NonNull String name) throws IOException;
+
+    /**
+     * Stores the metadata of the certificate, replacing the previous metadata.
+     *
+     * @param name     name of the certificate
+     * @param metadata the metadata
+     * @throws IOException if the metadata could not be stored
+     */
+    void storeMetadata(@NonNull String name, @NonNull Map<String, String> metadata) throws IOException;
+
+    /**
+     * Loads the OCSP response last fetched for the certificate.
+     *
+     * @param name name of the certificate
+     * @return the DER encoded OCSP response, or empty if none has been stored
+     * @throws IOException if the response could not be loaded
+     */
+    @NonNull
+    Optional<byte[]> loadOcspResponse(@NonNull String name) throws IOException;
+
+    /**
+     * Stores the OCSP response fetched for the certificate, replacing the previous one.
+     *
+     * @param name     name of the certificate
+     * @param response the DER encoded OCSP response
+     * @throws IOException if the response could not be stored
+     */
+    void storeOcspResponse(@NonNull String name, @NonNull byte[] response) throws IOException;
+
+    /**
+     * Loads the metadata of the ACME account, such as its location on the ACME server.
+     *
+     * @return the account metadata, empty if none has been stored
+     * @throws IOException if the metadata could not be loaded
+     */
+    @NonNull
+    Map<String, String> loadAccountMetadata() throws IOException;
+
+    /**
+     * Stores the metadata of the ACME account, replacing the previous metadata.
+     *
+     * @param metadata the account metadata
+     * @throws IOException if the metadata could not be stored
+     */
+    void storeAccountMetadata(@NonNull Map<String, String> metadata) throws IOException;
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.store;
+
+import io.micronaut.acme.AcmeConfiguration;
+import io.micronaut.acme.CertificateConfiguration;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the certificates in {@code acme.cert-location}: the certificate configured with {@code acme.domains} at its
+ * root, each named certificate in a sub directory named after it, and the ECDSA certificates in an {@code ec} sub
+ * directory of the certificate they are ordered alongside. The ACME account is kept in {@code account.properties} at
+ * the root.
+ *
+ * <p>Files are written to a temporary file in the same directory, synced to disk and then atomically renamed, so that
+ * a crash or a concurrent reader never sees a partially written file. The chains are cached until their file changes,
+ * so that a chain stored by another node sharing the volume is picked up.</p>
+ */
+@Singleton
+final class FileSystemCertificateStore implements CertificateStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileSystemCertificateStore.class);
+    private static final String DOMAIN_CRT = "domain.crt";
+    private static final String DOMAIN_CSR = "domain.csr";
+    private static final String DOMAIN_METADATA = "domain.properties";
+    private static final String DOMAIN_OCSP = "domain.ocsp";
+    private static final String ACCOUNT_METADATA = "account.properties";
+    private static final String ECDSA_LOCATION = "ec";
+    private static final String CERTIFICATE = "CERTIFICATE";
+    private static final String CERTIFICATE_REQUEST = "CERTIFICATE REQUEST";
+    private static final int PEM_LINE_LENGTH = 64;
+
+    private final Path certLocation;
+    private final Map<String, CertificateChainCache> chainCaches = new ConcurrentHashMap<>();
+
+    /**
+     * @param acmeConfiguration Acme configuration
+     */
+    FileSystemCertificateStore(AcmeConfiguration acmeConfiguration) {
+        this.certLocation = acmeConfiguration.getCertLocation().toPath();
+    }
+
+    @Override
+    public Optional<X509Certificate[]> loadChain(String name) {
+        return chainCache(name).getChain();
+    }
+
+    @Override
+    public void storeChain(String name, X509Certificate[] chain) throws IOException {
+        StringBuilder pem = new StringBuilder();
+        try {
+            for (X509Certificate certificate : chain) {
+                appendPem(pem, CERTIFICATE, certificate.getEncoded());
+            }
+        } catch (CertificateEncodingException e) {
+            throw new IOException("Failed to encode the certificate chain", e);
+        }
+        CertificateChainCache chainCache = chainCache(name);
+        try {
+            write(directory(name).resolve(DOMAIN_CRT), pem.toString().getBytes(StandardCharsets.US_ASCII));
+        } finally {
+            chainCache.invalidate();
+        }
+    }
+
+    @Override
+    public Optional<byte[]> loadCsr(String name) throws IOException {
+        String pem;
+        try {
+            pem = new String(Files.readAllBytes(directory(name).resolve(DOMAIN_CSR)), StandardCharsets.US_ASCII);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        String base64 = pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        try {
+            return Optional.of(Base64.getDecoder().decode(base64));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("The stored CSR is not PEM encoded", e);
+        }
+    }
+
+    @Override
+    public void storeCsr(String name, byte[] csr) throws IOException {
+        StringBuilder pem = new StringBuilder();
+        appendPem(pem, CERTIFICATE_REQUEST, csr);
+        write(directory(name).resolve(DOMAIN_CSR), pem.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public Map<String, String> loadMetadata(String name) throws IOException {
+        return readProperties(directory(name).resolve(DOMAIN_METADATA));
+    }
+
+    @Override
+    public void storeMetadata(String name, Map<String, String> metadata) throws IOException {
+        writeProperties(directory(name).resolve(DOMAIN_METADATA), metadata);
+    }
+
+    @Override
+    public Optional<byte[]> loadOcspResponse(String name) throws IOException {
+        try {
+            return Optional.of(Files.readAllBytes(directory(name).resolve(DOMAIN_OCSP)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void storeOcspResponse(String name, byte[] response) throws IOException {
+        write(directory(name).resolve(DOMAIN_OCSP), response);
+    }
+
+    @Override
+    public Map<String, String> loadAccountMetadata() throws IOException {
+        return readProperties(certLocation.resolve(ACCOUNT_METADATA));
+    }
+
+    @Override
+    public void storeAccountMetadata(Map<String, String> metadata) throws IOException {
+        writeProperties(certLocation.resolve(ACCOUNT_METADATA), metadata);
+    }
+
+    private CertificateChainCache chainCache(String name) {
+        return chainCaches.computeIfAbsent(name, n -> new CertificateChainCache(directory(n).resolve(DOMAIN_CRT)));
+    }
+
+    private Path directory(String name) {
+        boolean ecdsa = name.endsWith(ECDSA_SUFFIX);
+        String certificateName = ecdsa ? name.substring(0, name.length() - ECDSA_SUFFIX.length()) : name;
+        Path directory = CertificateConfiguration.DEFAULT_NAME.equals(certificateName) ? certLocation : certLocation.resolve(certificateName);
+        return ecdsa ? directory.resolve(ECDSA_LOCATION) : directory;
+    }
+
+    private static Map<String, String> readProperties(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            properties.load(inputStream);
+        } catch (NoSuchFileException e) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            values.put(key, properties.getProperty(key));
+        }
+        return values;
+    }
+
+    private static void writeProperties(Path file, Map<String, String> values) throws IOException {
+        Properties properties = new Properties();
+        properties.putAll(new TreeMap<>(values));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        properties.store(outputStream, null);
+        write(file, outputStream.toByteArray());
+    }
+
+    /**
+     * Writes the file to a temporary file synced to disk, then atomically renames it over the target.
+     */
+    private static void write(Path target, byte[] content) throws IOException {
+        Path directory = target.getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        syncDirectory(directory);
+    }
+
+    /**
+     * Syncs the directory so that the rename survives a crash. Not supported on every platform.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Could not sync directory {}", directory, e);
+            }
+        }
+    }
+
+    private static void appendPem(StringBuilder pem, String label, byte[] encoded) {
+        Base64.Encoder encoder = Base64.getMimeEncoder(PEM_LINE_LENGTH, "\n".getBytes(StandardCharsets.US_ASCII));
+        pem.append("-----BEGIN ").append(label).append("-----\n")
+                .append(encoder.encodeToString(encoded)).append('\n')
+                .append("-----END ").append(label).append("-----\n");
+    }
+}
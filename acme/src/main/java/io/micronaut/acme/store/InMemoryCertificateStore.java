@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017-2026 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.acme.store;
+
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the certificates in memory only, so that a new certificate is ordered each time the application starts. Meant
+ * for tests and short lived applications, as ordering on each start quickly runs into the rate limits of the ACME
+ * server.
+ */
+@Singleton
+@Replaces(CertificateStore.class)
+@Requires(property = InMemoryCertificateStore.TYPE_PROPERTY, value = InMemoryCertificateStore.TYPE)
+final class InMemoryCertificateStore implements CertificateStore {
+
+    static final String TYPE_PROPERTY = "acme.store.type";
+    static final String TYPE = "memory";
+
+    private final Map<String, X509Certificate[]> chains = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> csrs = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> metadata = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> ocspResponses = new ConcurrentHashMap<>();
+    private volatile Map<String, String> accountMetadata = Collections.emptyMap();
+
+    @Override
+    public Optional<X509Certificate[]> loadChain(String name) {
+        return Optional.ofNullable(chains.get(name)).map(X509Certificate[]::clone);
+    }
+
+    @Override
+    public void storeChain(String name, X509Certificate[] chain) {
+        chains.put(name, chain.clone());
+    }
+
+    @Override
+    public Optional<byte[]> loadCsr(String name) {
+        return Optional.ofNullable(csrs.get(name)).map(byte[]::clone);
+    }
+
+    @Override
+    public void storeCsr(String name, byte[] csr) {
+        csrs.put(name, csr.clone());
+    }
+
+    @Override
+    public Map<String, String> loadMetadata(String name) {
+        return metadata.getOrDefault(name, Collections.emptyMap());
+    }
+
+    @Override
+    public void storeMetadata(String name, Map<String, String> metadata) {
+        this.metadata.put(name, Collections.unmodifiableMap(new HashMap<>(metadata)));
+    }
+
+    @Override
+    public Optional<byte[]> loadOcspResponse(String name) {
+        return Optional.ofNullable(ocspResponses.get(name)).map(byte[]::clone);
+    }
+
+    @Override
+    public void storeOcspResponse(String name, byte[] response) {
+        ocspResponses.put(name, response.clone());
+    }
+
+    @Override
+    public Map<String, String> loadAccountMetadata() {
+        return accountMetadata;
+    }
+
+    @Override
+    public void storeAccountMetadata(Map<String, String> metadata) {
+        this.accountMetadata = Collections.unmodifiableMap(new HashMap<>(metadata));
+    }
+}
@@ -0,0 +1,47 @@
+package io.micronaut.acme
+
+import org.shredzone.acme4j.AccountBuilder
+import org.shredzone.acme4j.Login
+import org.shredzone.acme4j.Order
+import org.shredzone.acme4j.Session
+import org.shredzone.acme4j.util.KeyPairUtils
+import spock.lang.Shared
+import spock.util.concurrent.PollingConditions
+
+class AcmeCertRefresherTaskResumeOrderSpec extends AcmeBaseSpec {
+
+    @Shared
+    String pendingOrderUrl
+
+    Map<String, Object> getConfiguration() {
+        Map<String, Object> configuration = super.getConfiguration() << [
+                "acme.domains": EXPECTED_DOMAIN,
+        ]
+
+        // An order created by a node that restarted before completing it
+        Login login = new AccountBuilder()
+                .onlyExisting()
+                .useKeyPair(KeyPairUtils.readKeyPair(new StringReader(accountKey)))
+                .createLogin(new Session(acmeServerUrl))
+        Order order = login.account.newOrder().domains(EXPECTED_DOMAIN).create()
+        pendingOrderUrl = order.location.toString()
+        Properties metadata = new Properties()
+        metadata.setProperty("pending-order-url", pendingOrderUrl)
+        metadata.setProperty("pending-order-domains", EXPECTED_DOMAIN)
+        metadata.setProperty("pending-order-stage", "created")
+        new File(certFolder, "domain.properties").withOutputStream { metadata.store(it, null) }
+
+        configuration
+    }
+
+    void "the pending order is resumed instead of creating a new one"() {
+        expect:
+        new PollingConditions(timeout: 30).eventually {
+            new File(certFolder, "domain.crt").exists()
+            Properties metadata = new Properties()
+            new File(certFolder, "domain.properties").withInputStream { metadata.load(it) }
+            metadata.getProperty("order-url") == pendingOrderUrl
+            metadata.getProperty("pending-order-url") == null
+        }
+    }
+}
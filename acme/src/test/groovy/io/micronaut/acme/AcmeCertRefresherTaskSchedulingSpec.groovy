@@ -0,0 +1,221 @@
+package io.micronaut.acme
+
+import io.micronaut.acme.background.AcmeCertRefresherTask
+import io.micronaut.acme.events.CertificateEvent
+import io.micronaut.acme.services.AcmeService
+import io.micronaut.runtime.EmbeddedApplication
+import io.micronaut.runtime.event.ApplicationStartupEvent
+import io.micronaut.scheduling.TaskScheduler
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import org.shredzone.acme4j.exception.AcmeException
+import spock.lang.Specification
+
+import java.security.KeyPair
+import java.security.cert.X509Certificate
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ScheduledFuture
+
+class AcmeCertRefresherTaskSchedulingSpec extends Specification {
+
+    static final String DOMAIN = "example.com"
+
+    AcmeService acmeService = Mock(AcmeService)
+    TaskScheduler taskScheduler = Mock(TaskScheduler)
+    List<Duration> delays = []
+    List<Runnable> runnables = []
+    List<ScheduledFuture> futures = []
+    AcmeConfiguration config = new AcmeConfiguration(tosAgree: true, domains: [DOMAIN], renewWitin: Duration.ofDays(30))
+    CompletableFuture<Optional<Instant>> renewalInfo = CompletableFuture.completedFuture(Optional.empty())
+
+    void setup() {
+        acmeService.getSuggestedRenewalTimeAsync(_) >> { renewalInfo }
+        taskScheduler.schedule(_ as Duration, _ as Runnable) >> { Duration delay, Runnable runnable ->
+            delays << delay
+            runnables << runnable
+            ScheduledFuture future = Mock(ScheduledFuture)
+            futures << future
+            future
+        }
+    }
+
+    void "the renewal is scheduled renew-witin before the certificate expires, plus the jitter"() {
+        given:
+        config.refresh.jitter = Duration.ofHours(1)
+        acmeService.getCurrentCertificate() >> certificate(60)
+        def task = new AcmeCertRefresherTask(acmeService, config, [], taskScheduler)
+
+        when:
+        task.onStartup(new ApplicationStartupEvent(Mock(EmbeddedApplication)))
+
+        then:
+        0 * acmeService.orderCertificate(_)
+        delays.size() == 1
+        delays[0] > Duration.ofDays(30).minusMinutes(1)
+        delays[0] <= Duration.ofDays(30).plusHours(1)
+    }
+
+    void "startup does not wait for the certificates when it is not blocking"() {
+        given:
+        config.startup.blocking = false
+        config.refresh.jitter = Duration.ofHours(1)
+        def task = new AcmeCertRefresherTask(acmeService, config, [], taskScheduler)
+
+        when:
+        task.onStartup(new ApplicationStartupEvent(Mock(EmbeddedApplication)))
+
+        then:
+        1 * acmeService.setupCurrentOrPlaceholderCertificate("default")
+        0 * acmeService.orderCertificate(_)
+        0 * acmeService.orderCertificateAsync(_)
+        delays == [Duration.ZERO]
+
+        when:
+        runnables[0].run()
+
+        then:
+        1 * acmeService.orderCertificateAsync([DOMAIN]) >> new CompletableFuture<CertificateEvent>()
+    }
+
+    void "the renewal window suggested by the ACME server is checked again every refresh frequency"() {
+        given:
+        config.refresh.jitter = Duration.ZERO
+        config.refresh.frequency = Duration.ofHours(12)
+        X509Certificate certificate = certificate(60)
+        acmeService.getCurrentCertificate() >> certificate
+        renewalInfo = CompletableFuture.completedFuture(Optional.of(suggested))
+        def task = new AcmeCertRefresherTask(acmeService, config, [], taskScheduler)
+
+        when:
+        task.onStartup(new ApplicationStartupEvent(Mock(EmbeddedApplication)))
+
+        then:
+        delays.size() == 2
+        delays[1] > expected.minusMinutes(1)
+        delays[1] <= expected
+
+        where:
+        suggested                                  | expected
+        Instant.now().plus(Duration.ofDays(10))    | Duration.ofHours(12)
+        Instant.now().plus(Duration.ofHours(2))    | Duration.ofHours(2)
+    }
+
+    void "the renewal is scheduled renew-witin before the certificate expires until the ACME server answered"() {
+        given:
+        config.refresh.jitter = Duration.ZERO
+        renewalInfo = new CompletableFuture<>()
+        acmeService.getCurrentCertificate() >> certificate(60)
+        def task = new AcmeCertRefresherTask(acmeService, config, [], taskScheduler)
+
+        when:
+        task.onCertificate(event())
+
+        then:
+        delays.size() == 1
+        delays[0] > Duration.ofDays(30).minusMinutes(1)
+
+        when:
+        renewalInfo.complete(Optional.of(Instant.now().plus(Duration.ofHours(2))))
+
+        then:
+        1 * futures[0].cancel(false)
+        delays.size() == 2
+        delays[1] > Duration.ofHours(2).minusMinutes(1)
+        delays[1] <= Duration.ofHours(2)
+    }
+
+    void "a blocking startup does not wait for the ACME server to answer"() {
+        given:
+        renewalInfo = new CompletableFuture<>()
+        acmeService.getCurrentCertificate() >> certificate(60)
+        def task = new AcmeCertRefresherTask(acmeService, config, [], taskScheduler)
+
+        when:
+        task.onStartup(new ApplicationStartupEvent(Mock(EmbeddedApplication)))
+
+        then:
+        1 * acmeService.setupCurrentCertificate()
+        0 * acmeService.orderCertificate(_)
+        delays.size() == 1
+        delays[0] > Duration.ofDays(30).minusMinutes(1)
+    }
+
+    void "a late answer of the ACME server does not replace the startup renewal"() {
+        given:
+        config.startup.blocking = false
+        config.refresh.jitter = Duration.ZERO
+        renewalInfo = new CompletableFuture<>()
+        acmeService.getCurrentCertificate() >> certificate(60)
+        def task = new AcmeCertRefresherTask(acmeService, config, [], taskScheduler)
+        acmeService.setupCurrentOrPlaceholderCertificate("default") >> { task.onCertificate(event()) }
+
+        when:
+        task.onStartup(new ApplicationStartupEvent(Mock(EmbeddedApplication)))
+        renewalInfo.complete(Optional.of(Instant.now().plus(Duration.ofHours(2))))
+
+        then:
+        delays.size() == 2
+        delays.last() == Duration.ZERO
+    }
+
+    void "failed background renewals are retried with an exponential backoff"() {
+        given:
+        config.refresh.jitter = Duration.ZERO
+        config.refresh.retryDelay = Duration.ofMinutes(1)
+        config.refresh.maxRetryDelay = Duration.ofMinutes(3)
+        acmeService.getCurrentCertificate() >> certificate(10)
+        acmeService.orderCertificateAsync([DOMAIN]) >> CompletableFuture.failedFuture(new AcmeException("CA unavailable"))
+        def task = new AcmeCertRefresherTask(acmeService, config, [], taskScheduler)
+        task.onCertificate(event())
+
+        when:
+        3.times { runnables.last().run() }
+
+        then:
+        delays == [Duration.ZERO, Duration.ofMinutes(1), Duration.ofMinutes(2), Duration.ofMinutes(3)]
+    }
+
+    void "a new certificate reschedules the renewal"() {
+        given:
+        config.refresh.jitter = Duration.ZERO
+        X509Certificate current = certificate(10)
+        acmeService.getCurrentCertificate() >> { current }
+        def task = new AcmeCertRefresherTask(acmeService, config, [], taskScheduler)
+        task.onCertificate(event())
+
+        when:
+        current = certificate(60)
+        task.onCertificate(event())
+
+        then:
+        1 * futures[0].cancel(false)
+        delays.size() == 2
+        delays[0] == Duration.ZERO
+        delays[1] > Duration.ofDays(30).minusMinutes(1)
+    }
+
+    void "validation certificates do not reschedule the renewal"() {
+        given:
+        def task = new AcmeCertRefresherTask(acmeService, config, [], taskScheduler)
+
+        when:
+        task.onCertificate(new CertificateEvent(keyPair(), true, certificate(1)))
+
+        then:
+        delays.isEmpty()
+    }
+
+    private static CertificateEvent event() {
+        new CertificateEvent(keyPair(), false, certificate(60))
+    }
+
+    private static KeyPair keyPair() {
+        SelfSignedCertificate certificate = new SelfSignedCertificate(DOMAIN)
+        new KeyPair(certificate.cert().publicKey, certificate.key())
+    }
+
+    private static X509Certificate certificate(int expiresInDays) {
+        new SelfSignedCertificate(DOMAIN, new Date(), new Date() + expiresInDays).cert()
+    }
+}
@@ -26,12 +26,17 @@ class AcmeCertRefresherTaskSpec extends AcmeBaseSpec {
     def "get new certificate using existing account"() {
         expect:
             new PollingConditions(timeout: 30).eventually {
-                certFolder.list().length == 2
+                certFolder.list().length == 4
                 certFolder.list().contains("domain.crt")
                 certFolder.list().contains("domain.csr")
             }
     }
 
+    void "the account url is stored so that later orders skip the account lookup"() {
+        expect:
+            new File(certFolder, "account.properties").text.contains("url=")
+    }
+
     void "expect the url to be https"() {
         expect:
             embeddedServer.getURL().toString() == "https://$EXPECTED_DOMAIN:$expectedSecurePort"
@@ -5,6 +5,7 @@ import io.micronaut.acme.services.AcmeService
 import io.micronaut.runtime.EmbeddedApplication
 import io.micronaut.runtime.event.ApplicationStartupEvent
 import io.micronaut.runtime.exceptions.ApplicationStartupException
+import io.micronaut.scheduling.TaskScheduler
 import io.netty.handler.ssl.util.SelfSignedCertificate
 import org.shredzone.acme4j.exception.AcmeException
 import spock.lang.Specification
@@ -18,7 +19,7 @@ class AcmeCertRefresherTaskUnitSpec extends Specification {
 
     def "throw exception if TOS has not been accepted"() {
         given:
-            def task = new AcmeCertRefresherTask(Mock(AcmeService), Mock(AcmeConfiguration))
+            def task = new AcmeCertRefresherTask(Mock(AcmeService), Mock(AcmeConfiguration), [], Mock(TaskScheduler))
 
         when:
             task.renewCertIfNeeded()
@@ -34,7 +35,7 @@ class AcmeCertRefresherTaskUnitSpec extends Specification {
             AcmeConfiguration config = new AcmeConfiguration(tosAgree: true, domains: [expectedDomain], renewWitin: Duration.ofDays(30))
             def mockAcmeSerivce = Mock(AcmeService)
 
-            def task = new AcmeCertRefresherTask(mockAcmeSerivce, config)
+            def task = new AcmeCertRefresherTask(mockAcmeSerivce, config, [], Mock(TaskScheduler))
 
         when:
             task.renewCertIfNeeded()
@@ -51,7 +52,7 @@ class AcmeCertRefresherTaskUnitSpec extends Specification {
             def mockAcmeSerivce = Mock(AcmeService)
             String expectedDomain = "example.com"
             AcmeConfiguration config = new AcmeConfiguration(tosAgree: true, domains: [expectedDomain], renewWitin: Duration.ofDays(daysToRenew))
-            def task = new AcmeCertRefresherTask(mockAcmeSerivce, config)
+            def task = new AcmeCertRefresherTask(mockAcmeSerivce, config, [], Mock(TaskScheduler))
 
         when:
             task.renewCertIfNeeded()
@@ -72,7 +73,7 @@ class AcmeCertRefresherTaskUnitSpec extends Specification {
             def mockAcmeSerivce = Mock(AcmeService)
             def expectedDomains = ["example.com"]
             AcmeConfiguration config = new AcmeConfiguration(tosAgree: true, domains: expectedDomains, renewWitin: Duration.ofDays(100))
-            def task = new AcmeCertRefresherTask(mockAcmeSerivce, config)
+            def task = new AcmeCertRefresherTask(mockAcmeSerivce, config, [], Mock(TaskScheduler))
 
         when:
             task.onStartup(new ApplicationStartupEvent(Mock(EmbeddedApplication)))
@@ -87,4 +88,21 @@ class AcmeCertRefresherTaskUnitSpec extends Specification {
                 throw new AcmeException("Failed to do some ACME related task")
             }
     }
+
+    def "the renewal information is not queried on startup"() {
+        given:
+            def mockAcmeSerivce = Mock(AcmeService)
+            String expectedDomain = "example.com"
+            AcmeConfiguration config = new AcmeConfiguration(tosAgree: true, domains: [expectedDomain], renewWitin: Duration.ofDays(30))
+            def task = new AcmeCertRefresherTask(mockAcmeSerivce, config, [], Mock(TaskScheduler))
+
+        when:
+            task.renewCertIfNeeded()
+
+        then:
+            1 * mockAcmeSerivce.getCurrentCertificate() >> new SelfSignedCertificate(expectedDomain, new Date(), new Date() + 60).cert()
+            0 * mockAcmeSerivce.getSuggestedRenewalTimeAsync(_)
+            0 * mockAcmeSerivce.orderCertificate(_)
+            1 * mockAcmeSerivce.setupCurrentCertificate()
+    }
 }
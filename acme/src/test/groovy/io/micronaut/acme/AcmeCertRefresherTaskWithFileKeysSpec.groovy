@@ -35,7 +35,7 @@ class AcmeCertRefresherTaskWithFileKeysSpec extends AcmeBaseSpec {
     def "get new certificate using existing account"() {
         expect:
             new PollingConditions(timeout: 30).eventually {
-                certFolder.list().length == 2
+                certFolder.list().length == 4
                 certFolder.list().contains("domain.crt")
                 certFolder.list().contains("domain.csr")
             }
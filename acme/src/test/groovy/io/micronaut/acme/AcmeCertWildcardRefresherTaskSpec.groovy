@@ -31,7 +31,7 @@ class AcmeCertWildcardRefresherTaskSpec extends AcmeBaseSpec {
     def "get new certificate using existing account"() {
         expect:
             new PollingConditions(timeout: 30).eventually {
-                certFolder.list().length == 2
+                certFolder.list().length == 4
                 certFolder.list().contains("domain.crt")
                 certFolder.list().contains("domain.csr")
             }
@@ -0,0 +1,84 @@
+package io.micronaut.acme.background
+
+import io.micronaut.acme.AcmeConfiguration
+import io.micronaut.acme.services.AcmeService
+import io.micronaut.runtime.EmbeddedApplication
+import io.micronaut.runtime.event.ApplicationStartupEvent
+import io.micronaut.scheduling.ScheduledExecutorTaskScheduler
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+class CertificateFileWatcherSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    @AutoCleanup("shutdownNow")
+    ExecutorService scheduler = Executors.newScheduledThreadPool(1)
+
+    @AutoCleanup("stop")
+    CertificateFileWatcher watcher
+
+    AcmeService acmeService = Mock(AcmeService)
+    Map<String, AtomicInteger> reloads = [default: new AtomicInteger(), "tenant-a": new AtomicInteger()]
+
+    void setup() {
+        acmeService.getCertificateNames() >> (["default", "tenant-a"] as LinkedHashSet)
+        acmeService.getCertificateLocation("default") >> tempDir.toFile()
+        acmeService.getCertificateLocation("tenant-a") >> tempDir.resolve("tenant-a").toFile()
+        acmeService.hasEcdsaCertificate("tenant-a") >> true
+        acmeService.reloadCertificate(_ as String) >> { String name -> reloads[name].incrementAndGet(); true }
+
+        AcmeConfiguration configuration = new AcmeConfiguration()
+        configuration.watch.debounce = Duration.ofMillis(300)
+        watcher = new CertificateFileWatcher(acmeService, configuration, new ScheduledExecutorTaskScheduler(scheduler))
+        watcher.onStartup(new ApplicationStartupEvent(Mock(EmbeddedApplication)))
+    }
+
+    void "a burst of writes to a certificate file reloads the certificate once"() {
+        when:
+        3.times { Files.writeString(tempDir.resolve("domain.crt"), "chain ${it}") }
+
+        then:
+        new PollingConditions(timeout: 15).eventually {
+            assert reloads["default"].get() == 1
+        }
+        reloads["tenant-a"].get() == 0
+
+        when:
+        sleep(1000)
+
+        then:
+        reloads["default"].get() == 1
+    }
+
+    void "certificates written to the directories of named and ECDSA certificates are reloaded"() {
+        when:
+        Files.writeString(tempDir.resolve("tenant-a").resolve("ec").resolve("domain.crt"), "chain")
+
+        then:
+        new PollingConditions(timeout: 15).eventually {
+            assert reloads["tenant-a"].get() == 1
+        }
+        reloads["default"].get() == 0
+    }
+
+    void "other files do not reload the certificate"() {
+        when:
+        Files.writeString(tempDir.resolve("domain.csr"), "csr")
+        Files.writeString(tempDir.resolve("domain.ocsp"), "ocsp")
+        sleep(1000)
+
+        then:
+        reloads["default"].get() == 0
+    }
+}
@@ -0,0 +1,65 @@
+package io.micronaut.acme.challenge.dns
+
+import spock.lang.Specification
+
+import java.util.concurrent.CompletionException
+
+class DnsChallengeSolverSpec extends Specification {
+
+    void "a batch of records is created through the single record method by default"() {
+        given:
+        RecordingSolver solver = new RecordingSolver()
+
+        when:
+        solver.createRecords(["a.com": "digest-a", "b.com": "digest-b"]).join()
+
+        then:
+        solver.created == ["a.com": "digest-a", "b.com": "digest-b"]
+    }
+
+    void "a failure to create a record fails the batch"() {
+        given:
+        RecordingSolver solver = new RecordingSolver(failOn: "b.com")
+
+        when:
+        solver.createRecords(["a.com": "digest-a", "b.com": "digest-b"]).join()
+
+        then:
+        CompletionException e = thrown()
+        e.cause instanceof IllegalStateException
+    }
+
+    void "every record of a batch is destroyed even if one of them fails"() {
+        given:
+        RecordingSolver solver = new RecordingSolver(failOn: "a.com")
+
+        when:
+        solver.destroyRecords(["a.com", "b.com"]).join()
+
+        then:
+        thrown(CompletionException)
+        solver.destroyed == ["a.com", "b.com"]
+    }
+
+    static class RecordingSolver implements DnsChallengeSolver {
+        Map<String, String> created = [:]
+        List<String> destroyed = []
+        String failOn
+
+        @Override
+        void createRecord(String domain, String digest) {
+            if (domain == failOn) {
+                throw new IllegalStateException("provider rejected " + domain)
+            }
+            created[domain] = digest
+        }
+
+        @Override
+        void destroyRecord(String domain) {
+            destroyed << domain
+            if (domain == failOn) {
+                throw new IllegalStateException("provider rejected " + domain)
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.micronaut.acme.challenge.http.endpoint
+
+import io.micronaut.acme.AcmeConfiguration
+import spock.lang.Specification
+
+class HttpChallengeServerSpec extends Specification {
+
+    AcmeConfiguration config = new AcmeConfiguration(httpChallengeServerPort: 0)
+
+    HttpChallengeServer server = new HttpChallengeServer(config)
+
+    void cleanup() {
+        server.stop()
+    }
+
+    void "the listener only runs while a challenge is pending"() {
+        expect:
+        server.boundPort == -1
+
+        when:
+        server.challengeDetails(new HttpChallengeDetails("token-a", "content-a"))
+        server.challengeDetails(new HttpChallengeDetails("token-b", "content-b"))
+
+        then:
+        server.boundPort > 0
+
+        when:
+        server.challengeCompleted(new HttpChallengeCompleted("token-a"))
+
+        then:
+        server.boundPort > 0
+
+        when:
+        server.challengeCompleted(new HttpChallengeCompleted("token-b"))
+
+        then:
+        server.boundPort == -1
+    }
+
+    void "the tokens of the pending challenges are answered"() {
+        given:
+        server.challengeDetails(new HttpChallengeDetails("token-a", "content-a"))
+
+        when:
+        HttpURLConnection answered = open("/.well-known/acme-challenge/token-a")
+
+        then:
+        answered.responseCode == 200
+        answered.inputStream.text == "content-a"
+
+        when:
+        HttpURLConnection unknown = open("/.well-known/acme-challenge/unknown")
+
+        then:
+        unknown.responseCode == 404
+    }
+
+    void "other requests are redirected to https"() {
+        given:
+        config.httpChallengeServer.httpsPort = httpsPort
+        server = new HttpChallengeServer(config)
+        server.challengeDetails(new HttpChallengeDetails("token-a", "content-a"))
+
+        when:
+        HttpURLConnection connection = open("/some/path?q=1")
+
+        then:
+        connection.responseCode == 301
+        connection.getHeaderField("Location") == location
+
+        where:
+        httpsPort | location
+        443       | "https://localhost/some/path?q=1"
+        8443      | "https://localhost:8443/some/path?q=1"
+    }
+
+    private HttpURLConnection open(String path) {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:${server.boundPort}$path").openConnection()
+        connection.instanceFollowRedirects = false
+        connection
+    }
+}
@@ -50,6 +50,26 @@ class WellKnownTokenControllerSpec extends AcmeBaseSpec {
         response.body() == details.content
     }
 
+    void "pass the tokens of several pending challenges"(){
+        given:
+        def first = new HttpChallengeDetails(randomAlphanumeric(10), randomAlphanumeric(10))
+        def second = new HttpChallengeDetails(randomAlphanumeric(10), randomAlphanumeric(10))
+        embeddedServer.applicationContext.publishEvent(first)
+        embeddedServer.applicationContext.publishEvent(second)
+
+        expect:
+        callWellKnownEndpoint(first.token).body() == first.content
+        callWellKnownEndpoint(second.token).body() == second.content
+
+        when:
+        embeddedServer.applicationContext.publishEvent(new HttpChallengeCompleted(first.token))
+        callWellKnownEndpoint(first.token)
+
+        then:
+        def ex = thrown(HttpClientResponseException)
+        ex.response.status() == HttpStatus.NOT_FOUND
+    }
+
     private HttpResponse<String> callWellKnownEndpoint(String randomToken) {
         client.toBlocking().exchange(HttpRequest.GET("/.well-known/acme-challenge/$randomToken"), String)
     }
@@ -0,0 +1,63 @@
+package io.micronaut.acme.challenge.http.endpoint
+
+import io.micronaut.acme.AcmeConfiguration
+import spock.lang.Specification
+
+import java.time.Duration
+
+class WellKnownTokenControllerUnitSpec extends Specification {
+
+    AcmeConfiguration config = new AcmeConfiguration()
+
+    void "the tokens of every pending challenge are answered"() {
+        given:
+        def controller = new WellKnownTokenController(config)
+
+        when:
+        controller.challengeDetails(new HttpChallengeDetails("token-a", "content-a"))
+        controller.challengeDetails(new HttpChallengeDetails("token-b", "content-b"))
+
+        then:
+        controller.validateToken("token-a") == "content-a"
+        controller.validateToken("token-b") == "content-b"
+        controller.validateToken("TOKEN-A") == null
+        controller.validateToken("unknown") == null
+    }
+
+    void "the token of a completed challenge is no longer answered"() {
+        given:
+        def controller = new WellKnownTokenController(config)
+        controller.challengeDetails(new HttpChallengeDetails("token-a", "content-a"))
+        controller.challengeDetails(new HttpChallengeDetails("token-b", "content-b"))
+
+        when:
+        controller.challengeCompleted(new HttpChallengeCompleted("token-a"))
+
+        then:
+        controller.validateToken("token-a") == null
+        controller.validateToken("token-b") == "content-b"
+    }
+
+    void "tokens are no longer answered once their time to live has passed"() {
+        given:
+        config.auth.challengeTtl = Duration.ofMillis(50)
+        def controller = new WellKnownTokenController(config)
+        controller.challengeDetails(new HttpChallengeDetails("token-a", "content-a"))
+
+        when:
+        sleep(100)
+
+        then:
+        controller.validateToken("token-a") == null
+    }
+
+    void "oversized tokens are rejected without a lookup"() {
+        given:
+        def controller = new WellKnownTokenController(config)
+        String token = "a" * 200
+        controller.challengeDetails(new HttpChallengeDetails(token, "content"))
+
+        expect:
+        controller.validateToken(token) == null
+    }
+}
@@ -0,0 +1,84 @@
+package io.micronaut.acme.challenges
+
+import io.micronaut.acme.AcmeBaseSpec
+import io.micronaut.acme.challenge.dns.DnsChallengeSolver
+import io.micronaut.context.annotation.Replaces
+import jakarta.inject.Singleton
+import spock.lang.Stepwise
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CompletableFuture
+
+@Stepwise
+class AcmeCertRefresherTaskDns01BatchChallengeSpec extends AcmeBaseSpec {
+    Map<String, Object> getConfiguration(){
+        super.getConfiguration() << [
+                "acme.domains": "$EXPECTED_DOMAIN,$EXPECTED_ACME_DOMAIN",
+                "acme.challenge-type" : "dns",
+                "acme.auth.parallel" : true
+        ]
+    }
+
+    @Override
+    Map<String, String> getPebbleEnv(){
+        return [
+                "PEBBLE_VA_ALWAYS_VALID": "1"
+        ]
+    }
+
+    BatchDnsChallengeSolver getSolver() {
+        embeddedServer.applicationContext.getBean(BatchDnsChallengeSolver)
+    }
+
+    def "get new certificate using existing account"() {
+        expect:
+            new PollingConditions(timeout: 30).eventually {
+                certFolder.list().contains("domain.crt")
+            }
+    }
+
+    def "the records of both domains are created in a single batch"() {
+        expect:
+        solver.createdBatches.size() == 1
+        solver.createdBatches[0].keySet() == [EXPECTED_DOMAIN, EXPECTED_ACME_DOMAIN] as Set
+        solver.singleRecordCalls == 0
+    }
+
+    def "the records of both domains are destroyed in a single batch"() {
+        expect:
+        new PollingConditions(timeout: 5).eventually {
+            solver.destroyedBatches == [[EXPECTED_DOMAIN, EXPECTED_ACME_DOMAIN] as Set]
+        }
+    }
+
+    @Singleton
+    @Replaces(DnsChallengeSolver.class)
+    static class BatchDnsChallengeSolver implements DnsChallengeSolver {
+        List<Map<String, String>> createdBatches = [].asSynchronized()
+        List<Set<String>> destroyedBatches = [].asSynchronized()
+        int singleRecordCalls
+
+        @Override
+        void createRecord(String domain, String digest) {
+            singleRecordCalls++
+        }
+
+        @Override
+        void destroyRecord(String domain) {
+            singleRecordCalls++
+        }
+
+        @Override
+        CompletableFuture<Void> createRecords(Map<String, String> records) {
+            createdBatches.add(new HashMap<>(records))
+            // accepted asynchronously, as a provider change set would be
+            CompletableFuture.runAsync({})
+        }
+
+        @Override
+        CompletableFuture<Void> destroyRecords(Collection<String> domains) {
+            destroyedBatches.add(new HashSet<>(domains))
+            CompletableFuture.completedFuture(null)
+        }
+    }
+}
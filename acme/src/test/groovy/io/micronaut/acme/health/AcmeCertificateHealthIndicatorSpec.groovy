@@ -0,0 +1,133 @@
+package io.micronaut.acme.health
+
+import io.micronaut.acme.AcmeConfiguration
+import io.micronaut.acme.challenge.dns.DnsChallengeSolver
+import io.micronaut.acme.events.CertificateEvent
+import io.micronaut.acme.lock.CertificateOrderLock
+import io.micronaut.acme.services.AcmeService
+import io.micronaut.acme.store.CertificateStore
+import io.micronaut.context.ApplicationContext
+import io.micronaut.context.event.ApplicationEventPublisher
+import io.micronaut.core.io.ResourceResolver
+import io.micronaut.health.HealthStatus
+import io.micronaut.management.health.indicator.HealthResult
+import org.bouncycastle.asn1.x500.X500Name
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder
+import org.shredzone.acme4j.util.KeyPairUtils
+import org.reactivestreams.Subscriber
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+import java.security.KeyPair
+import java.security.cert.X509Certificate
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class AcmeCertificateHealthIndicatorSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    @AutoCleanup
+    ApplicationContext context
+
+    @AutoCleanup("shutdownNow")
+    ExecutorService executor = Executors.newCachedThreadPool()
+
+    ApplicationEventPublisher eventPublisher = Mock(ApplicationEventPublisher)
+
+    KeyPair domainKeys = KeyPairUtils.createKeyPair(2048)
+
+    AcmeService acmeService
+
+    AcmeCertificateHealthIndicator healthIndicator
+
+    void setup() {
+        context = ApplicationContext.run(['acme.cert-location': tempDir.toString()])
+        StringWriter domainKey = new StringWriter()
+        KeyPairUtils.writeKeyPair(domainKeys, domainKey)
+        AcmeConfiguration configuration = new AcmeConfiguration(
+                tosAgree: true,
+                domains: ["example.com"],
+                certLocation: tempDir.toFile(),
+                domainKey: domainKey.toString(),
+                accountKey: domainKey.toString(),
+                acmeServer: "https://localhost:1/directory")
+        configuration.startup.placeholderValidity = Duration.ofHours(1)
+        acmeService = new AcmeService(eventPublisher, configuration, new ResourceResolver(), executor, Mock(DnsChallengeSolver), [],
+                context.getBean(CertificateOrderLock), context.getBean(CertificateStore))
+        healthIndicator = new AcmeCertificateHealthIndicator(acmeService)
+    }
+
+    void "the indicator is down until a certificate is set up"() {
+        expect:
+        result().status == HealthStatus.DOWN
+        result().details == [default: false]
+    }
+
+    void "the indicator is down while the self-signed placeholder is served"() {
+        when:
+        acmeService.setupCurrentOrPlaceholderCertificate("default")
+
+        then:
+        1 * eventPublisher.publishEvent({ CertificateEvent event ->
+            X509Certificate placeholder = event.cert
+            placeholder.subjectX500Principal == placeholder.issuerX500Principal &&
+                    placeholder.publicKey == domainKeys.public &&
+                    placeholder.subjectAlternativeNames*.get(1) == ["example.com"] &&
+                    placeholder.notAfter.toInstant() <= Instant.now().plus(Duration.ofHours(1))
+        })
+        result().status == HealthStatus.DOWN
+    }
+
+    void "the indicator is up once a certificate issued by the ACME server is set up"() {
+        given:
+        acmeService.setupCurrentOrPlaceholderCertificate("default")
+
+        when:
+        context.getBean(CertificateStore).storeChain("default", [issued()] as X509Certificate[])
+        acmeService.reloadCertificate("default")
+
+        then:
+        result().status == HealthStatus.UP
+        result().details == [default: true]
+    }
+
+    void "the saved certificate is set up on startup without a placeholder"() {
+        given:
+        X509Certificate issued = issued()
+        context.getBean(CertificateStore).storeChain("default", [issued] as X509Certificate[])
+
+        when:
+        acmeService.setupCurrentOrPlaceholderCertificate("default")
+
+        then:
+        1 * eventPublisher.publishEvent({ CertificateEvent event -> event.cert == issued })
+        result().status == HealthStatus.UP
+    }
+
+    private HealthResult result() {
+        HealthResult result = null
+        healthIndicator.result.subscribe([
+                onSubscribe: { it.request(1) },
+                onNext     : { result = it },
+                onError    : { throw it },
+                onComplete : {}
+        ] as Subscriber<HealthResult>)
+        result
+    }
+
+    private X509Certificate issued() {
+        KeyPair caKeys = KeyPairUtils.createKeyPair(2048)
+        Instant now = Instant.now()
+        def builder = new JcaX509v3CertificateBuilder(new X500Name("CN=Test CA"), BigInteger.TEN,
+                Date.from(now.minus(Duration.ofDays(1))), Date.from(now.plus(Duration.ofDays(60))), new X500Name("CN=example.com"), domainKeys.public)
+        new JcaX509CertificateConverter().getCertificate(builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(caKeys.private)))
+    }
+}
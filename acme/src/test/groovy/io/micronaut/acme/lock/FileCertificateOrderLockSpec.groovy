@@ -0,0 +1,141 @@
+package io.micronaut.acme.lock
+
+import io.micronaut.context.ApplicationContext
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class FileCertificateOrderLockSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    List<ApplicationContext> contexts = []
+
+    void cleanup() {
+        contexts*.close()
+    }
+
+    void "the local lease is used when no lease location is configured"() {
+        given:
+        CertificateOrderLock lock = startNode([:])
+
+        when:
+        Optional<CertificateOrderLock.Lease> lease = lock.tryAcquire("default", Duration.ofMinutes(1))
+
+        then:
+        lock instanceof LocalCertificateOrderLock
+        lease.isPresent()
+        !lock.tryAcquire("default", Duration.ofMinutes(1)).isPresent()
+        lock.tryAcquire("other", Duration.ofMinutes(1)).isPresent()
+
+        when:
+        lease.get().close()
+
+        then:
+        lock.tryAcquire("default", Duration.ofMinutes(1)).isPresent()
+    }
+
+    void "only one of the application contexts sharing the lease location holds the lease"() {
+        given:
+        List<CertificateOrderLock> locks = (1..5).collect { startNode(['acme.lock.location': tempDir.toString()]) }
+        ExecutorService executor = Executors.newFixedThreadPool(locks.size())
+
+        when:
+        List<Optional<CertificateOrderLock.Lease>> leases = executor.invokeAll(locks.collect { lock ->
+            { -> lock.tryAcquire("default", Duration.ofMinutes(1)) } as Callable<Optional<CertificateOrderLock.Lease>>
+        })*.get()
+
+        then:
+        locks.every { it instanceof FileCertificateOrderLock }
+        leases.count { it.isPresent() } == 1
+
+        when:
+        leases.find { it.isPresent() }.get().close()
+
+        then:
+        Files.readString(tempDir.resolve("default.lease.1")) == "released"
+        locks[0].tryAcquire("default", Duration.ofMinutes(1)).isPresent()
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    void "an expired lease is taken over and no longer released by its former owner"() {
+        given:
+        CertificateOrderLock crashed = startNode(['acme.lock.location': tempDir.toString()])
+        CertificateOrderLock other = startNode(['acme.lock.location': tempDir.toString()])
+        CertificateOrderLock.Lease expired = crashed.tryAcquire("default", Duration.ofMillis(1)).get()
+        sleep(20)
+
+        when:
+        Optional<CertificateOrderLock.Lease> lease = other.tryAcquire("default", Duration.ofMinutes(1))
+
+        then:
+        lease.isPresent()
+
+        when:
+        expired.close()
+
+        then:
+        !crashed.tryAcquire("default", Duration.ofMinutes(1)).isPresent()
+        Files.list(tempDir).withCloseable { it.count() } == 1
+    }
+
+    void "only one of three application contexts contending for an expired lease takes it over"() {
+        given:
+        List<CertificateOrderLock> locks = (1..3).collect { startNode(['acme.lock.location': tempDir.toString()]) }
+        ExecutorService executor = Executors.newFixedThreadPool(locks.size())
+
+        when: "the lease expired in each round is contended for by the three contexts at once"
+        List<Integer> holders = (1..20).collect {
+            locks[0].tryAcquire("default", Duration.ofMillis(1)).get()
+            sleep(5)
+            CountDownLatch ready = new CountDownLatch(locks.size())
+            List<Optional<CertificateOrderLock.Lease>> leases = executor.invokeAll(locks.collect { lock ->
+                { ->
+                    ready.countDown()
+                    ready.await()
+                    lock.tryAcquire("default", Duration.ofMinutes(1))
+                } as Callable<Optional<CertificateOrderLock.Lease>>
+            })*.get()
+            List<CertificateOrderLock.Lease> held = leases.findAll { it.isPresent() }*.get()
+            held*.close()
+            held.size()
+        }
+
+        then:
+        holders.every { it == 1 }
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    void "a lease file that was never written expires with its modification time"() {
+        given:
+        CertificateOrderLock lock = startNode(['acme.lock.location': tempDir.toString()])
+        Files.createFile(tempDir.resolve("default.lease.1"))
+
+        expect:
+        !lock.tryAcquire("default", Duration.ofMinutes(1)).isPresent()
+
+        when:
+        sleep(20)
+
+        then:
+        lock.tryAcquire("default", Duration.ofMillis(1)).isPresent()
+    }
+
+    private CertificateOrderLock startNode(Map<String, Object> properties) {
+        ApplicationContext context = ApplicationContext.run(properties)
+        contexts << context
+        context.getBean(CertificateOrderLock)
+    }
+}
@@ -0,0 +1,224 @@
+package io.micronaut.acme.ocsp
+
+import com.sun.net.httpserver.HttpServer
+import io.micronaut.acme.AcmeConfiguration
+import io.micronaut.acme.CertificateConfiguration
+import io.micronaut.acme.events.CertificateEvent
+import io.micronaut.acme.events.OcspResponseEvent
+import io.micronaut.acme.services.AcmeService
+import io.micronaut.acme.store.CertificateStore
+import io.micronaut.context.event.ApplicationEventPublisher
+import org.bouncycastle.asn1.x500.X500Name
+import org.bouncycastle.asn1.x509.AccessDescription
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess
+import org.bouncycastle.asn1.x509.BasicConstraints
+import org.bouncycastle.asn1.x509.Extension
+import org.bouncycastle.asn1.x509.GeneralName
+import org.bouncycastle.cert.X509CertificateHolder
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder
+import org.bouncycastle.cert.ocsp.CertificateStatus
+import org.bouncycastle.cert.ocsp.OCSPReq
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder
+import org.bouncycastle.cert.ocsp.RespID
+import org.bouncycastle.cert.ocsp.RevokedStatus
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder
+import org.shredzone.acme4j.util.KeyPairUtils
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.util.concurrent.BlockingVariable
+import spock.util.concurrent.PollingConditions
+
+import java.security.KeyPair
+import java.security.cert.X509Certificate
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class OcspStaplerSpec extends Specification {
+
+    @Shared
+    KeyPair caKeys = KeyPairUtils.createKeyPair(2048)
+
+    @Shared
+    X509CertificateHolder caHolder = createCa()
+
+    @Shared
+    X509Certificate issuer = new JcaX509CertificateConverter().getCertificate(caHolder)
+
+    @Shared
+    KeyPair domainKeys = KeyPairUtils.createKeyPair(2048)
+
+    @Shared
+    AtomicInteger requests = new AtomicInteger()
+
+    @Shared
+    CertificateStatus status = CertificateStatus.GOOD
+
+    @Shared
+    @AutoCleanup("stop")
+    HttpServer responder = startResponder()
+
+    @Shared
+    X509Certificate certificate = createLeaf(BigInteger.valueOf(42))
+
+    @AutoCleanup("shutdownNow")
+    ExecutorService executor = Executors.newCachedThreadPool()
+
+    Map<String, byte[]> storedResponses = new ConcurrentHashMap<>()
+
+    void setup() {
+        requests.set(0)
+        status = CertificateStatus.GOOD
+    }
+
+    void "fetches and verifies the OCSP response of a certificate"() {
+        when:
+        OcspResponse response = new OcspClient(executor, Duration.ofSeconds(5)).fetch(certificate, issuer).get(10, TimeUnit.SECONDS)
+
+        then:
+        requests.get() == 1
+        response.isValidAt(Instant.now())
+        response.nextUpdate.isAfter(response.thisUpdate)
+        response.refreshDelay(response.thisUpdate, Duration.ofMinutes(10)) == Duration.between(response.thisUpdate, response.nextUpdate).dividedBy(2)
+    }
+
+    void "a response stating the certificate is revoked is rejected"() {
+        given:
+        status = new RevokedStatus(new Date(), 0)
+
+        when:
+        new OcspClient(executor, Duration.ofSeconds(5)).fetch(certificate, issuer).get(10, TimeUnit.SECONDS)
+
+        then:
+        def e = thrown(Exception)
+        e.cause instanceof IOException
+        e.cause.message.contains("is good")
+    }
+
+    void "publishes the response of a new certificate and keeps it in the certificate store"() {
+        given:
+        BlockingVariable<OcspResponseEvent> published = new BlockingVariable<>(10)
+        OcspStapler stapler = newStapler({ published.set(it) } as ApplicationEventPublisher<OcspResponseEvent>)
+
+        when:
+        stapler.onNewCertificate(new CertificateEvent(domainKeys, false, certificate, issuer))
+        OcspResponseEvent event = published.get()
+
+        then:
+        event.name == CertificateConfiguration.DEFAULT_NAME
+        event.certificate == certificate
+        requests.get() == 1
+        storedResponses[CertificateConfiguration.DEFAULT_NAME] == event.ocspResponse
+    }
+
+    void "a stored response is stapled without contacting the responder"() {
+        given:
+        BlockingVariable<OcspResponseEvent> first = new BlockingVariable<>(10)
+        newStapler({ first.set(it) } as ApplicationEventPublisher<OcspResponseEvent>)
+                .onNewCertificate(new CertificateEvent(domainKeys, false, certificate, issuer))
+        byte[] stored = first.get().ocspResponse
+        requests.set(0)
+
+        when:
+        BlockingVariable<OcspResponseEvent> second = new BlockingVariable<>(10)
+        newStapler({ second.set(it) } as ApplicationEventPublisher<OcspResponseEvent>)
+                .onNewCertificate(new CertificateEvent(domainKeys, false, certificate, issuer))
+
+        then:
+        second.get().ocspResponse == stored
+        requests.get() == 0
+    }
+
+    void "a stored response for another certificate is not stapled"() {
+        given:
+        X509Certificate other = createLeaf(BigInteger.valueOf(43))
+        BlockingVariable<OcspResponseEvent> first = new BlockingVariable<>(10)
+        newStapler({ first.set(it) } as ApplicationEventPublisher<OcspResponseEvent>)
+                .onNewCertificate(new CertificateEvent(domainKeys, false, other, issuer))
+        first.get()
+        requests.set(0)
+
+        when:
+        BlockingVariable<OcspResponseEvent> second = new BlockingVariable<>(10)
+        newStapler({ second.set(it) } as ApplicationEventPublisher<OcspResponseEvent>)
+                .onNewCertificate(new CertificateEvent(domainKeys, false, certificate, issuer))
+
+        then:
+        second.get().certificate == certificate
+        requests.get() == 1
+    }
+
+    void "a certificate without an issuer stops the refreshes of the certificate it replaces"() {
+        given:
+        status = new RevokedStatus(new Date(), 0)
+        OcspStapler stapler = newStapler(Mock(ApplicationEventPublisher), Duration.ofMillis(100))
+        stapler.onNewCertificate(new CertificateEvent(domainKeys, false, certificate, issuer))
+        new PollingConditions(timeout: 10).eventually {
+            assert requests.get() >= 2
+        }
+
+        when:
+        stapler.onNewCertificate(new CertificateEvent(domainKeys, false, certificate))
+        Thread.sleep(300)
+        requests.set(0)
+        Thread.sleep(500)
+
+        then:
+        requests.get() == 0
+    }
+
+    private OcspStapler newStapler(ApplicationEventPublisher<OcspResponseEvent> publisher, Duration retryDelay = null) {
+        CertificateStore store = Stub(CertificateStore) {
+            loadOcspResponse(_) >> { String name -> Optional.ofNullable(storedResponses[name]) }
+            storeOcspResponse(_, _) >> { String name, byte[] response -> storedResponses[name] = response }
+        }
+        AcmeConfiguration configuration = new AcmeConfiguration()
+        configuration.ocsp.enabled = true
+        if (retryDelay != null) {
+            configuration.ocsp.retryDelay = retryDelay
+        }
+        new OcspStapler(publisher, Stub(AcmeService), store, configuration, executor)
+    }
+
+    private X509CertificateHolder createCa() {
+        X500Name name = new X500Name("CN=Test OCSP CA")
+        new JcaX509v3CertificateBuilder(name, BigInteger.ONE, new Date() - 1, new Date() + 30, name, caKeys.public)
+                .addExtension(Extension.basicConstraints, true, new BasicConstraints(true))
+                .build(new JcaContentSignerBuilder("SHA256withRSA").build(caKeys.private))
+    }
+
+    private X509Certificate createLeaf(BigInteger serial) {
+        String url = "http://localhost:${responder.address.port}/ocsp"
+        X509CertificateHolder holder = new JcaX509v3CertificateBuilder(caHolder.subject, serial, new Date() - 1, new Date() + 30, new X500Name("CN=example.com"), domainKeys.public)
+                .addExtension(Extension.authorityInfoAccess, false, new AuthorityInformationAccess(AccessDescription.id_ad_ocsp, new GeneralName(GeneralName.uniformResourceIdentifier, url)))
+                .build(new JcaContentSignerBuilder("SHA256withRSA").build(caKeys.private))
+        new JcaX509CertificateConverter().getCertificate(holder)
+    }
+
+    private HttpServer startResponder() {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/ocsp") { exchange ->
+            requests.incrementAndGet()
+            OCSPReq request = new OCSPReq(exchange.requestBody.bytes)
+            BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(new RespID(caHolder.subject))
+            Date now = new Date()
+            request.requestList.each {
+                builder.addResponse(it.certID, status, now, new Date(now.time + Duration.ofDays(7).toMillis()))
+            }
+            def basic = builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(caKeys.private), [caHolder] as X509CertificateHolder[], now)
+            byte[] body = new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basic).encoded
+            exchange.responseHeaders.add("Content-Type", "application/ocsp-response")
+            exchange.sendResponseHeaders(200, body.length)
+            exchange.responseBody.withCloseable { it.write(body) }
+        }
+        server.start()
+        server
+    }
+}
@@ -0,0 +1,97 @@
+package io.micronaut.acme.services
+
+import io.micronaut.acme.AcmeConfiguration
+import io.micronaut.acme.challenge.dns.DnsChallengeSolver
+import io.micronaut.acme.lock.CertificateOrderLock
+import io.micronaut.acme.store.CertificateStore
+import io.micronaut.context.event.ApplicationEventPublisher
+import io.micronaut.core.io.ResourceResolver
+import spock.lang.Requires
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+class AcmeExecutorFactorySpec extends Specification {
+
+    ExecutorService executor
+
+    void cleanup() {
+        executor?.shutdownNow()
+    }
+
+    @Requires({ Runtime.version().feature() >= 21 })
+    void "tasks run on virtual threads when the JDK supports them"() {
+        given:
+        executor = new AcmeExecutorFactory().acmeExecutor(new AcmeConfiguration())
+
+        when:
+        Thread thread = executor.submit({ Thread.currentThread() } as Callable<Thread>).get(5, TimeUnit.SECONDS)
+
+        then:
+        thread.virtual
+        thread.name.startsWith("acme-executor-")
+    }
+
+    void "the platform thread pool runs at most max-threads tasks at once"() {
+        given:
+        AcmeConfiguration configuration = new AcmeConfiguration()
+        configuration.executor.virtualThreads = false
+        configuration.executor.maxThreads = 2
+        executor = new AcmeExecutorFactory().acmeExecutor(configuration)
+        CountDownLatch release = new CountDownLatch(1)
+        Set<String> threads = Collections.synchronizedSet(new HashSet<String>())
+
+        when:
+        List<Future<?>> tasks = (1..4).collect {
+            executor.submit {
+                threads << Thread.currentThread().name
+                release.await(5, TimeUnit.SECONDS)
+            }
+        }
+        Thread.sleep(200)
+
+        then:
+        executor instanceof ThreadPoolExecutor
+        ((ThreadPoolExecutor) executor).activeCount == 2
+        ((ThreadPoolExecutor) executor).queue.size() == 2
+
+        when:
+        release.countDown()
+        tasks*.get(5, TimeUnit.SECONDS)
+
+        then:
+        threads.size() == 2
+        threads.every { it.startsWith("acme-executor-") }
+    }
+
+    void "the polls of an order run on the ACME executor"() {
+        given:
+        AcmeConfiguration configuration = new AcmeConfiguration(domains: ["example.com"])
+        configuration.lock.pollInterval = Duration.ofMillis(10)
+        configuration.lock.waitTimeout = Duration.ofMillis(100)
+        executor = new AcmeExecutorFactory().acmeExecutor(configuration)
+        List<String> pollThreads = new CopyOnWriteArrayList<>()
+        CertificateOrderLock orderLock = Mock(CertificateOrderLock) {
+            tryAcquire(*_) >> {
+                pollThreads << Thread.currentThread().name
+                Optional.empty()
+            }
+        }
+        AcmeService acmeService = new AcmeService(Mock(ApplicationEventPublisher), configuration, new ResourceResolver(), executor,
+                Mock(DnsChallengeSolver), [], orderLock, Mock(CertificateStore))
+
+        when: "the order waits for a lease held by another node until it times out"
+        acmeService.orderCertificateAsync(["example.com"]).toCompletableFuture().handle { v, e -> e }.get(5, TimeUnit.SECONDS)
+
+        then:
+        pollThreads.size() > 1
+        pollThreads.every { it.startsWith("acme-executor-") }
+    }
+}
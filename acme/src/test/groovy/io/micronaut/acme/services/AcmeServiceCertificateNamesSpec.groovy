@@ -0,0 +1,53 @@
+package io.micronaut.acme.services
+
+import io.micronaut.acme.AcmeConfiguration
+import io.micronaut.acme.CertificateConfiguration
+import io.micronaut.acme.challenge.dns.DnsChallengeSolver
+import io.micronaut.acme.lock.CertificateOrderLock
+import io.micronaut.acme.store.CertificateStore
+import io.micronaut.context.event.ApplicationEventPublisher
+import io.micronaut.context.exceptions.ConfigurationException
+import io.micronaut.core.io.ResourceResolver
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.lang.Unroll
+
+import java.nio.file.Path
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class AcmeServiceCertificateNamesSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    @AutoCleanup("shutdownNow")
+    ExecutorService executor = Executors.newCachedThreadPool()
+
+    @Unroll
+    void "the certificate name [#name] is rejected"() {
+        when:
+        newAcmeService(name)
+
+        then:
+        ConfigurationException e = thrown()
+        e.message.contains(name)
+
+        where:
+        name << ["default", "ec", "tenant-a/ec", "../tenant-a", "tenant-a\\ec", "", ".", "..", "tenant a"]
+    }
+
+    void "named certificates are kept in a sub directory named after them"() {
+        expect:
+        newAcmeService("tenant-a").getCertificateLocation("tenant-a") == tempDir.resolve("tenant-a").toFile()
+    }
+
+    private AcmeService newAcmeService(String name) {
+        AcmeConfiguration configuration = new AcmeConfiguration(domains: ["example.com"], certLocation: tempDir.toFile())
+        CertificateConfiguration certificate = new CertificateConfiguration(name)
+        certificate.domains = ["tenant-a.com"]
+        new AcmeService(Mock(ApplicationEventPublisher), configuration, new ResourceResolver(), executor, Mock(DnsChallengeSolver), [certificate],
+                Mock(CertificateOrderLock), Mock(CertificateStore))
+    }
+}
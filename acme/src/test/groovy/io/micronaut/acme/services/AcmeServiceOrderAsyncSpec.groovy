@@ -0,0 +1,118 @@
+package io.micronaut.acme.services
+
+import io.micronaut.acme.AcmeConfiguration
+import io.micronaut.acme.challenge.dns.DnsChallengeSolver
+import io.micronaut.acme.events.CertificateEvent
+import io.micronaut.acme.lock.CertificateOrderLock
+import io.micronaut.acme.store.CertificateStore
+import io.micronaut.context.event.ApplicationEventPublisher
+import io.micronaut.core.io.ResourceResolver
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import org.shredzone.acme4j.exception.AcmeException
+import org.shredzone.acme4j.util.KeyPairUtils
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.security.KeyPair
+import java.security.cert.X509Certificate
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+class AcmeServiceOrderAsyncSpec extends Specification {
+
+    @Shared
+    KeyPair domainKeys = KeyPairUtils.createKeyPair(2048)
+
+    @Shared
+    X509Certificate certificate = new SelfSignedCertificate("example.com").cert()
+
+    @AutoCleanup("shutdownNow")
+    ExecutorService executor = Executors.newSingleThreadExecutor()
+
+    ApplicationEventPublisher eventPublisher = Mock(ApplicationEventPublisher)
+
+    CertificateOrderLock orderLock = Mock(CertificateOrderLock)
+
+    CertificateOrderLock.Lease lease = Mock(CertificateOrderLock.Lease)
+
+    CertificateStore store = Mock(CertificateStore)
+
+    void "the order completes with the published certificate without holding a thread while it waits"() {
+        given:
+        AtomicBoolean released = new AtomicBoolean()
+        orderLock.tryAcquire(*_) >> { released.get() ? Optional.of(lease) : Optional.empty() }
+        store.loadChain("default") >>> [Optional.empty(), Optional.of([certificate] as X509Certificate[])]
+        AcmeService acmeService = newAcmeService()
+
+        when: "another node holds the order lease"
+        CompletableFuture<CertificateEvent> order = acmeService.orderCertificateAsync(["example.com"]).toCompletableFuture()
+
+        then: "the stage is returned right away and the only ACME thread stays free"
+        !order.isDone()
+        executor.submit({ "free" } as Callable<String>).get(1, TimeUnit.SECONDS) == "free"
+
+        when: "the other node stored the certificate and released the lease"
+        released.set(true)
+        CertificateEvent event = order.get(10, TimeUnit.SECONDS)
+
+        then:
+        event.cert == certificate
+        event.domainKeyPair.public == domainKeys.public
+        1 * eventPublisher.publishEvent({ it instanceof CertificateEvent && it.cert == certificate })
+        1 * lease.close()
+    }
+
+    void "a failed order completes the stage exceptionally"() {
+        given:
+        orderLock.tryAcquire(*_) >> Optional.of(lease)
+        store.loadChain("default") >> Optional.empty()
+
+        when:
+        newAcmeService().orderCertificateAsync(["example.com"]).toCompletableFuture().get(10, TimeUnit.SECONDS)
+
+        then:
+        ExecutionException e = thrown()
+        e.cause instanceof AcmeException
+        e.cause.message.contains("No ACME server is configured")
+        1 * lease.close()
+        0 * eventPublisher.publishEvent(_)
+    }
+
+    void "the blocking order waits for the asynchronous one"() {
+        given:
+        AcmeService acmeService = Spy(AcmeService, constructorArgs: constructorArgs())
+
+        when:
+        acmeService.orderCertificate(["example.com"])
+
+        then:
+        1 * acmeService.orderCertificateAsync("default", ["example.com"]) >> CompletableFuture.completedFuture(new CertificateEvent(domainKeys, false, certificate))
+
+        when:
+        acmeService.orderCertificate(["example.com"])
+
+        then:
+        1 * acmeService.orderCertificateAsync("default", ["example.com"]) >> CompletableFuture.failedFuture(new AcmeException("order failed"))
+        AcmeException e = thrown()
+        e.message == "order failed"
+    }
+
+    private AcmeService newAcmeService() {
+        new AcmeService(*constructorArgs())
+    }
+
+    private List<Object> constructorArgs() {
+        StringWriter domainKey = new StringWriter()
+        KeyPairUtils.writeKeyPair(domainKeys, domainKey)
+        AcmeConfiguration configuration = new AcmeConfiguration(domains: ["example.com"], domainKey: domainKey.toString())
+        configuration.lock.pollInterval = Duration.ofMillis(50)
+        [eventPublisher, configuration, new ResourceResolver(), executor, Mock(DnsChallengeSolver), [], orderLock, store]
+    }
+}
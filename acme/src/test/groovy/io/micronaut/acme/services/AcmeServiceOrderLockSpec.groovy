@@ -0,0 +1,105 @@
+package io.micronaut.acme.services
+
+import io.micronaut.acme.AcmeConfiguration
+import io.micronaut.acme.challenge.dns.DnsChallengeSolver
+import io.micronaut.acme.events.CertificateEvent
+import io.micronaut.acme.lock.CertificateOrderLock
+import io.micronaut.acme.store.CertificateStore
+import io.micronaut.context.ApplicationContext
+import io.micronaut.context.event.ApplicationEventPublisher
+import io.micronaut.core.io.ResourceResolver
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import org.shredzone.acme4j.exception.AcmeException
+import org.shredzone.acme4j.util.KeyPairUtils
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.time.Duration
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class AcmeServiceOrderLockSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    @AutoCleanup
+    ApplicationContext node
+
+    @AutoCleanup
+    ApplicationContext otherNode
+
+    @AutoCleanup("shutdownNow")
+    ExecutorService executor = Executors.newCachedThreadPool()
+
+    ApplicationEventPublisher eventPublisher = Mock(ApplicationEventPublisher)
+
+    void setup() {
+        Map<String, Object> properties = ['acme.lock.location': tempDir.resolve("locks").toString(), 'acme.cert-location': tempDir.toString()]
+        node = ApplicationContext.run(properties)
+        otherNode = ApplicationContext.run(properties)
+    }
+
+    void "a node waiting for the lease picks up the certificate ordered by the node holding it"() {
+        given:
+        AcmeService acmeService = newAcmeService(Duration.ofMinutes(1))
+        CertificateOrderLock.Lease lease = otherNode.getBean(CertificateOrderLock).tryAcquire("default", Duration.ofMinutes(1)).get()
+
+        when:
+        def order = acmeService.orderCertificateAsync(["example.com"]).toCompletableFuture()
+        sleep(200)
+
+        then:
+        !order.isDone()
+
+        when: "the other node stores the certificate it ordered and releases the lease"
+        SelfSignedCertificate ordered = new SelfSignedCertificate("example.com")
+        Files.copy(ordered.certificate().toPath(), tempDir.resolve("domain.crt"), StandardCopyOption.REPLACE_EXISTING)
+        lease.close()
+        CertificateEvent event = order.get(10, TimeUnit.SECONDS)
+
+        then:
+        event.cert == ordered.cert()
+        !event.validationCert
+        1 * eventPublisher.publishEvent({ it instanceof CertificateEvent && it.cert == ordered.cert() })
+
+        cleanup:
+        ordered?.delete()
+    }
+
+    void "the order fails when the lease is not released in time"() {
+        given:
+        AcmeService acmeService = newAcmeService(Duration.ofMillis(300))
+        otherNode.getBean(CertificateOrderLock).tryAcquire("default", Duration.ofMinutes(1)).get()
+
+        when:
+        acmeService.orderCertificateAsync(["example.com"]).toCompletableFuture().get(10, TimeUnit.SECONDS)
+
+        then:
+        def e = thrown(ExecutionException)
+        e.cause instanceof AcmeException
+        e.cause.message.contains("Timed out waiting for another node")
+        0 * eventPublisher.publishEvent(_)
+    }
+
+    private AcmeService newAcmeService(Duration waitTimeout) {
+        StringWriter domainKey = new StringWriter()
+        KeyPairUtils.writeKeyPair(KeyPairUtils.createKeyPair(2048), domainKey)
+        AcmeConfiguration configuration = new AcmeConfiguration(
+                tosAgree: true,
+                domains: ["example.com"],
+                certLocation: tempDir.toFile(),
+                domainKey: domainKey.toString(),
+                accountKey: domainKey.toString(),
+                acmeServer: "https://localhost:1/directory")
+        configuration.lock.pollInterval = Duration.ofMillis(50)
+        configuration.lock.waitTimeout = waitTimeout
+        new AcmeService(eventPublisher, configuration, new ResourceResolver(), executor, Mock(DnsChallengeSolver), [], node.getBean(CertificateOrderLock), node.getBean(CertificateStore))
+    }
+}
@@ -0,0 +1,124 @@
+package io.micronaut.acme.services
+
+import io.micronaut.acme.AcmeConfiguration
+import io.micronaut.acme.challenge.dns.DnsChallengeSolver
+import io.micronaut.acme.lock.CertificateOrderLock
+import io.micronaut.acme.store.CertificateStore
+import io.micronaut.context.event.ApplicationEventPublisher
+import io.micronaut.core.io.ResourceResolver
+import org.shredzone.acme4j.Authorization
+import org.shredzone.acme4j.Identifier
+import org.shredzone.acme4j.Order
+import org.shredzone.acme4j.Status
+import org.shredzone.acme4j.challenge.Dns01Challenge
+import org.shredzone.acme4j.exception.AcmeException
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class AcmeServiceParallelAuthorizationSpec extends Specification {
+
+    @AutoCleanup("shutdownNow")
+    ExecutorService executor = Executors.newCachedThreadPool()
+
+    DnsChallengeSolver dnsChallengeSolver = Mock(DnsChallengeSolver)
+
+    List<List<String>> createdBatches = new CopyOnWriteArrayList<>()
+
+    List<List<String>> destroyedBatches = new CopyOnWriteArrayList<>()
+
+    void setup() {
+        dnsChallengeSolver.createRecords(_) >> { Map<String, String> records ->
+            createdBatches << records.keySet().toList()
+            CompletableFuture.completedFuture(null)
+        }
+        dnsChallengeSolver.destroyRecords(_) >> { Collection<String> domains ->
+            destroyedBatches << domains.toList()
+            CompletableFuture.completedFuture(null)
+        }
+    }
+
+    void "the pending authorizations are split into batches of max-concurrency challenges"() {
+        given:
+        AcmeService acmeService = newAcmeService(2)
+        Order order = order(authorization("a.com"), authorization("b.com"), authorization("c.com"), authorization("d.com"), authorization("e.com"))
+
+        when:
+        authorize(acmeService, order)
+
+        then:
+        createdBatches == [["a.com", "b.com"], ["c.com", "d.com"], ["e.com"]]
+        destroyedBatches == createdBatches
+    }
+
+    void "a domain and its wildcard are never authorized in the same batch"() {
+        given:
+        AcmeService acmeService = newAcmeService(10)
+        Order order = order(authorization("example.com"), authorization("example.com"), authorization("other.com"))
+
+        when:
+        authorize(acmeService, order)
+
+        then:
+        createdBatches == [["example.com", "other.com"], ["example.com"]]
+    }
+
+    void "a failing challenge is reported with its domain and the whole batch is cleaned up"() {
+        given:
+        AcmeService acmeService = newAcmeService(2)
+        Order order = order(authorization("a.com"), authorization("b.com", Status.INVALID), authorization("c.com"))
+
+        when:
+        authorize(acmeService, order)
+
+        then:
+        ExecutionException e = thrown()
+        e.cause instanceof AcmeException
+        e.cause.message.contains("for domain b.com")
+
+        and: "both records of the failed batch are destroyed and the next batch is never started"
+        createdBatches == [["a.com", "b.com"]]
+        destroyedBatches == [["a.com", "b.com"]]
+    }
+
+    private static void authorize(AcmeService acmeService, Order order) {
+        // a null certificate is enough for dns-01, whose setup does not need the domain keys
+        ((CompletableFuture<Void>) acmeService.authorizeAsync(null, order)).get(10, TimeUnit.SECONDS)
+    }
+
+    private AcmeService newAcmeService(int maxConcurrency) {
+        AcmeConfiguration configuration = new AcmeConfiguration(domains: ["example.com"], challengeType: AcmeConfiguration.ChallengeType.DNS)
+        configuration.auth.parallel = true
+        configuration.auth.maxConcurrency = maxConcurrency
+        configuration.auth.initialPause = Duration.ofMillis(10)
+        new AcmeService(Mock(ApplicationEventPublisher), configuration, new ResourceResolver(), executor, dnsChallengeSolver, [],
+                Mock(CertificateOrderLock), Mock(CertificateStore))
+    }
+
+    private Order order(Authorization... authorizations) {
+        Mock(Order) {
+            getAuthorizations() >> authorizations.toList()
+        }
+    }
+
+    private Authorization authorization(String domain, Status outcome = Status.VALID) {
+        Dns01Challenge challenge = Mock(Dns01Challenge) {
+            getType() >> Dns01Challenge.TYPE
+            getDigest() >> "digest-" + domain
+            // pending when the challenges are looked up, then the outcome once triggered
+            getStatus() >>> [Status.PENDING, outcome]
+        }
+        Mock(Authorization) {
+            getIdentifier() >> Identifier.dns(domain)
+            getStatus() >> Status.PENDING
+            getChallenges() >> [challenge]
+        }
+    }
+}
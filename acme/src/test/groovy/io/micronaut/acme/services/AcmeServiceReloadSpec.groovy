@@ -0,0 +1,132 @@
+package io.micronaut.acme.services
+
+import io.micronaut.acme.AcmeConfiguration
+import io.micronaut.acme.challenge.dns.DnsChallengeSolver
+import io.micronaut.acme.events.CertificateEvent
+import io.micronaut.acme.lock.CertificateOrderLock
+import io.micronaut.acme.store.CertificateStore
+import io.micronaut.context.ApplicationContext
+import io.micronaut.context.event.ApplicationEventPublisher
+import io.micronaut.core.io.ResourceResolver
+import org.bouncycastle.asn1.x500.X500Name
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder
+import org.shredzone.acme4j.util.KeyPairUtils
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+import java.security.KeyPair
+import java.security.cert.X509Certificate
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class AcmeServiceReloadSpec extends Specification {
+
+    @Shared
+    KeyPair domainKeys = KeyPairUtils.createKeyPair(2048)
+
+    @Shared
+    KeyPair caKeys = KeyPairUtils.createKeyPair(2048)
+
+    @TempDir
+    Path tempDir
+
+    @AutoCleanup
+    ApplicationContext context
+
+    @AutoCleanup("shutdownNow")
+    ExecutorService executor = Executors.newCachedThreadPool()
+
+    ApplicationEventPublisher eventPublisher = Mock(ApplicationEventPublisher)
+
+    AcmeService acmeService
+
+    CertificateStore store
+
+    void setup() {
+        context = ApplicationContext.run(['acme.cert-location': tempDir.toString()])
+        store = context.getBean(CertificateStore)
+        StringWriter domainKey = new StringWriter()
+        KeyPairUtils.writeKeyPair(domainKeys, domainKey)
+        AcmeConfiguration configuration = new AcmeConfiguration(
+                tosAgree: true,
+                domains: ["example.com"],
+                certLocation: tempDir.toFile(),
+                domainKey: domainKey.toString(),
+                accountKey: domainKey.toString(),
+                acmeServer: "https://localhost:1/directory")
+        acmeService = new AcmeService(eventPublisher, configuration, new ResourceResolver(), executor, Mock(DnsChallengeSolver), [],
+                context.getBean(CertificateOrderLock), store)
+    }
+
+    void "a changed chain is set up once"() {
+        given:
+        X509Certificate[] chain = chain(domainKeys, Instant.now().plus(Duration.ofDays(60)))
+        store.storeChain("default", chain)
+
+        when:
+        boolean reloaded = acmeService.reloadCertificate("default")
+
+        then:
+        reloaded
+        1 * eventPublisher.publishEvent({ CertificateEvent event -> event.name == "default" && event.fullCertificateChain.toList() == chain.toList() })
+
+        when:
+        reloaded = acmeService.reloadCertificate("default")
+
+        then:
+        !reloaded
+        0 * eventPublisher.publishEvent(_)
+    }
+
+    void "the chain already set up is not set up again"() {
+        given:
+        store.storeChain("default", chain(domainKeys, Instant.now().plus(Duration.ofDays(60))))
+        acmeService.setupCurrentCertificate()
+
+        when:
+        boolean reloaded = acmeService.reloadCertificate("default")
+
+        then:
+        !reloaded
+        0 * eventPublisher.publishEvent(_)
+    }
+
+    void "an invalid chain is not set up: #description"() {
+        given:
+        store.storeChain("default", chain)
+
+        when:
+        boolean reloaded = acmeService.reloadCertificate("default")
+
+        then:
+        !reloaded
+        0 * eventPublisher.publishEvent(_)
+
+        where:
+        description                        | chain
+        "expired"                          | chain(domainKeys, Instant.now().minus(Duration.ofDays(1)))
+        "issued for another key"           | chain(KeyPairUtils.createKeyPair(2048), Instant.now().plus(Duration.ofDays(60)))
+        "not signed by the next in chain"  | [chain(domainKeys, Instant.now().plus(Duration.ofDays(60)))[0], issuer(KeyPairUtils.createKeyPair(2048))] as X509Certificate[]
+    }
+
+    private X509Certificate[] chain(KeyPair keys, Instant notAfter) {
+        def builder = new JcaX509v3CertificateBuilder(new X500Name("CN=Test CA"), BigInteger.valueOf(System.nanoTime()),
+                Date.from(notAfter.minus(Duration.ofDays(90))), Date.from(notAfter), new X500Name("CN=example.com"), keys.public)
+        X509Certificate leaf = new JcaX509CertificateConverter().getCertificate(builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(caKeys.private)))
+        [leaf, issuer(caKeys)] as X509Certificate[]
+    }
+
+    private X509Certificate issuer(KeyPair keys) {
+        Instant now = Instant.now()
+        def builder = new JcaX509v3CertificateBuilder(new X500Name("CN=Test CA"), BigInteger.ONE,
+                Date.from(now.minus(Duration.ofDays(1))), Date.from(now.plus(Duration.ofDays(365))), new X500Name("CN=Test CA"), keys.public)
+        new JcaX509CertificateConverter().getCertificate(builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keys.private)))
+    }
+}
@@ -0,0 +1,108 @@
+package io.micronaut.acme.services
+
+import com.sun.net.httpserver.HttpServer
+import org.shredzone.acme4j.Session
+import org.shredzone.acme4j.connector.Resource
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicInteger
+
+class AcmeSessionCacheSpec extends Specification {
+
+    @Shared
+    AtomicInteger directoryRequests = new AtomicInteger()
+
+    @Shared
+    @AutoCleanup("stop")
+    HttpServer acmeServer = startAcmeServer()
+
+    void setup() {
+        directoryRequests.set(0)
+    }
+
+    void "a returned session and its directory are reused until the session expires"() {
+        given:
+        AcmeSessionCache sessions = new AcmeSessionCache(url(), Duration.ofSeconds(5), Duration.ofHours(1))
+
+        when:
+        Session first = sessions.acquire().withCloseable {
+            it.session.resourceUrl(Resource.NEW_NONCE)
+            it.session
+        }
+        Session second = sessions.acquire().withCloseable {
+            it.session.resourceUrl(Resource.NEW_NONCE)
+            it.session
+        }
+
+        then:
+        first.is(second)
+        directoryRequests.get() == 1
+        sessions.statistics.sessionsCreated == 1
+        sessions.statistics.sessionsReused == 1
+        first.networkSettings().timeout == Duration.ofSeconds(5)
+    }
+
+    void "a session is not shared while it is checked out"() {
+        given:
+        AcmeSessionCache sessions = new AcmeSessionCache(url(), null, Duration.ofHours(1))
+
+        when:
+        AcmeSessionCache.Lease first = sessions.acquire()
+        AcmeSessionCache.Lease second = sessions.acquire()
+
+        then:
+        !first.session.is(second.session)
+        sessions.statistics.sessionsCreated == 2
+
+        when:
+        second.close()
+        first.close()
+
+        then: "the most recently returned session is reused first"
+        sessions.acquire().session.is(first.session)
+        sessions.statistics.sessionsReused == 1
+    }
+
+    void "a new session fetching the directory again is created once the session expired"() {
+        given:
+        AcmeSessionCache sessions = new AcmeSessionCache(url(), null, Duration.ZERO)
+
+        when:
+        Session first = sessions.acquire().withCloseable {
+            it.session.resourceUrl(Resource.NEW_NONCE)
+            it.session
+        }
+        Session second = sessions.acquire().withCloseable {
+            it.session.resourceUrl(Resource.NEW_NONCE)
+            it.session
+        }
+
+        then:
+        !first.is(second)
+        directoryRequests.get() == 2
+        sessions.statistics.sessionsCreated == 2
+        sessions.statistics.sessionsReused == 0
+    }
+
+    private String url() {
+        "http://localhost:${acmeServer.address.port}/directory"
+    }
+
+    private HttpServer startAcmeServer() {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/directory") { exchange ->
+            directoryRequests.incrementAndGet()
+            byte[] body = """{"newNonce": "http://localhost:${server.address.port}/new-nonce"}""".getBytes(StandardCharsets.UTF_8)
+            exchange.responseHeaders.add("Content-Type", "application/json")
+            exchange.responseHeaders.add("Cache-Control", "max-age=3600")
+            exchange.sendResponseHeaders(200, body.length)
+            exchange.responseBody.withCloseable { it.write(body) }
+        }
+        server.start()
+        server
+    }
+}
@@ -0,0 +1,64 @@
+package io.micronaut.acme.services
+
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.Instant
+
+class AdaptivePollerSpec extends Specification {
+
+    void "the pause starts short and doubles up to the maximum"() {
+        given:
+        AdaptivePoller poller = new AdaptivePoller(Duration.ofMillis(250), Duration.ofSeconds(3), Duration.ofHours(1))
+
+        expect:
+        (1..6).collect { poller.nextDelay() } == [250, 500, 1000, 2000, 3000, 3000].collect { Duration.ofMillis(it) }
+    }
+
+    void "a retry after is honoured exactly, even past the maximum pause"() {
+        given:
+        AdaptivePoller poller = new AdaptivePoller(Duration.ofMillis(250), Duration.ofSeconds(3), Duration.ofHours(1))
+
+        when:
+        poller.retryAfter(Instant.now().plusSeconds(10))
+        poller.retryAfter(Instant.now().plusSeconds(20))
+        Duration delay = poller.nextDelay()
+
+        then: "the latest retry after wins"
+        delay > Duration.ofSeconds(19)
+        delay <= Duration.ofSeconds(20)
+
+        and: "the backoff resumes where it was"
+        poller.nextDelay() == Duration.ofMillis(250)
+    }
+
+    void "a retry after in the past does not delay the next check"() {
+        given:
+        AdaptivePoller poller = new AdaptivePoller(Duration.ofMillis(250), Duration.ofSeconds(3), Duration.ofHours(1))
+
+        when:
+        poller.retryAfter(Instant.now().minusSeconds(5))
+
+        then:
+        poller.nextDelay() == Duration.ZERO
+    }
+
+    void "no delay goes past the deadline"() {
+        given:
+        AdaptivePoller poller = new AdaptivePoller(Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(1))
+
+        when:
+        poller.retryAfter(Instant.now().plusSeconds(60))
+
+        then:
+        poller.nextDelay() <= Duration.ofSeconds(1)
+        !poller.expired
+
+        when:
+        AdaptivePoller expired = new AdaptivePoller(Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ZERO)
+
+        then:
+        expired.expired
+        expired.nextDelay() == Duration.ZERO
+    }
+}
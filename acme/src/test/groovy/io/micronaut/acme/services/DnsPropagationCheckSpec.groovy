@@ -0,0 +1,155 @@
+package io.micronaut.acme.services
+
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ConcurrentHashMap
+
+class DnsPropagationCheckSpec extends Specification {
+
+    @AutoCleanup
+    StandInDnsServer first = new StandInDnsServer()
+
+    @AutoCleanup
+    StandInDnsServer second = new StandInDnsServer()
+
+    void "a record is visible once every DNS server answers it"() {
+        given:
+        DnsPropagationCheck check = new DnsPropagationCheck([first.address, second.address])
+
+        expect:
+        !check.isVisible("example.com", "digest")
+
+        when:
+        first.txtRecords["_acme-challenge.example.com"] = ["digest"]
+
+        then:
+        !check.isVisible("example.com", "digest")
+
+        when:
+        second.txtRecords["_acme-challenge.example.com"] = ["other", "digest"]
+
+        then:
+        check.isVisible("example.com", "digest")
+        !check.isVisible("example.com", "stale")
+        !check.isVisible("other.com", "digest")
+    }
+
+    void "an unreachable DNS server does not see the record"() {
+        given:
+        first.txtRecords["_acme-challenge.example.com"] = ["digest"]
+        second.close()
+        DnsPropagationCheck check = new DnsPropagationCheck([first.address, second.address])
+
+        expect:
+        !check.isVisible("example.com", "digest")
+    }
+
+    void "a record delegated to another zone through a CNAME is looked up in that zone"() {
+        given:
+        DnsPropagationCheck check = new DnsPropagationCheck([first.address, second.address])
+        [first, second].each {
+            it.cnameRecords["_acme-challenge.example.com"] = "_acme-challenge.example.com.acme-dns.test"
+            it.cnameRecords["_acme-challenge.example.com.acme-dns.test"] = "d420c923.auth.acme-dns.test"
+        }
+
+        expect:
+        !check.isVisible("example.com", "digest")
+
+        when:
+        first.txtRecords["d420c923.auth.acme-dns.test"] = ["digest"]
+        second.txtRecords["d420c923.auth.acme-dns.test"] = ["digest"]
+
+        then:
+        check.isVisible("example.com", "digest")
+        !check.isVisible("example.com", "stale")
+    }
+
+    /**
+     * Minimal UDP DNS server answering the TXT and CNAME queries of the names it knows, NXDOMAIN otherwise.
+     */
+    static class StandInDnsServer implements Closeable {
+        final Map<String, List<String>> txtRecords = new ConcurrentHashMap<>()
+        final Map<String, String> cnameRecords = new ConcurrentHashMap<>()
+        private final DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())
+        private final Thread thread = Thread.startDaemon("stand-in-dns") { serve() }
+
+        String getAddress() {
+            "127.0.0.1:${socket.localPort}"
+        }
+
+        private void serve() {
+            byte[] buffer = new byte[512]
+            while (!socket.closed) {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length)
+                try {
+                    socket.receive(packet)
+                } catch (IOException ignored) {
+                    return
+                }
+                byte[] response = answer(ByteBuffer.wrap(packet.data, 0, packet.length))
+                socket.send(new DatagramPacket(response, response.length, packet.socketAddress))
+            }
+        }
+
+        private byte[] answer(ByteBuffer query) {
+            short id = query.getShort(0)
+            int offset = 12
+            List<String> labels = []
+            while (query.get(offset) != 0) {
+                int length = query.get(offset)
+                labels << new String(query.array(), offset + 1, length, StandardCharsets.US_ASCII)
+                offset += length + 1
+            }
+            int questionEnd = offset + 5
+            int type = query.getShort(offset + 1)
+            String name = labels.join(".").toLowerCase()
+            List<String> values = txtRecords[name]
+            String cname = cnameRecords[name]
+            boolean txt = values != null && type == 16
+            boolean alias = cname != null && type == 5
+
+            ByteBuffer response = ByteBuffer.allocate(512)
+            response.putShort(id)
+            response.putShort((short) (values == null && cname == null ? 0x8583 : 0x8580))
+            response.putShort((short) 1)
+            response.putShort((short) (txt ? values.size() : alias ? 1 : 0))
+            response.putShort((short) 0)
+            response.putShort((short) 0)
+            response.put(query.array(), 12, questionEnd - 12)
+            if (txt) {
+                for (String value : values) {
+                    byte[] bytes = value.getBytes(StandardCharsets.US_ASCII)
+                    response.putShort((short) 0xC00C)
+                    response.putShort((short) 16)
+                    response.putShort((short) 1)
+                    response.putInt(0)
+                    response.putShort((short) (bytes.length + 1))
+                    response.put((byte) bytes.length)
+                    response.put(bytes)
+                }
+            } else if (alias) {
+                ByteArrayOutputStream target = new ByteArrayOutputStream()
+                for (String label : cname.split("\\.")) {
+                    target.write(label.length())
+                    target.write(label.getBytes(StandardCharsets.US_ASCII))
+                }
+                target.write(0)
+                response.putShort((short) 0xC00C)
+                response.putShort((short) 5)
+                response.putShort((short) 1)
+                response.putInt(0)
+                response.putShort((short) target.size())
+                response.put(target.toByteArray())
+            }
+            Arrays.copyOf(response.array(), response.position())
+        }
+
+        @Override
+        void close() {
+            socket.close()
+        }
+    }
+}
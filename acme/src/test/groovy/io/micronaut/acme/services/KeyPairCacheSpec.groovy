@@ -0,0 +1,62 @@
+package io.micronaut.acme.services
+
+import io.micronaut.core.io.ResourceResolver
+import org.shredzone.acme4j.util.KeyPairUtils
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.security.KeyPair
+import java.time.Instant
+
+class KeyPairCacheSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    KeyPairCache cache = new KeyPairCache(new ResourceResolver())
+
+    void "inline keys are decoded once"() {
+        given:
+        KeyPair keyPair = KeyPairUtils.createKeyPair(2048)
+        String pem = toPem(keyPair)
+
+        when:
+        KeyPair first = cache.get(pem)
+
+        then:
+        first.public == keyPair.public
+        first.is(cache.get(pem))
+    }
+
+    void "file keys are decoded again only when the file changes"() {
+        given:
+        Path keyFile = tempDir.resolve("domain.pem")
+        Files.writeString(keyFile, toPem(KeyPairUtils.createKeyPair(2048)))
+        String location = "file:" + keyFile.toAbsolutePath()
+
+        when:
+        KeyPair first = cache.get(location)
+
+        then:
+        first.is(cache.get(location))
+
+        when:
+        KeyPair replacement = KeyPairUtils.createKeyPair(2048)
+        Files.writeString(keyFile, toPem(replacement))
+        Files.setLastModifiedTime(keyFile, FileTime.from(Instant.now().plusSeconds(60)))
+        KeyPair second = cache.get(location)
+
+        then:
+        !second.is(first)
+        second.public == replacement.public
+    }
+
+    private static String toPem(KeyPair keyPair) {
+        StringWriter writer = new StringWriter()
+        KeyPairUtils.writeKeyPair(keyPair, writer)
+        writer.toString()
+    }
+}
@@ -0,0 +1,172 @@
+package io.micronaut.acme.services
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import org.bouncycastle.asn1.x500.X500Name
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier
+import org.bouncycastle.asn1.x509.Extension
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder
+import org.shredzone.acme4j.Session
+import org.shredzone.acme4j.toolbox.AcmeUtils
+import org.shredzone.acme4j.util.KeyPairUtils
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.security.KeyPair
+import java.security.cert.X509Certificate
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class RenewalInfoClientSpec extends Specification {
+
+    static final byte[] KEY_IDENTIFIER = "69885b6b87464041e1b37b847ba0ae2cde01c8d4".decodeHex()
+
+    @Shared
+    KeyPair keys = KeyPairUtils.createKeyPair(2048)
+
+    @Shared
+    List<String> requests = new CopyOnWriteArrayList<>()
+
+    @Shared
+    Instant windowStart
+
+    @Shared
+    Instant windowEnd
+
+    @Shared
+    @AutoCleanup("stop")
+    HttpServer acmeServer = startAcmeServer()
+
+    @AutoCleanup("shutdownNow")
+    ExecutorService executor = Executors.newCachedThreadPool()
+
+    void setup() {
+        requests.clear()
+        windowStart = Instant.now().plus(Duration.ofDays(50))
+        windowEnd = windowStart.plus(Duration.ofDays(2))
+    }
+
+    void "the renewal time is picked within the suggested window and cached until the retry after"() {
+        given:
+        RenewalInfoClient client = newClient("/directory")
+        X509Certificate certificate = createCertificate(42, KEY_IDENTIFIER)
+        Instant now = Instant.now()
+
+        when:
+        Optional<Instant> renewalTime = getRenewalTime(client, certificate, now)
+
+        then:
+        renewalTime.isPresent()
+        !renewalTime.get().isBefore(windowStart)
+        !renewalTime.get().isAfter(windowEnd)
+        requests == ["/renewal-info/" + AcmeUtils.getRenewalUniqueIdentifier(certificate)]
+
+        when: "queried again before the retry after"
+        Optional<Instant> cached = getRenewalTime(client, certificate, now.plus(Duration.ofMinutes(30)))
+
+        then:
+        cached == renewalTime
+        requests.size() == 1
+        client.getRenewalTimeAsync(certificate, now.plus(Duration.ofMinutes(30))).isDone()
+
+        when: "queried again after the retry after with an unchanged window"
+        Optional<Instant> refreshed = getRenewalTime(client, certificate, now.plus(Duration.ofHours(2)))
+
+        then:
+        refreshed == renewalTime
+        requests.size() == 2
+    }
+
+    void "a new renewal time is picked when the ACME server moves the window"() {
+        given:
+        RenewalInfoClient client = newClient("/directory")
+        X509Certificate certificate = createCertificate(43, KEY_IDENTIFIER)
+        Instant now = Instant.now()
+        getRenewalTime(client, certificate, now)
+
+        when: "the CA asks for an early renewal"
+        windowStart = now.minus(Duration.ofHours(1))
+        windowEnd = now
+        Optional<Instant> renewalTime = getRenewalTime(client, certificate, now.plus(Duration.ofHours(2)))
+
+        then:
+        renewalTime.isPresent()
+        !renewalTime.get().isAfter(now)
+        requests.size() == 2
+    }
+
+    void "nothing is suggested when the ACME server does not provide renewal information"() {
+        given:
+        RenewalInfoClient client = newClient("/directory-without-ari")
+
+        expect:
+        !getRenewalTime(client, createCertificate(44, KEY_IDENTIFIER), Instant.now()).isPresent()
+        requests.isEmpty()
+    }
+
+    void "nothing is suggested for certificates without an authority key identifier"() {
+        given:
+        RenewalInfoClient client = newClient("/directory")
+
+        expect:
+        !getRenewalTime(client, createCertificate(45, null), Instant.now()).isPresent()
+        requests.isEmpty()
+    }
+
+    private RenewalInfoClient newClient(String directory) {
+        RenewalInfoClient.AccountLogin login = { Session session -> session.login(URI.create(url("/account/1")).toURL(), keys) }
+        new RenewalInfoClient(new AcmeSessionCache(url(directory), null, Duration.ofHours(1)), login, executor, Duration.ofHours(6))
+    }
+
+    private Optional<Instant> getRenewalTime(RenewalInfoClient client, X509Certificate certificate, Instant now) {
+        client.getRenewalTimeAsync(certificate, now).get(10, TimeUnit.SECONDS)
+    }
+
+    private String url(String path) {
+        "http://localhost:${acmeServer.address.port}${path}"
+    }
+
+    private X509Certificate createCertificate(long serial, byte[] keyIdentifier) {
+        Instant now = Instant.now()
+        def builder = new JcaX509v3CertificateBuilder(new X500Name("CN=Test CA"), BigInteger.valueOf(serial),
+                Date.from(now), Date.from(now.plus(Duration.ofDays(90))), new X500Name("CN=example.com"), keys.public)
+        if (keyIdentifier != null) {
+            builder.addExtension(Extension.authorityKeyIdentifier, false, new AuthorityKeyIdentifier(keyIdentifier))
+        }
+        new JcaX509CertificateConverter().getCertificate(builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keys.private)))
+    }
+
+    private HttpServer startAcmeServer() {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/directory") { exchange ->
+            String base = "http://localhost:${server.address.port}"
+            if (exchange.requestURI.path == "/directory-without-ari") {
+                respond(exchange, """{"newNonce": "${base}/new-nonce"}""")
+            } else {
+                respond(exchange, """{"newNonce": "${base}/new-nonce", "renewalInfo": "${base}/renewal-info"}""")
+            }
+        }
+        server.createContext("/renewal-info/") { exchange ->
+            requests << exchange.requestURI.path
+            exchange.responseHeaders.add("Retry-After", "3600")
+            respond(exchange, """{"suggestedWindow": {"start": "${windowStart}", "end": "${windowEnd}"}}""")
+        }
+        server.start()
+        server
+    }
+
+    private static void respond(HttpExchange exchange, String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8)
+        exchange.responseHeaders.add("Content-Type", "application/json")
+        exchange.sendResponseHeaders(200, body.length)
+        exchange.responseBody.withCloseable { it.write(body) }
+    }
+}
@@ -0,0 +1,134 @@
+package io.micronaut.acme.ssl
+
+import io.micronaut.acme.events.CertificateEvent
+import io.micronaut.acme.events.TlsAlpnChallengeCompleted
+import io.micronaut.http.ssl.ServerSslConfiguration
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.ByteBufAllocator
+import io.netty.buffer.Unpooled
+import io.netty.channel.embedded.EmbeddedChannel
+import io.netty.handler.ssl.ApplicationProtocolConfig
+import io.netty.handler.ssl.SslContext
+import io.netty.handler.ssl.SslContextBuilder
+import io.netty.handler.ssl.SslProvider
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import org.shredzone.acme4j.Identifier
+import org.shredzone.acme4j.challenge.TlsAlpn01Challenge
+import org.shredzone.acme4j.util.CertificateUtils
+import org.shredzone.acme4j.util.KeyPairUtils
+import spock.lang.Specification
+
+import javax.net.ssl.SSLEngine
+import java.nio.ByteBuffer
+import java.security.KeyPair
+
+class AcmeSniHandlerSpec extends Specification {
+
+    void "the host name of a handshake offering acme-tls/1 is read from the ClientHello"() {
+        expect:
+        AcmeSniHandler.acmeTlsHostname(clientHello("example.com", TlsAlpn01Challenge.ACME_TLS_1_PROTOCOL)) == "example.com"
+        AcmeSniHandler.acmeTlsHostname(clientHello("example.com", "h2", TlsAlpn01Challenge.ACME_TLS_1_PROTOCOL)) == "example.com"
+    }
+
+    void "handshakes not offering acme-tls/1 are not validations"() {
+        expect:
+        AcmeSniHandler.acmeTlsHostname(clientHello("example.com", "h2", "http/1.1")) == null
+        AcmeSniHandler.acmeTlsHostname(clientHello("example.com")) == null
+    }
+
+    void "truncated ClientHello messages are not validations"() {
+        given:
+        ByteBuf hello = clientHello("example.com", TlsAlpn01Challenge.ACME_TLS_1_PROTOCOL)
+
+        expect:
+        AcmeSniHandler.acmeTlsHostname(hello.slice(0, hello.readableBytes() - 8)) == null
+        AcmeSniHandler.acmeTlsHostname(hello.slice(0, 20)) == null
+        AcmeSniHandler.acmeTlsHostname(Unpooled.EMPTY_BUFFER) == null
+    }
+
+    void "a validation certificate is served next to the production context"() {
+        given:
+        AcmeSSLContextBuilder builder = new AcmeSSLContextBuilder(Stub(ServerSslConfiguration))
+        SslContext production = builder.build().get()
+        KeyPair keyPair = KeyPairUtils.createKeyPair(2048)
+
+        when:
+        builder.onNewCertificate(validationEvent(keyPair, "example.com"))
+
+        then:
+        builder.build().get().is(production)
+        !((DelegatedSslContext) production).hasSslContext()
+        !builder.validations.isEmpty()
+
+        when:
+        SslContext validation = builder.validations.retain("EXAMPLE.com")
+
+        then:
+        validation != null
+        builder.validations.retain("other.com") == null
+
+        when:
+        builder.onTlsAlpnChallengeCompleted(new TlsAlpnChallengeCompleted("example.com"))
+
+        then:
+        builder.validations.isEmpty()
+        builder.validations.retain("example.com") == null
+    }
+
+    void "only handshakes offering acme-tls/1 for the validated domain get the validation certificate"() {
+        given:
+        SelfSignedCertificate certificate = new SelfSignedCertificate("production.com")
+        SslContext production = SslContextBuilder.forServer(certificate.key(), certificate.cert()).sslProvider(SslProvider.JDK).build()
+        AcmeSSLContextBuilder builder = new AcmeSSLContextBuilder(Stub(ServerSslConfiguration))
+        builder.onNewCertificate(validationEvent(KeyPairUtils.createKeyPair(2048), "example.com"))
+        AcmeSniHandler handler = new AcmeSniHandler({ hostname -> production }, builder.validations, 10_000)
+        EmbeddedChannel channel = new EmbeddedChannel(handler)
+
+        when:
+        channel.writeInbound(record(hostname, protocols as String[]))
+
+        then:
+        handler.sslContext().is(production) == expectProduction
+
+        cleanup:
+        channel.finishAndReleaseAll()
+
+        where:
+        hostname      | protocols                                    | expectProduction
+        "example.com" | [TlsAlpn01Challenge.ACME_TLS_1_PROTOCOL]     | false
+        "other.com"   | [TlsAlpn01Challenge.ACME_TLS_1_PROTOCOL]     | true
+        "example.com" | ["h2", "http/1.1"]                           | true
+    }
+
+    private static CertificateEvent validationEvent(KeyPair keyPair, String domain) {
+        new CertificateEvent(keyPair, true, CertificateUtils.createTlsAlpn01Certificate(keyPair, Identifier.dns(domain), new byte[32]))
+    }
+
+    /**
+     * @return the ClientHello message, starting at its protocol version as the handler is given it
+     */
+    private static ByteBuf clientHello(String hostname, String... protocols) {
+        ByteBuf record = record(hostname, protocols)
+        // record header and handshake header
+        record.slice(9, record.readableBytes() - 9)
+    }
+
+    private static ByteBuf record(String hostname, String... protocols) {
+        SslContextBuilder builder = SslContextBuilder.forClient()
+                .sslProvider(SslProvider.JDK)
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+        if (protocols) {
+            builder.applicationProtocolConfig(new ApplicationProtocolConfig(
+                    ApplicationProtocolConfig.Protocol.ALPN,
+                    ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                    ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                    protocols))
+        }
+        SSLEngine engine = builder.build().newEngine(ByteBufAllocator.DEFAULT, hostname, 443)
+        ByteBuffer out = ByteBuffer.allocate(engine.session.packetBufferSize)
+        engine.wrap(ByteBuffer.allocate(0), out)
+        out.flip()
+        Unpooled.wrappedBuffer(out)
+    }
+}
@@ -0,0 +1,123 @@
+package io.micronaut.acme.ssl
+
+import io.micronaut.acme.CertificateConfiguration
+import io.micronaut.acme.events.CertificateEvent
+import io.micronaut.http.ssl.ServerSslConfiguration
+import io.netty.buffer.ByteBufAllocator
+import io.netty.channel.embedded.EmbeddedChannel
+import io.netty.handler.ssl.SslContext
+import io.netty.handler.ssl.SslContextBuilder
+import io.netty.handler.ssl.SslHandler
+import io.netty.handler.ssl.SslProvider
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.security.KeyPair
+import java.security.cert.X509Certificate
+
+class AcmeSniHandshakeSpec extends Specification {
+
+    @Shared
+    SelfSignedCertificate defaultCertificate = new SelfSignedCertificate("example.com")
+
+    @Shared
+    SelfSignedCertificate tenantCertificate = new SelfSignedCertificate("tenant-a.com")
+
+    @Shared
+    SelfSignedCertificate rsaCertificate = new SelfSignedCertificate("example.com", "RSA", 2048)
+
+    @Shared
+    SelfSignedCertificate ecCertificate = new SelfSignedCertificate("example.com", "EC", 256)
+
+    @Unroll
+    void "a handshake for #hostname is served the #expected certificate"() {
+        given:
+        CertificateConfiguration tenant = new CertificateConfiguration("tenant-a")
+        tenant.domains = ["tenant-a.com", "*.tenant-a.com"]
+        AcmeSSLContextBuilder builder = new AcmeSSLContextBuilder(Stub(ServerSslConfiguration), [tenant], false)
+        builder.onNewCertificate(event(CertificateConfiguration.DEFAULT_NAME, defaultCertificate))
+        builder.onNewCertificate(event("tenant-a", tenantCertificate))
+
+        when:
+        X509Certificate served = handshake(builder, client(), hostname)
+
+        then:
+        served == this."$expected".cert()
+
+        where:
+        hostname           | expected
+        "tenant-a.com"     | "tenantCertificate"
+        "api.tenant-a.com" | "tenantCertificate"
+        "example.com"      | "defaultCertificate"
+        "unknown.com"      | "defaultCertificate"
+    }
+
+    @Unroll
+    void "a client negotiating #cipherSuite is served the #keyType certificate of the dual context"() {
+        given:
+        AcmeSSLContextBuilder builder = new AcmeSSLContextBuilder(Stub(ServerSslConfiguration))
+        builder.onNewCertificate(event(CertificateConfiguration.DEFAULT_NAME, rsaCertificate))
+        builder.onNewCertificate(event(CertificateConfiguration.DEFAULT_NAME, ecCertificate))
+        SslContext client = SslContextBuilder.forClient()
+                .sslProvider(SslProvider.JDK)
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .protocols("TLSv1.2")
+                .ciphers([cipherSuite])
+                .build()
+
+        when:
+        X509Certificate served = handshake(builder, client, "example.com")
+
+        then:
+        served.publicKey.algorithm == keyType
+        served == this."${keyType == "EC" ? "ecCertificate" : "rsaCertificate"}".cert()
+
+        where:
+        cipherSuite                               | keyType
+        "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256" | "EC"
+        "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256"   | "RSA"
+    }
+
+    private static SslContext client() {
+        SslContextBuilder.forClient()
+                .sslProvider(SslProvider.JDK)
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .build()
+    }
+
+    private static CertificateEvent event(String name, SelfSignedCertificate certificate) {
+        new CertificateEvent(name, new KeyPair(certificate.cert().publicKey, certificate.key()), false, certificate.cert())
+    }
+
+    /**
+     * Runs a handshake between a client sending the host name through SNI and the server handler, in memory.
+     *
+     * @return the certificate the client was served
+     */
+    private static X509Certificate handshake(AcmeSSLContextBuilder builder, SslContext client, String hostname) {
+        SslHandler clientHandler = client.newHandler(ByteBufAllocator.DEFAULT, hostname, 443)
+        EmbeddedChannel server = new EmbeddedChannel(new AcmeSniHandler(builder.sniMapping, builder.validations, 10_000))
+        EmbeddedChannel clientChannel = new EmbeddedChannel(clientHandler)
+        try {
+            for (int i = 0; i < 10 && !clientHandler.handshakeFuture().isDone(); i++) {
+                transfer(clientChannel, server)
+                transfer(server, clientChannel)
+            }
+            clientHandler.handshakeFuture().sync()
+            (X509Certificate) clientHandler.engine().session.peerCertificates[0]
+        } finally {
+            clientChannel.finishAndReleaseAll()
+            server.finishAndReleaseAll()
+        }
+    }
+
+    private static void transfer(EmbeddedChannel from, EmbeddedChannel to) {
+        Object message
+        while ((message = from.readOutbound()) != null) {
+            to.writeInbound(message)
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.micronaut.acme.ssl
+
+import io.micronaut.acme.events.CertificateEvent
+import io.micronaut.http.netty.channel.ChannelPipelineCustomizer
+import io.micronaut.http.server.netty.NettyServerCustomizer
+import io.micronaut.http.ssl.ServerSslConfiguration
+import io.netty.buffer.ByteBufAllocator
+import io.netty.channel.embedded.EmbeddedChannel
+import io.netty.handler.ssl.OpenSsl
+import io.netty.handler.ssl.SslContext
+import io.netty.handler.ssl.SslContextBuilder
+import io.netty.handler.ssl.SslHandler
+import io.netty.handler.ssl.SslProvider
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import io.netty.util.ReferenceCounted
+import org.shredzone.acme4j.Identifier
+import org.shredzone.acme4j.util.CertificateUtils
+import org.shredzone.acme4j.util.KeyPairUtils
+import spock.lang.Requires
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.security.KeyPair
+
+class AcmeSniServerCustomizerSpec extends Specification {
+
+    @Shared
+    SelfSignedCertificate certificate = new SelfSignedCertificate("default.com")
+
+    void "a single certificate server keeps the SSL handler built by Micronaut"() {
+        given:
+        AcmeSSLContextBuilder builder = new AcmeSSLContextBuilder(Stub(ServerSslConfiguration))
+        SslHandler sslHandler = newSslHandler(SslProvider.JDK)
+        EmbeddedChannel channel = new EmbeddedChannel()
+        channel.pipeline().addLast(ChannelPipelineCustomizer.HANDLER_SSL, sslHandler)
+
+        when:
+        customize(builder, channel)
+
+        then:
+        channel.pipeline().get(ChannelPipelineCustomizer.HANDLER_SSL).is(sslHandler)
+
+        cleanup:
+        channel.finishAndReleaseAll()
+    }
+
+    void "connections accepted while a tls-alpn-01 validation is pending are routed"() {
+        given:
+        AcmeSSLContextBuilder builder = new AcmeSSLContextBuilder(Stub(ServerSslConfiguration))
+        builder.onNewCertificate(validationEvent(KeyPairUtils.createKeyPair(2048), "example.com"))
+        EmbeddedChannel channel = new EmbeddedChannel()
+        channel.pipeline().addLast(ChannelPipelineCustomizer.HANDLER_SSL, newSslHandler(SslProvider.JDK))
+
+        when:
+        customize(builder, channel)
+
+        then:
+        channel.pipeline().get(ChannelPipelineCustomizer.HANDLER_SSL) instanceof AcmeSniHandler
+
+        cleanup:
+        channel.finishAndReleaseAll()
+    }
+
+    @Requires({ OpenSsl.isAvailable() })
+    void "the engine of the replaced SSL handler is released"() {
+        given:
+        AcmeSSLContextBuilder builder = new AcmeSSLContextBuilder(Stub(ServerSslConfiguration))
+        builder.onNewCertificate(validationEvent(KeyPairUtils.createKeyPair(2048), "example.com"))
+        SslHandler sslHandler = newSslHandler(SslProvider.OPENSSL_REFCNT)
+        EmbeddedChannel channel = new EmbeddedChannel()
+        channel.pipeline().addLast(ChannelPipelineCustomizer.HANDLER_SSL, sslHandler)
+
+        when:
+        customize(builder, channel)
+
+        then:
+        ((ReferenceCounted) sslHandler.engine()).refCnt() == 0
+
+        cleanup:
+        channel.finishAndReleaseAll()
+    }
+
+    private static void customize(AcmeSSLContextBuilder builder, EmbeddedChannel channel) {
+        new AcmeSniServerCustomizer.SniCustomizer(builder.sniMapping, builder.validations, null)
+                .specializeForChannel(channel, NettyServerCustomizer.ChannelRole.CONNECTION)
+                .onInitialPipelineBuilt()
+    }
+
+    private static CertificateEvent validationEvent(KeyPair keyPair, String domain) {
+        new CertificateEvent(keyPair, true, CertificateUtils.createTlsAlpn01Certificate(keyPair, Identifier.dns(domain), new byte[32]))
+    }
+
+    private SslHandler newSslHandler(SslProvider provider) {
+        SslContext context = SslContextBuilder.forServer(certificate.key(), certificate.cert()).sslProvider(provider).build()
+        context.newHandler(ByteBufAllocator.DEFAULT)
+    }
+}
@@ -0,0 +1,200 @@
+package io.micronaut.acme.ssl
+
+import io.netty.buffer.ByteBufAllocator
+import io.netty.handler.ssl.ApplicationProtocolNegotiator
+import io.netty.handler.ssl.OpenSsl
+import io.netty.handler.ssl.SslContext
+import io.netty.handler.ssl.SslContextBuilder
+import io.netty.handler.ssl.SslProvider
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import io.netty.util.ReferenceCountUtil
+import io.netty.util.ReferenceCounted
+import spock.lang.Requires
+import spock.lang.Shared
+import spock.lang.Specification
+
+import javax.net.ssl.SSLEngine
+import javax.net.ssl.SSLSessionContext
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+class DelegatedSslContextSpec extends Specification {
+
+    static final int THREADS = 8
+    static final int SWAPS = 500
+    static final SelfSignedCertificate OPENSSL_CERTIFICATE = new SelfSignedCertificate("example.com")
+
+    @Shared
+    SslContext jdkContext = newJdkContext()
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS)
+
+    void cleanup() {
+        executor.shutdownNow()
+    }
+
+    void "engines are created without failure while the context is swapped concurrently"() {
+        given:
+        List<CountingSslContext> contexts = (0..SWAPS).collect { new CountingSslContext(jdkContext) }
+        DelegatedSslContext delegated = new DelegatedSslContext(contexts[0])
+        AtomicBoolean swapping = new AtomicBoolean(true)
+        CountDownLatch started = new CountDownLatch(THREADS)
+
+        when:
+        List<Future<?>> readers = (1..THREADS).collect {
+            executor.submit({
+                started.countDown()
+                while (swapping.get()) {
+                    assert delegated.newEngine(ByteBufAllocator.DEFAULT) != null
+                    assert delegated.newEngine(ByteBufAllocator.DEFAULT, "example.com", 443) != null
+                }
+            } as Runnable)
+        }
+        started.await()
+        contexts.drop(1).each {
+            delegated.setNewSslContext(it)
+            Thread.yield()
+        }
+        swapping.set(false)
+        readers*.get(30, TimeUnit.SECONDS)
+
+        then:
+        contexts.sum { it.engines.get() } > 0
+
+        when: "engines are created after the last swap"
+        CountingSslContext last = contexts.last()
+        int before = last.engines.get()
+        List<Future<?>> after = (1..THREADS).collect {
+            executor.submit({ delegated.newEngine(ByteBufAllocator.DEFAULT) } as Runnable)
+        }
+        after*.get(30, TimeUnit.SECONDS)
+
+        then: "every thread sees the latest context"
+        last.engines.get() == before + THREADS
+    }
+
+    void "an OCSP response is only accepted for the certificate currently served"() {
+        given:
+        SelfSignedCertificate first = new SelfSignedCertificate("first.example.com")
+        SelfSignedCertificate second = new SelfSignedCertificate("second.example.com")
+        DelegatedSslContext delegated = new DelegatedSslContext(null)
+        byte[] ocspResponse = [1, 2, 3] as byte[]
+
+        expect: "no certificate is served yet"
+        !delegated.setOcspResponse(first.cert(), ocspResponse)
+
+        when:
+        delegated.setNewSslContext(jdkContext, first.cert())
+
+        then:
+        !delegated.setOcspResponse(second.cert(), ocspResponse)
+        delegated.setOcspResponse(first.cert(), ocspResponse)
+
+        when: "the context is replaced without a certificate"
+        delegated.setNewSslContext(jdkContext)
+
+        then:
+        !delegated.setOcspResponse(first.cert(), ocspResponse)
+    }
+
+    @Requires({ OpenSsl.isAvailable() })
+    void "retired native contexts are freed once their engines are released"() {
+        given:
+        SslContext first = newOpenSslContext()
+        SslContext second = newOpenSslContext()
+        DelegatedSslContext delegated = new DelegatedSslContext(first)
+        SSLEngine engine = delegated.newEngine(ByteBufAllocator.DEFAULT)
+
+        when:
+        delegated.setNewSslContext(second)
+
+        then: "the engine still holds the retired context"
+        ((ReferenceCounted) first).refCnt() == 1
+        delegated.liveNativeContexts() == 2
+
+        when:
+        ReferenceCountUtil.release(engine)
+
+        then:
+        ((ReferenceCounted) first).refCnt() == 0
+        delegated.liveNativeContexts() == 1
+    }
+
+    @Requires({ OpenSsl.isAvailable() })
+    void "native contexts stay flat across many rotations"() {
+        given:
+        List<SslContext> retired = []
+        DelegatedSslContext delegated = new DelegatedSslContext(newOpenSslContext())
+
+        when:
+        1000.times {
+            SSLEngine engine = delegated.newEngine(ByteBufAllocator.DEFAULT)
+            SslContext next = newOpenSslContext()
+            retired << next
+            delegated.setNewSslContext(next)
+            ReferenceCountUtil.release(engine)
+        }
+
+        then:
+        delegated.liveNativeContexts() == 1
+        retired.dropRight(1).every { ((ReferenceCounted) it).refCnt() == 0 }
+    }
+
+    private static SslContext newJdkContext() {
+        SelfSignedCertificate ssc = new SelfSignedCertificate("example.com")
+        SslContextBuilder.forServer(ssc.key(), ssc.cert()).sslProvider(SslProvider.JDK).build()
+    }
+
+    private static SslContext newOpenSslContext() {
+        SslContextBuilder.forServer(OPENSSL_CERTIFICATE.key(), OPENSSL_CERTIFICATE.cert()).sslProvider(SslProvider.OPENSSL_REFCNT).build()
+    }
+
+    /**
+     * Context counting the engines created from it.
+     */
+    static class CountingSslContext extends SslContext {
+        final SslContext delegate
+        final AtomicInteger engines = new AtomicInteger()
+
+        CountingSslContext(SslContext delegate) {
+            this.delegate = delegate
+        }
+
+        @Override
+        boolean isClient() {
+            delegate.isClient()
+        }
+
+        @Override
+        List<String> cipherSuites() {
+            delegate.cipherSuites()
+        }
+
+        @Override
+        ApplicationProtocolNegotiator applicationProtocolNegotiator() {
+            delegate.applicationProtocolNegotiator()
+        }
+
+        @Override
+        SSLEngine newEngine(ByteBufAllocator alloc) {
+            engines.incrementAndGet()
+            delegate.newEngine(alloc)
+        }
+
+        @Override
+        SSLEngine newEngine(ByteBufAllocator alloc, String peerHost, int peerPort) {
+            engines.incrementAndGet()
+            delegate.newEngine(alloc, peerHost, peerPort)
+        }
+
+        @Override
+        SSLSessionContext sessionContext() {
+            delegate.sessionContext()
+        }
+    }
+}
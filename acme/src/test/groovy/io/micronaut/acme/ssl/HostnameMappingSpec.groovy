@@ -0,0 +1,76 @@
+package io.micronaut.acme.ssl
+
+import io.micronaut.context.exceptions.ConfigurationException
+import io.netty.handler.ssl.SslContext
+import io.netty.handler.ssl.SslContextBuilder
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class HostnameMappingSpec extends Specification {
+
+    @Shared
+    SslContext defaultContext = newContext("default.com")
+
+    @Shared
+    DelegatedSslContext exampleContext = new DelegatedSslContext(newContext("example.com"))
+
+    @Shared
+    DelegatedSslContext wildcardContext = new DelegatedSslContext(newContext("wildcard.com"))
+
+    @Shared
+    HostnameMapping mapping = HostnameMapping.builder(defaultContext)
+            .add(["example.com", "www.example.com"], exampleContext)
+            .add(["*.wildcard.com", "wildcard.com"], wildcardContext)
+            .build()
+
+    @Unroll
+    void "#hostname is served by the #expected context"() {
+        expect:
+        mapping.map(hostname).is(this."$expected")
+
+        where:
+        hostname               | expected
+        "example.com"          | "exampleContext"
+        "WWW.Example.com."     | "exampleContext"
+        "api.example.com"      | "defaultContext"
+        "wildcard.com"         | "wildcardContext"
+        "api.wildcard.com"     | "wildcardContext"
+        "a.api.wildcard.com"   | "defaultContext"
+        "unknown.com"          | "defaultContext"
+        null                   | "defaultContext"
+    }
+
+    void "certificates that are not available yet are served by the default context"() {
+        given:
+        DelegatedSslContext pending = new DelegatedSslContext(null)
+        HostnameMapping mapping = HostnameMapping.builder(defaultContext)
+                .add(["pending.com"], pending)
+                .build()
+
+        expect:
+        mapping.map("pending.com").is(defaultContext)
+
+        when:
+        pending.setNewSslContext(newContext("pending.com"))
+
+        then:
+        mapping.map("pending.com").is(pending)
+    }
+
+    void "a domain cannot be configured for two certificates"() {
+        when:
+        HostnameMapping.builder(defaultContext)
+                .add(["example.com"], exampleContext)
+                .add(["example.com"], wildcardContext)
+
+        then:
+        thrown(ConfigurationException)
+    }
+
+    private static SslContext newContext(String fqdn) {
+        SelfSignedCertificate ssc = new SelfSignedCertificate(fqdn)
+        SslContextBuilder.forServer(ssc.key(), ssc.cert()).build()
+    }
+}
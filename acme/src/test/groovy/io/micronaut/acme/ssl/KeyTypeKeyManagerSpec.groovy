@@ -0,0 +1,72 @@
+package io.micronaut.acme.ssl
+
+import io.micronaut.acme.events.CertificateEvent
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.net.ssl.X509KeyManager
+import java.security.KeyPair
+
+class KeyTypeKeyManagerSpec extends Specification {
+
+    @Shared
+    SelfSignedCertificate rsa = new SelfSignedCertificate("example.com", "RSA", 2048)
+
+    @Shared
+    SelfSignedCertificate ec = new SelfSignedCertificate("example.com", "EC", 256)
+
+    @Shared
+    KeyTypeKeyManager keyManager = new KeyTypeKeyManager(event(rsa), event(ec))
+
+    @Unroll
+    void "key type #keyType is served the #expected certificate"() {
+        when:
+        String alias = keyManager.chooseEngineServerAlias(keyType, null, null)
+
+        then:
+        alias == expected
+        keyManager.getPrivateKey(alias).algorithm == expected
+        keyManager.getCertificateChain(alias)[0].publicKey.algorithm == expected
+
+        where:
+        keyType       | expected
+        "EC"          | "EC"
+        "ECDHE_ECDSA" | "EC"
+        "RSA"         | "RSA"
+        "DHE_RSA"     | "RSA"
+        "ECDHE_RSA"   | "RSA"
+    }
+
+    @Unroll
+    void "key type #keyType of a static ECDH cipher suite is not served"() {
+        expect:
+        keyManager.chooseEngineServerAlias(keyType, null, null) == null
+        keyManager.getServerAliases(keyType, null) == null
+
+        where:
+        keyType << ["EC_RSA", "EC_EC", "DH_RSA"]
+    }
+
+    void "key types without a certificate are not served"() {
+        given:
+        KeyTypeKeyManager rsaOnly = new KeyTypeKeyManager(event(rsa))
+
+        expect:
+        rsaOnly.chooseServerAlias("EC_EC", null, null) == null
+        rsaOnly.getServerAliases("EC", null) == null
+        rsaOnly.chooseServerAlias("RSA", null, null) == "RSA"
+        rsaOnly.chooseServerAlias("DSA", null, null) == null
+    }
+
+    void "the factory hands out the key manager"() {
+        expect:
+        keyManager.newKeyManagerFactory().keyManagers.toList() == [keyManager]
+        keyManager.newKeyManagerFactory().keyManagers[0] instanceof X509KeyManager
+    }
+
+    private static CertificateEvent event(SelfSignedCertificate certificate) {
+        new CertificateEvent(new KeyPair(certificate.cert().publicKey, certificate.key()), false, certificate.cert())
+    }
+}
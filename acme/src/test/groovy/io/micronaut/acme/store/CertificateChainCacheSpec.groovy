@@ -0,0 +1,92 @@
+package io.micronaut.acme.store
+
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+import java.time.Instant
+
+class CertificateChainCacheSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    void "missing certificate file results in an empty chain"() {
+        given:
+        CertificateChainCache cache = new CertificateChainCache(tempDir.resolve("domain.crt"))
+
+        expect:
+        !cache.getChain().isPresent()
+    }
+
+    void "chain is parsed once while the file does not change"() {
+        given:
+        Path crt = writeCertificate("first.example.com")
+        CertificateChainCache cache = new CertificateChainCache(crt)
+
+        when:
+        def first = cache.getChain().get()
+        def second = cache.getChain().get()
+
+        then:
+        first.length == 1
+        first[0].subjectX500Principal.name == "CN=first.example.com"
+        first[0].is(second[0])
+        !first.is(second)
+    }
+
+    void "chain is parsed again when the file is replaced"() {
+        given:
+        Path crt = writeCertificate("first.example.com")
+        CertificateChainCache cache = new CertificateChainCache(crt)
+        def first = cache.getChain().get()
+
+        when:
+        writeCertificate("second.example.com")
+        Files.setLastModifiedTime(crt, FileTime.from(Instant.now().plusSeconds(60)))
+        def second = cache.getChain().get()
+
+        then:
+        !first[0].is(second[0])
+        second[0].subjectX500Principal.name == "CN=second.example.com"
+    }
+
+    void "invalidate forces the chain to be parsed again"() {
+        given:
+        Path crt = writeCertificate("first.example.com")
+        CertificateChainCache cache = new CertificateChainCache(crt)
+        def first = cache.getChain().get()
+
+        when:
+        cache.invalidate()
+
+        then:
+        !first[0].is(cache.getChain().get()[0])
+    }
+
+    void "deleting the certificate file empties the chain"() {
+        given:
+        Path crt = writeCertificate("first.example.com")
+        CertificateChainCache cache = new CertificateChainCache(crt)
+        cache.getChain().get()
+
+        when:
+        Files.delete(crt)
+
+        then:
+        !cache.getChain().isPresent()
+    }
+
+    private Path writeCertificate(String fqdn) {
+        SelfSignedCertificate ssc = new SelfSignedCertificate(fqdn)
+        try {
+            return Files.copy(ssc.certificate().toPath(), tempDir.resolve("domain.crt"), StandardCopyOption.REPLACE_EXISTING)
+        } finally {
+            ssc.delete()
+        }
+    }
+}
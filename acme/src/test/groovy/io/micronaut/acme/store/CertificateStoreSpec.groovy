@@ -0,0 +1,111 @@
+package io.micronaut.acme.store
+
+import io.micronaut.acme.AcmeConfiguration
+import io.micronaut.context.ApplicationContext
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.lang.Unroll
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.security.cert.X509Certificate
+
+class CertificateStoreSpec extends Specification {
+
+    @Shared
+    X509Certificate leaf = new SelfSignedCertificate("example.com").cert()
+
+    @Shared
+    X509Certificate issuer = new SelfSignedCertificate("issuer.example.com").cert()
+
+    @TempDir
+    Path tempDir
+
+    @AutoCleanup
+    ApplicationContext context
+
+    @Unroll
+    void "#type store keeps the chain, CSR, metadata and OCSP response of each certificate and the account metadata"() {
+        given:
+        CertificateStore store = startStore(properties)
+
+        expect:
+        store.class.simpleName == type
+        !store.loadChain("default").isPresent()
+        !store.loadCsr("default").isPresent()
+        store.loadMetadata("default").isEmpty()
+        !store.loadOcspResponse("default").isPresent()
+        store.loadAccountMetadata().isEmpty()
+
+        when:
+        store.storeChain("default", [leaf, issuer] as X509Certificate[])
+        store.storeChain("tenant-a" + CertificateStore.ECDSA_SUFFIX, [issuer] as X509Certificate[])
+        store.storeCsr("default", [1, 2, 3] as byte[])
+        store.storeMetadata("default", ["order-url": "https://example.com/order/1"])
+        store.storeOcspResponse("default", [4, 5, 6] as byte[])
+        store.storeAccountMetadata(["url": "https://example.com/acct/1"])
+
+        then:
+        store.loadChain("default").get().toList() == [leaf, issuer]
+        store.loadChain("tenant-a" + CertificateStore.ECDSA_SUFFIX).get().toList() == [issuer]
+        !store.loadChain("tenant-a").isPresent()
+        store.loadCsr("default").get() == [1, 2, 3] as byte[]
+        store.loadMetadata("default") == ["order-url": "https://example.com/order/1"]
+        store.loadOcspResponse("default").get() == [4, 5, 6] as byte[]
+        store.loadAccountMetadata() == ["url": "https://example.com/acct/1"]
+
+        when: "the returned chain is modified"
+        store.loadChain("default").get()[0] = issuer
+
+        then:
+        store.loadChain("default").get()[0] == leaf
+
+        where:
+        type                         | properties
+        "FileSystemCertificateStore" | [:]
+        "InMemoryCertificateStore"   | ['acme.store.type': 'memory']
+    }
+
+    void "file system store keeps the files in the certificate location and leaves no temporary file behind"() {
+        given:
+        CertificateStore store = startStore([:])
+
+        when:
+        store.storeChain("default", [leaf, issuer] as X509Certificate[])
+        store.storeChain("default", [leaf] as X509Certificate[])
+        store.storeCsr("default", [1, 2, 3] as byte[])
+        store.storeOcspResponse("default", [4, 5, 6] as byte[])
+        store.storeChain("tenant-a", [leaf] as X509Certificate[])
+        store.storeChain("tenant-a" + CertificateStore.ECDSA_SUFFIX, [issuer] as X509Certificate[])
+        store.storeAccountMetadata(["url": "https://example.com/acct/1"])
+
+        then:
+        Files.list(tempDir).withCloseable { it.map { it.fileName.toString() }.sorted().toList() } == ["account.properties", "domain.crt", "domain.csr", "domain.ocsp", "tenant-a"]
+        Files.readString(tempDir.resolve("domain.crt")).count("BEGIN CERTIFICATE") == 1
+        Files.readString(tempDir.resolve("domain.csr")).startsWith("-----BEGIN CERTIFICATE REQUEST-----")
+        Files.exists(tempDir.resolve("tenant-a/domain.crt"))
+        Files.exists(tempDir.resolve("tenant-a/ec/domain.crt"))
+    }
+
+    void "file system store picks up a chain stored by another node sharing the volume"() {
+        given:
+        CertificateStore store = startStore([:])
+        store.storeChain("default", [issuer] as X509Certificate[])
+        store.loadChain("default")
+        CertificateStore otherNode = new FileSystemCertificateStore(new AcmeConfiguration(certLocation: tempDir.toFile()))
+
+        when:
+        otherNode.storeChain("default", [leaf, issuer] as X509Certificate[])
+
+        then:
+        store.loadChain("default").get().toList() == [leaf, issuer]
+    }
+
+    private CertificateStore startStore(Map<String, Object> properties) {
+        context = ApplicationContext.run(['acme.cert-location': tempDir.toString()] + properties)
+        context.getBean(CertificateStore)
+    }
+}